@@ -0,0 +1,95 @@
+package com.example.account.benchmark;
+
+import com.example.account.exception.AccountException;
+import com.example.account.exception.ErrorLogSampler;
+import com.example.account.type.ErrorCode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대부분의 요청이 거절되는 부하에서 실패 경로 비용 비교.
+ * Spring proxy, aspect 를 거친 깊이를 흉내 내려고 depth 만큼 호출을 쌓은 뒤 던진다.
+ *
+ * ./gradlew jmh -Pjmh.includes=FailurePathBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FailurePathBenchmark {
+
+    /** 거절되는 요청 비율(%) */
+    @Param({"90"})
+    private int rejectPercent;
+
+    @Param({"60"})
+    private int depth;
+
+    private ErrorLogSampler sampler;
+    private int sequence;
+
+    @Setup
+    public void setUp() {
+        sampler = new ErrorLogSampler(10);
+    }
+
+    /** 기존 방식: stack trace 를 채우는 예외 */
+    @Benchmark
+    public void stackTraceException(Blackhole blackhole) {
+        try {
+            blackhole.consume(call(depth, true));
+        } catch (StackTraceAccountException e) {
+            blackhole.consume(e.getErrorCode());
+        }
+    }
+
+    /** stack trace 없는 AccountException */
+    @Benchmark
+    public void stacklessException(Blackhole blackhole) {
+        try {
+            blackhole.consume(call(depth, false));
+        } catch (AccountException e) {
+            blackhole.consume(e.getErrorCode());
+        }
+    }
+
+    /** stack trace 없는 예외 + 표본 로그 판단 */
+    @Benchmark
+    public void stacklessExceptionWithSampling(Blackhole blackhole) {
+        try {
+            blackhole.consume(call(depth, false));
+        } catch (AccountException e) {
+            blackhole.consume(sampler.sample(e.getErrorCode(), System.nanoTime()));
+        }
+    }
+
+    private long call(int remaining, boolean fillStackTrace) {
+        if (remaining > 0) {
+            return call(remaining - 1, fillStackTrace) + 1;
+        }
+        if (++sequence % 100 < rejectPercent) {
+            throw fillStackTrace
+                    ? new StackTraceAccountException(ErrorCode.AMOUNT_EXCEED_BALANCE)
+                    : new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        return sequence;
+    }
+
+    /** stack trace 를 채우던 이전 AccountException */
+    static class StackTraceAccountException extends RuntimeException {
+        private final ErrorCode errorCode;
+
+        StackTraceAccountException(ErrorCode errorCode) {
+            super(errorCode.getDescription());
+            this.errorCode = errorCode;
+        }
+
+        ErrorCode getErrorCode() {
+            return errorCode;
+        }
+    }
+}
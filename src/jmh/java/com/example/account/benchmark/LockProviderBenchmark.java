@@ -0,0 +1,112 @@
+package com.example.account.benchmark;
+
+import com.example.account.aop.LockMode;
+import com.example.account.service.AccountLockProvider;
+import com.example.account.service.DatabaseAccountLockProvider;
+import com.example.account.service.InProcessAccountLockProvider;
+import com.example.account.service.RedissonAccountLockProvider;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.jdbc.core.JdbcTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 lock provider 별 lock/unlock 한 번의 비용 비교.
+ * 여러 스레드가 accounts 개의 계좌 중 하나를 골라 lock 을 잡고 바로 푼다.
+ * redisson 은 embedded redis, database 는 메모리 H2 를 쓰므로 네트워크 비용은 loopback 기준이다.
+ *
+ * ./gradlew jmh -Pjmh.includes=LockProviderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LockProviderBenchmark {
+
+    @Param({"in-process", "database", "redisson"})
+    private String provider;
+
+    @Param({"1000"})
+    private int accounts;
+
+    /** FIFO 로 lock 을 줄 때의 비용은 -p fair=true 로 잰다. (database 는 영향 없음) */
+    @Param({"false"})
+    private boolean fair;
+
+    private AccountLockProvider accountLockProvider;
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+    private HikariDataSource dataSource;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (provider) {
+            case "in-process":
+                accountLockProvider = new InProcessAccountLockProvider(1024, fair);
+                break;
+            case "database":
+                // 운영처럼 connection pool 을 거친다.
+                dataSource = new HikariDataSource();
+                dataSource.setJdbcUrl("jdbc:h2:mem:lock-benchmark;DB_CLOSE_DELAY=-1");
+                dataSource.setMaximumPoolSize(8);
+                new JdbcTemplate(dataSource).execute(
+                        "create table account_lock_row (lock_key varchar(255) primary key, fencing_token bigint)");
+                accountLockProvider = new DatabaseAccountLockProvider(dataSource, "for update");
+                break;
+            case "redisson":
+                int port = freePort();
+                redisServer = new RedisServer(port);
+                redisServer.start();
+                Config config = new Config();
+                config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+                redissonClient = Redisson.create(config);
+                accountLockProvider = new RedissonAccountLockProvider(redissonClient, fair);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown provider : " + provider);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public boolean lockAndUnlock() throws InterruptedException {
+        List<String> lockKeys = Collections.singletonList(
+                "ACLK:" + (1000000000 + ThreadLocalRandom.current().nextInt(accounts)));
+        boolean locked = accountLockProvider.tryLock(lockKeys, LockMode.WRITE, 1, 15, TimeUnit.SECONDS);
+        if (locked) {
+            accountLockProvider.unlock(lockKeys, LockMode.WRITE);
+        }
+        return locked;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.OffHeapBalanceIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+
+/**
+ * in-memory 장부의 계좌 찾기 + 잔액 차감/충전 한 번의 비용.
+ * 여러 스레드가 accounts 개의 계좌 중 하나를 골라 찾은 뒤 CAS 로 차감하고 다시 충전한다.
+ * accounts 를 줄이면 같은 계좌의 CAS 경합을 잰다.
+ *
+ * ./gradlew jmh -Pjmh.includes=OffHeapBalanceIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class OffHeapBalanceIndexBenchmark {
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    @Param({"16", "1000000"})
+    private int accounts;
+
+    private OffHeapBalanceIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new OffHeapBalanceIndex(accounts);
+        for (int i = 0; i < accounts; i++) {
+            index.putIfAbsent(FIRST_ACCOUNT_NUMBER + i, i + 1, 1L, IN_USE, 1_000_000L);
+        }
+    }
+
+    @Benchmark
+    public long debitAndCredit() {
+        int entry = index.find(FIRST_ACCOUNT_NUMBER + ThreadLocalRandom.current().nextInt(accounts));
+        index.debit(entry, 100L);
+        return index.credit(entry, 100L);
+    }
+}
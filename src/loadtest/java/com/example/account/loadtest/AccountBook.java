@@ -0,0 +1,105 @@
+package com.example.account.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 부하를 주는 쪽에서 본 계좌 상태.
+ * 성공 응답을 받은 요청만 반영하고, 응답을 못 받아 결과를 모르는 계좌는 따로 표시한다.
+ */
+class AccountBook {
+    /** 미리 만든 계좌 (Zipf 로 고르는 대상) */
+    private final List<Account> preloaded = new CopyOnWriteArrayList<>();
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final Set<String> uncertain = ConcurrentHashMap.newKeySet();
+    private final AtomicLong initialTotal = new AtomicLong();
+    private final AtomicLong netDebit = new AtomicLong();
+    /** 만들어졌는지 모르는 계좌 수 */
+    private final AtomicLong unknownCreates = new AtomicLong();
+
+    void preload(String accountNumber, long userId, long initialBalance) {
+        preloaded.add(open(accountNumber, userId, initialBalance));
+    }
+
+    Account open(String accountNumber, long userId, long initialBalance) {
+        Account account = new Account(accountNumber, userId, initialBalance);
+        accounts.put(accountNumber, account);
+        initialTotal.addAndGet(initialBalance);
+        return account;
+    }
+
+    Account preloaded(int index) {
+        return preloaded.get(index);
+    }
+
+    int preloadedCount() {
+        return preloaded.size();
+    }
+
+    Map<String, Account> accounts() {
+        return accounts;
+    }
+
+    void debit(Account account, long amount) {
+        account.expectedBalance.addAndGet(-amount);
+        netDebit.addAndGet(amount);
+    }
+
+    void credit(Account account, long amount) {
+        account.expectedBalance.addAndGet(amount);
+        netDebit.addAndGet(-amount);
+    }
+
+    void transfer(Account from, Account to, long amount) {
+        from.expectedBalance.addAndGet(-amount);
+        to.expectedBalance.addAndGet(amount);
+    }
+
+    void markUncertain(Account... touched) {
+        for (Account account : touched) {
+            uncertain.add(account.accountNumber);
+        }
+    }
+
+    void markUnknownCreate() {
+        unknownCreates.incrementAndGet();
+    }
+
+    boolean isUncertain(Account account) {
+        return uncertain.contains(account.accountNumber);
+    }
+
+    int uncertainCount() {
+        return uncertain.size();
+    }
+
+    long unknownCreates() {
+        return unknownCreates.get();
+    }
+
+    long initialTotal() {
+        return initialTotal.get();
+    }
+
+    long netDebit() {
+        return netDebit.get();
+    }
+
+    static class Account {
+        final String accountNumber;
+        final long userId;
+        final long initialBalance;
+        final AtomicLong expectedBalance;
+
+        Account(String accountNumber, long userId, long initialBalance) {
+            this.accountNumber = accountNumber;
+            this.userId = userId;
+            this.initialBalance = initialBalance;
+            this.expectedBalance = new AtomicLong(initialBalance);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.account.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 계좌 API 호출. 업무 오류는 HTTP 200 + errorCode 로 오므로 본문까지 보고 결과를 나눈다.
+ */
+class AccountClient {
+    static final String OK = "OK";
+    /** 응답을 받지 못해 반영 여부를 모르는 경우 */
+    static final String UNKNOWN = "UNKNOWN";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    AccountClient(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    Result post(String path, Map<String, Object> body) {
+        try {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    Result get(String path) {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private Result send(HttpRequest.Builder request) {
+        try {
+            HttpResponse<byte[]> response = httpClient.send(
+                    request.timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() >= 500) {
+                return new Result(UNKNOWN, null);
+            }
+            JsonNode body = objectMapper.readTree(response.body());
+            if (response.statusCode() != 200) {
+                return new Result("HTTP_" + response.statusCode(), body);
+            }
+            JsonNode errorCode = body.get("errorCode");
+            return new Result(errorCode == null ? OK : errorCode.asText(), body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(UNKNOWN, null);
+        } catch (IOException e) {
+            return new Result(UNKNOWN, null);
+        }
+    }
+
+    static class Result {
+        final String outcome;
+        final JsonNode body;
+
+        Result(String outcome, JsonNode body) {
+            this.outcome = outcome;
+            this.body = body;
+        }
+
+        boolean ok() {
+            return OK.equals(outcome);
+        }
+
+        boolean unknown() {
+            return UNKNOWN.equals(outcome);
+        }
+
+        String text(String field) {
+            return body.get(field).asText();
+        }
+    }
+}
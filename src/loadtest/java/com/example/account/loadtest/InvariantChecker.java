@@ -0,0 +1,107 @@
+package com.example.account.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 부하가 끝난 뒤 DB 의 잔액을 부하를 준 쪽 기록, 거래 원장과 맞춰 본다.
+ * 1. 전체 잔액 = 처음 잔액 합 - 순 사용액 (응답을 모두 받은 경우만)
+ * 2. 계좌별 잔액 = 처음 잔액 + 성공 응답으로 받은 변경 (결과를 모르는 계좌 제외)
+ * 3. 계좌별 잔액 = 처음 잔액 + 성공(S) 거래 원장의 합
+ * 4. 음수 잔액 없음
+ */
+class InvariantChecker {
+    private static final String BALANCE_SQL =
+            "select a.account_number, " +
+                    "a.balance + coalesce((select sum(s.balance) from account_balance_slot s " +
+                    "where s.account_id = a.id), 0), " +
+                    "coalesce((select sum(case when t.transaction_type in ('USE', 'TRANSFER_OUT') " +
+                    "then -t.amount else t.amount end) from transaction t " +
+                    "where t.account_id = a.id and t.transaction_result_type = 'S'), 0) " +
+                    "from account a";
+    private static final int MAX_REPORTED_MISMATCHES = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountBook book;
+    private final List<String> lines = new ArrayList<>();
+    private boolean passed = true;
+
+    InvariantChecker(JdbcTemplate jdbcTemplate, AccountBook book) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.book = book;
+    }
+
+    boolean check() {
+        Map<String, long[]> balances = new HashMap<>();
+        jdbcTemplate.query(BALANCE_SQL, resultSet -> {
+            balances.put(resultSet.getString(1), new long[]{resultSet.getLong(2), resultSet.getLong(3)});
+        });
+
+        long total = 0;
+        List<String> clientMismatches = new ArrayList<>();
+        List<String> ledgerMismatches = new ArrayList<>();
+        int negative = 0;
+        int checked = 0;
+        for (AccountBook.Account account : book.accounts().values()) {
+            long[] balance = balances.get(account.accountNumber);
+            if (balance == null) {
+                clientMismatches.add(account.accountNumber + " missing");
+                continue;
+            }
+            total += balance[0];
+            if (balance[0] < 0) {
+                negative++;
+            }
+            if (balance[0] != account.initialBalance + balance[1]) {
+                ledgerMismatches.add(String.format(Locale.ROOT, "%s balance=%d initial+ledger=%d",
+                        account.accountNumber, balance[0], account.initialBalance + balance[1]));
+            }
+            if (!book.isUncertain(account)) {
+                checked++;
+                if (balance[0] != account.expectedBalance.get()) {
+                    clientMismatches.add(String.format(Locale.ROOT, "%s balance=%d expected=%d",
+                            account.accountNumber, balance[0], account.expectedBalance.get()));
+                }
+            }
+        }
+
+        long expectedTotal = book.initialTotal() - book.netDebit();
+        if (book.uncertainCount() == 0 && book.unknownCreates() == 0) {
+            result(total == expectedTotal, String.format(Locale.ROOT,
+                    "total balance %,d = initial %,d - net debits %,d (expected %,d)",
+                    total, book.initialTotal(), book.netDebit(), expectedTotal));
+        } else {
+            lines.add(String.format(Locale.ROOT,
+                    "[SKIP] total balance: %d accounts and %d creates have unknown outcomes",
+                    book.uncertainCount(), book.unknownCreates()));
+        }
+        result(clientMismatches.isEmpty(), String.format(Locale.ROOT,
+                "per-account balance matches acknowledged requests (%d accounts, %d mismatches)",
+                checked, clientMismatches.size()));
+        details(clientMismatches);
+        result(ledgerMismatches.isEmpty(), String.format(Locale.ROOT,
+                "per-account balance matches the S ledger (%d accounts, %d mismatches)",
+                book.accounts().size(), ledgerMismatches.size()));
+        details(ledgerMismatches);
+        result(negative == 0, "no negative balance (" + negative + " negative)");
+        return passed;
+    }
+
+    List<String> lines() {
+        return lines;
+    }
+
+    private void result(boolean ok, String description) {
+        passed &= ok;
+        lines.add((ok ? "[OK]   " : "[FAIL] ") + description);
+    }
+
+    private void details(List<String> mismatches) {
+        mismatches.stream().limit(MAX_REPORTED_MISMATCHES).forEach(line -> lines.add("         " + line));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.account.loadtest;
+
+import com.example.account.AccountApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * 서버를 H2 + embedded redis 로 띄우고 계좌 생성/사용/취소/송금/조회를 섞어 부하를 준 뒤
+ * 처리량, 응답 시간 백분위, 오류 코드별 건수와 잔액 불변식 검사 결과를 남긴다.
+ * 불변식이 깨지면 1 로 종료한다.
+ *
+ * ./gradlew loadTest -Ploadtest.threads=64 -Ploadtest.durationSeconds=60
+ */
+public class LoadGenerator {
+    /** 미리 만든 계좌의 사용자 id (sequence 로 받는 id 와 겹치지 않게 크게 잡는다) */
+    private static final long PRELOAD_USER_BASE = 1_000_000L;
+    /** 부하 중 계좌를 만들 사용자 id */
+    private static final long CREATE_USER_BASE = 2_000_000L;
+    private static final int CREATE_USERS = 10_000;
+    private static final int BULK_SIZE = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = new LoadSettings();
+        int port = freePort();
+        List<String> appArgs = new ArrayList<>(Arrays.asList(
+                "--server.port=" + port,
+                "--spring.redis.port=" + freePort(),
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                // 요청 수 제한에 걸리면 잔액 경로가 아니라 제한만 재게 된다.
+                "--account.rate-limit.enabled=false",
+                "--account.outbox.file-path=build/loadtest/outbox.ndjson",
+                "--account.archive.dir=build/loadtest/archive"));
+        appArgs.addAll(settings.appArgs);
+
+        int exitCode;
+        try (ConfigurableApplicationContext context =
+                     SpringApplication.run(AccountApplication.class, appArgs.toArray(new String[0]))) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            AccountClient client = new AccountClient(port);
+            AccountBook book = new AccountBook();
+
+            preload(settings, jdbcTemplate, client, book);
+            List<LoadWorker> workers = run(settings, client, book);
+
+            LoadStats stats = new LoadStats();
+            workers.forEach(worker -> stats.add(worker.stats));
+            InvariantChecker checker = new InvariantChecker(jdbcTemplate, book);
+            boolean passed = checker.check();
+
+            List<String> report = report(settings, stats, checker.lines());
+            Files.createDirectories(settings.reportFile.toAbsolutePath().getParent());
+            Files.write(settings.reportFile, report);
+            report.forEach(System.out::println);
+            System.out.println("Report written to " + settings.reportFile.toAbsolutePath());
+            exitCode = passed ? 0 : 1;
+        }
+        System.exit(exitCode);
+    }
+
+    /** 사용자는 DB 에 바로 넣고, 계좌는 대량 생성 API 로 만든다. (계좌번호는 요청 순서대로 이어진다) */
+    private static void preload(LoadSettings settings, JdbcTemplate jdbcTemplate,
+                                AccountClient client, AccountBook book) {
+        int preloadUsers = (settings.accounts + 9) / 10;
+        insertUsers(jdbcTemplate, PRELOAD_USER_BASE, preloadUsers);
+        insertUsers(jdbcTemplate, CREATE_USER_BASE, CREATE_USERS);
+
+        for (int from = 0; from < settings.accounts; from += BULK_SIZE) {
+            int to = Math.min(settings.accounts, from + BULK_SIZE);
+            List<Map<String, Object>> accounts = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Map<String, Object> account = new HashMap<>();
+                account.put("userId", PRELOAD_USER_BASE + i / 10);
+                account.put("initialBalance", settings.initialBalance);
+                accounts.add(account);
+            }
+            Map<String, Object> body = new HashMap<>();
+            body.put("accounts", accounts);
+            AccountClient.Result result = client.post("/account/bulk", body);
+            if (!result.ok() || result.body.get("failed").asInt() != 0) {
+                throw new IllegalStateException("Preloading accounts failed : " + result.outcome + " " + result.body);
+            }
+            long first = Long.parseLong(result.text("firstAccountNumber"));
+            for (int i = from; i < to; i++) {
+                book.preload(String.valueOf(first + i - from), PRELOAD_USER_BASE + i / 10, settings.initialBalance);
+            }
+        }
+        System.out.printf(Locale.ROOT, "Preloaded %d accounts for %d users%n", settings.accounts, preloadUsers);
+    }
+
+    private static void insertUsers(JdbcTemplate jdbcTemplate, long base, int count) {
+        jdbcTemplate.batchUpdate(
+                "insert into account_user(id, name, created_at, updated_at) values (?, ?, now(), now())",
+                LongStream.range(base, base + count)
+                        .mapToObj(id -> new Object[]{id, "load-" + id})
+                        .collect(Collectors.toList()));
+    }
+
+    private static List<LoadWorker> run(LoadSettings settings, AccountClient client, AccountBook book)
+            throws InterruptedException {
+        System.out.println("Load test: " + settings);
+        ZipfianGenerator zipf = new ZipfianGenerator(book.preloadedCount(), settings.zipfTheta);
+        AtomicLong createSequence = new AtomicLong();
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long stopAt = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+
+        List<LoadWorker> workers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+        for (int i = 0; i < settings.threads; i++) {
+            LoadWorker worker = new LoadWorker(settings, book, client, zipf, createSequence,
+                    CREATE_USER_BASE, measureFrom, stopAt, 31L * i + 17);
+            workers.add(worker);
+            executor.execute(worker);
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(settings.warmupSeconds + settings.durationSeconds + 60L, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Load workers did not finish");
+        }
+        return workers;
+    }
+
+    private static List<String> report(LoadSettings settings, LoadStats stats, List<String> invariants) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Load test: " + settings);
+        lines.add("");
+        lines.add(String.format(Locale.ROOT, "%-9s %9s %9s %9s %9s %9s %9s %9s %9s %9s",
+                "operation", "count", "ok", "failed", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Histogram all = new Histogram(1000L, TimeUnit.MINUTES.toNanos(1), 3);
+        stats.latency.forEach((operation, histogram) -> {
+            all.add(histogram);
+            lines.add(row(operation.name(), histogram, stats.count(operation, true),
+                    stats.count(operation, false), settings.durationSeconds));
+        });
+        long ok = Arrays.stream(Operation.values()).mapToLong(operation -> stats.count(operation, true)).sum();
+        lines.add(row("TOTAL", all, ok, all.getTotalCount() - ok, settings.durationSeconds));
+
+        lines.add("");
+        lines.add("Outcomes:");
+        stats.outcomes.forEach((key, count) -> lines.add(String.format(Locale.ROOT, "  %-40s %9d", key, count)));
+        lines.add("");
+        lines.add("Invariants:");
+        invariants.forEach(line -> lines.add("  " + line));
+        return lines;
+    }
+
+    private static String row(String name, Histogram histogram, long ok, long failed, int seconds) {
+        return String.format(Locale.ROOT, "%-9s %9d %9d %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, histogram.getTotalCount(), ok, failed, histogram.getTotalCount() / (double) seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.account.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 부하 설정. ./gradlew loadTest -Ploadtest.threads=64 처럼 loadtest.* 로 넘긴다.
+ */
+class LoadSettings {
+    final int threads = intProperty("loadtest.threads", 32);
+    final int accounts = intProperty("loadtest.accounts", 1000);
+    final int warmupSeconds = intProperty("loadtest.warmupSeconds", 5);
+    final int durationSeconds = intProperty("loadtest.durationSeconds", 30);
+    final double zipfTheta = Double.parseDouble(System.getProperty("loadtest.zipfTheta", "0.99"));
+    final long initialBalance = Long.parseLong(System.getProperty("loadtest.initialBalance", "100000000"));
+    final long minAmount = Long.parseLong(System.getProperty("loadtest.minAmount", "100"));
+    final long maxAmount = Long.parseLong(System.getProperty("loadtest.maxAmount", "100000"));
+    /** 작업별 비중. 예) CREATE=2,USE=55,CANCEL=15,TRANSFER=8,QUERY=20 */
+    final Map<Operation, Integer> mix = mix(System.getProperty(
+            "loadtest.mix", "CREATE=2,USE=55,CANCEL=15,TRANSFER=8,QUERY=20"));
+    final Path reportFile = Paths.get(System.getProperty(
+            "loadtest.report", "build/reports/loadtest/report.txt"));
+    /** 서버에 그대로 넘길 설정. 예) --account.lock.provider=in-process (공백으로 구분) */
+    final List<String> appArgs = appArgs(System.getProperty("loadtest.appArgs", ""));
+
+    private final Operation[] table = operationTable(mix);
+
+    /** 비중 합만큼의 칸에 작업을 채워 둔 표에서 고른다. */
+    Operation pick(int random) {
+        return table[Math.floorMod(random, table.length)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "threads=%d accounts=%d zipfTheta=%.2f warmup=%ds duration=%ds amount=%d~%d mix=%s appArgs=%s",
+                threads, accounts, zipfTheta, warmupSeconds, durationSeconds, minAmount, maxAmount, mix, appArgs);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix must look like USE=60,QUERY=40 : " + value);
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Operation[] operationTable(Map<Operation, Integer> mix) {
+        List<Operation> table = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        });
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no operation");
+        }
+        return table.toArray(new Operation[0]);
+    }
+
+    private static List<String> appArgs(String value) {
+        return value.isBlank() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(value.trim().split("\\s+")));
+    }
+}
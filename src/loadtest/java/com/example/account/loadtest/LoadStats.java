@@ -0,0 +1,43 @@
+package com.example.account.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스레드 하나가 모은 작업별 응답 시간과 결과. 끝나고 한 번에 합친다.
+ */
+class LoadStats {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    final Map<Operation, Histogram> latency = new EnumMap<>(Operation.class);
+    /** "USE AMOUNT_EXCEED_BALANCE" 처럼 작업과 결과별 건수 */
+    final Map<String, Long> outcomes = new TreeMap<>();
+
+    void record(Operation operation, String outcome, long nanos) {
+        latency.computeIfAbsent(operation, key -> newHistogram())
+                .recordValue(Math.max(1000L, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+        outcomes.merge(operation + " " + outcome, 1L, Long::sum);
+    }
+
+    void add(LoadStats other) {
+        other.latency.forEach((operation, histogram) ->
+                latency.computeIfAbsent(operation, key -> newHistogram()).add(histogram));
+        other.outcomes.forEach((key, count) -> outcomes.merge(key, count, Long::sum));
+    }
+
+    long count(Operation operation, boolean ok) {
+        return outcomes.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(operation + " "))
+                .filter(entry -> entry.getKey().endsWith(" " + AccountClient.OK) == ok)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(1000L, HIGHEST_TRACKABLE_NANOS, 3);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.account.loadtest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 끝날 때까지 쉬지 않고 요청을 보내는 스레드 하나 (closed loop).
+ * 사용 성공한 거래는 스레드마다 최근 것부터 취소하므로 같은 거래를 두 번 취소하지 않는다.
+ */
+class LoadWorker implements Runnable {
+    private static final int MAX_CANCELABLE = 1000;
+
+    private final LoadSettings settings;
+    private final AccountBook book;
+    private final AccountClient client;
+    private final ZipfianGenerator zipf;
+    private final AtomicLong createSequence;
+    private final long createUserBase;
+    private final long measureFromNanos;
+    private final long stopAtNanos;
+    private final SplittableRandom random;
+    private final Deque<Used> cancelable = new ArrayDeque<>();
+
+    final LoadStats stats = new LoadStats();
+
+    LoadWorker(LoadSettings settings, AccountBook book, AccountClient client, ZipfianGenerator zipf,
+               AtomicLong createSequence, long createUserBase,
+               long measureFromNanos, long stopAtNanos, long seed) {
+        this.settings = settings;
+        this.book = book;
+        this.client = client;
+        this.zipf = zipf;
+        this.createSequence = createSequence;
+        this.createUserBase = createUserBase;
+        this.measureFromNanos = measureFromNanos;
+        this.stopAtNanos = stopAtNanos;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void run() {
+        long startedAt;
+        while ((startedAt = System.nanoTime()) < stopAtNanos) {
+            Operation operation = settings.pick(random.nextInt());
+            if (operation == Operation.CANCEL && cancelable.isEmpty()) {
+                operation = Operation.USE;
+            }
+            String outcome = execute(operation);
+            if (startedAt >= measureFromNanos) {
+                stats.record(operation, outcome, System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    private String execute(Operation operation) {
+        switch (operation) {
+            case CREATE:
+                return create();
+            case USE:
+                return use();
+            case CANCEL:
+                return cancel();
+            case TRANSFER:
+                return transfer();
+            default:
+                return query();
+        }
+    }
+
+    /** 사용자마다 10개까지 만들 수 있으므로 10번마다 다음 사용자로 넘어간다. */
+    private String create() {
+        long userId = createUserBase + createSequence.getAndIncrement() / 10;
+        long initialBalance = settings.initialBalance;
+        AccountClient.Result result = client.post("/account",
+                body("userId", userId, "initialBalance", initialBalance));
+        if (result.ok()) {
+            book.open(result.text("accountNumber"), userId, initialBalance);
+        } else if (result.unknown()) {
+            book.markUnknownCreate();
+        }
+        return result.outcome;
+    }
+
+    private String use() {
+        AccountBook.Account account = book.preloaded(zipf.next(random));
+        long amount = amount();
+        AccountClient.Result result = client.post("/transaction/use",
+                body("userId", account.userId, "accountNumber", account.accountNumber, "amount", amount));
+        if (result.ok()) {
+            book.debit(account, amount);
+            if (cancelable.size() >= MAX_CANCELABLE) {
+                cancelable.removeLast();
+            }
+            cancelable.push(new Used(result.text("transactionId"), account, amount));
+        } else if (result.unknown()) {
+            book.markUncertain(account);
+        }
+        return result.outcome;
+    }
+
+    private String cancel() {
+        Used used = cancelable.pop();
+        AccountClient.Result result = client.post("/transaction/cancel",
+                body("transactionId", used.transactionId,
+                        "accountNumber", used.account.accountNumber, "amount", used.amount));
+        if (result.ok()) {
+            book.credit(used.account, used.amount);
+        } else if (result.unknown()) {
+            book.markUncertain(used.account);
+        }
+        return result.outcome;
+    }
+
+    /** 출금 계좌는 Zipf, 입금 계좌는 출금 계좌를 뺀 나머지에서 고르게 고른다. */
+    private String transfer() {
+        int count = book.preloadedCount();
+        int fromIndex = zipf.next(random);
+        AccountBook.Account from = book.preloaded(fromIndex);
+        AccountBook.Account to = book.preloaded((fromIndex + 1 + random.nextInt(count - 1)) % count);
+        long amount = amount();
+        Map<String, Object> body = body("userId", from.userId, "fromAccountNumber", from.accountNumber,
+                "toAccountNumber", to.accountNumber, "amount", amount);
+        AccountClient.Result result = client.post("/transaction/transfer", body);
+        if (result.ok()) {
+            book.transfer(from, to, amount);
+        } else if (result.unknown()) {
+            book.markUncertain(from, to);
+        }
+        return result.outcome;
+    }
+
+    private String query() {
+        if (!cancelable.isEmpty() && random.nextBoolean()) {
+            return client.get("/transaction/" + cancelable.peek().transactionId).outcome;
+        }
+        return client.get("/account/" + book.preloaded(zipf.next(random)).accountNumber).outcome;
+    }
+
+    private long amount() {
+        return settings.minAmount + random.nextLong(settings.maxAmount - settings.minAmount + 1);
+    }
+
+    private static Map<String, Object> body(Object... keyValues) {
+        Map<String, Object> body = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            body.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return body;
+    }
+
+    private static class Used {
+        final String transactionId;
+        final AccountBook.Account account;
+        final long amount;
+
+        Used(String transactionId, AccountBook.Account account, long amount) {
+            this.transactionId = transactionId;
+            this.account = account;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.account.loadtest;
+
+enum Operation {
+    CREATE, USE, CANCEL, TRANSFER, QUERY
+}
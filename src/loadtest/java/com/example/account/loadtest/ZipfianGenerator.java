@@ -0,0 +1,46 @@
+package com.example.account.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * 0 ~ n-1 사이의 Zipf 분포 난수 (Gray 외, "Quickly Generating Billion-Record Synthetic Databases")
+ * theta 가 클수록 앞쪽 몇 개에 요청이 몰린다. 0.99 면 상위 1% 가 요청의 절반 가까이를 받는다.
+ */
+class ZipfianGenerator {
+    private final int n;
+    private final double theta;
+    private final double alpha;
+    private final double zetaN;
+    private final double eta;
+
+    ZipfianGenerator(int n, double theta) {
+        if (n < 1 || theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("n >= 1, 0 < theta < 1 : n=" + n + ", theta=" + theta);
+        }
+        this.n = n;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetaN = zeta(n, theta);
+        this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+    }
+
+    int next(SplittableRandom random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < 1.0 + Math.pow(0.5, theta)) {
+            return Math.min(1, n - 1);
+        }
+        return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -7,5 +7,14 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
+    /**
+     * lock 을 잡을 id 를 구하는 SpEL. 메소드 인자는 #인자이름(또는 #p0)으로 쓴다.
+     * 결과는 문자열 하나 또는 문자열 컬렉션이고, 여러 개면 정렬된 순서로 한 번에 잡는다.
+     */
+    String key() default "#request.accountNumbers";
+
+    LockMode mode() default LockMode.WRITE;
+
+    /** lock 을 기다리는 최대 시간 (ms). 요청의 남은 시간이 더 짧으면 그만큼만 기다린다. */
     long tryLockTime() default 5000L;
 }
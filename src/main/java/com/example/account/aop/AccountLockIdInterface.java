@@ -1,5 +1,16 @@
 package com.example.account.aop;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.List;
+
 public interface AccountLockIdInterface {
-    String getAccountNumber();
+    Long getAccountNumber();
+
+    /** lock 을 잡아야 하는 모든 계좌 (송금처럼 여러 계좌를 바꾸는 요청은 재정의) */
+    @JsonIgnore
+    default List<Long> getAccountNumbers() {
+        return Collections.singletonList(getAccountNumber());
+    }
 }
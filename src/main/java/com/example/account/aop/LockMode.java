@@ -0,0 +1,8 @@
+package com.example.account.aop;
+
+/**
+ * READ lock 끼리는 함께 잡을 수 있고, WRITE lock 은 혼자 잡는다.
+ */
+public enum LockMode {
+    READ, WRITE
+}
@@ -0,0 +1,18 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * 컨트롤러 메소드의 처리 시간 예산. 없으면 account.request.timeout-ms 를 쓴다.
+ * 클라이언트가 X-Request-Timeout-Ms 헤더로 더 짧은 시간을 보내면 그 시간을 쓴다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequestTimeout {
+    /** deadline 을 걸지 않는다. (헤더가 있으면 헤더의 시간만 쓴다) */
+    long NONE = -1L;
+
+    /** 처리 시간 예산 (ms) */
+    long value();
+}
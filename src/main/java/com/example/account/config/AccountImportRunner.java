@@ -0,0 +1,53 @@
+package com.example.account.config;
+
+import com.example.account.dto.ProvisioningReport;
+import com.example.account.service.AccountImportFile;
+import com.example.account.service.AccountProvisioningService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 계좌 대량 생성 파일(CSV/NDJSON)을 읽어 저장하고 종료한다.
+ * 제휴사 계좌를 미리 만들 때 서버를 띄우지 않고 실행한다.
+ *
+ * java -jar account.jar --account.import.file=partner.csv --spring.main.web-application-type=none
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.import.file")
+public class AccountImportRunner implements ApplicationRunner {
+    private final AccountProvisioningService accountProvisioningService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext applicationContext;
+
+    @Value("${account.import.file}")
+    private String file;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path path = Paths.get(file);
+        log.info("Importing accounts from {}", path);
+        ProvisioningReport report = accountProvisioningService.provision(
+                AccountImportFile.read(path, objectMapper));
+
+        log.info("Account import finished. requested={}, created={}, failed={}, accounts={}~{}, " +
+                        "elapsed={} ms, throughput={} accounts/s",
+                report.getRequested(), report.getCreated(), report.getFailed(),
+                report.getFirstAccountNumber(), report.getLastAccountNumber(),
+                report.getElapsedMillis(), Math.round(report.getAccountsPerSecond()));
+        int exitCode = report.getFailed() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.account.config;
+
+import com.example.account.service.ConnectionPoolGuard;
+import com.example.account.service.LatencyRecorder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Modifier;
+
+/**
+ * connection 을 받을 때까지 기다린 시간을 LatencyRecorder 에 db.connection.acquire 로 기록하고,
+ * 계좌 lock 을 잡은 채 기다린 경우는 db.connection.acquire.locked 로 따로 남긴다.
+ * pool 의 active/idle/pending 수는 Spring Boot 가 hikaricp.connections.* 로 내보낸다.
+ * DataSource 는 class proxy 로 감싸 HikariDataSource 타입과 close() 를 그대로 두므로
+ * context 가 닫힐 때 pool 도 닫힌다.
+ */
+@Configuration
+public class DataSourceMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionWaitRecorder(ObjectProvider<LatencyRecorder> latencyRecorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource) {
+                    return recordConnectionWait((DataSource) bean, latencyRecorder);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static DataSource recordConnectionWait(DataSource dataSource, ObjectProvider<LatencyRecorder> latencyRecorder) {
+        ProxyFactory proxyFactory = new ProxyFactory(dataSource);
+        proxyFactory.setProxyTargetClass(!Modifier.isFinal(dataSource.getClass().getModifiers()));
+        proxyFactory.addAdvice(new ConnectionWaitRecorder(latencyRecorder));
+        return (DataSource) proxyFactory.getProxy(dataSource.getClass().getClassLoader());
+    }
+
+    static class ConnectionWaitRecorder implements MethodInterceptor {
+        private final ObjectProvider<LatencyRecorder> latencyRecorder;
+
+        ConnectionWaitRecorder(ObjectProvider<LatencyRecorder> latencyRecorder) {
+            this.latencyRecorder = latencyRecorder;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (!"getConnection".equals(invocation.getMethod().getName())) {
+                return invocation.proceed();
+            }
+            long startedAt = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                record(System.nanoTime() - startedAt);
+            }
+        }
+
+        private void record(long nanos) {
+            LatencyRecorder recorder = latencyRecorder.getIfAvailable();
+            if (recorder == null) {
+                return;
+            }
+            recorder.record("db.connection.acquire", nanos);
+            if (ConnectionPoolGuard.isLockHeld()) {
+                recorder.record("db.connection.acquire.locked", nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 기동이 끝나면 바로 종료한다.
+ * AppCDS archive 를 만들 때 기동 중에 읽는 class 목록만 남기기 위한 학습 실행용.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.startup.exit-on-ready", havingValue = "true")
+public class ExitOnReadyListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        log.info("Application is ready. exit for class data sharing training run.");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
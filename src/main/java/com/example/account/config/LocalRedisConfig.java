@@ -3,12 +3,17 @@ package com.example.account.config;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import redis.embedded.RedisServer;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+/**
+ * 로컬/테스트용 embedded redis (prod 에서는 외부 redis 를 사용)
+ */
 @Configuration
+@Profile("!prod")
 @Slf4j
 public class LocalRedisConfig {
     @Value("${spring.redis.port}")
@@ -15,9 +15,14 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    /** lease 없이 잡은 lock 을 watchdog 이 한 번에 늘리는 시간 (1/3 마다 갱신) */
+    @Value("${account.lock.watchdog-timeout-ms:30000}")
+    private long lockWatchdogTimeout;
+
     @Bean
     public RedissonClient redissonClient(){
         Config config = new Config();
+        config.setLockWatchdogTimeout(lockWatchdogTimeout);
         config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
         return Redisson.create(config);
     }
@@ -0,0 +1,89 @@
+package com.example.account.config;
+
+import com.example.account.aop.RequestTimeout;
+import com.example.account.exception.AccountException;
+import com.example.account.service.RequestDeadline;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청마다 처리 시간 예산으로 {@link RequestDeadline} 을 건다.
+ * 예산은 메소드의 {@link RequestTimeout} (없으면 account.request.timeout-ms)이고,
+ * 클라이언트가 X-Request-Timeout-Ms 헤더로 더 짧은 시간을 보내면 그 시간을 쓴다.
+ * 클라이언트가 이미 기다리지 않는 요청(헤더가 0 이하)은 처리하지 않는다.
+ */
+@Slf4j
+@Configuration
+public class RequestDeadlineConfig implements WebMvcConfigurer {
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final long timeoutMillis;
+
+    public RequestDeadlineConfig(@Value("${account.request.timeout-ms:2000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                                     Object handler) {
+                long budgetMillis = budgetMillis(request, handler);
+                if (budgetMillis == RequestTimeout.NONE) {
+                    return true;
+                }
+                if (budgetMillis <= 0) {
+                    throw new AccountException(ErrorCode.REQUEST_TIMEOUT);
+                }
+                RequestDeadline.start(budgetMillis);
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                // 응답 본문을 다른 스레드에서 쓰는 요청(거래 내역서)은 여기서 요청 스레드를 떠난다.
+                RequestDeadline.clear();
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                        Object handler, Exception ex) {
+                RequestDeadline.clear();
+            }
+        });
+    }
+
+    /** 메소드의 예산과 클라이언트가 보낸 예산 중 짧은 쪽. 둘 다 없으면 RequestTimeout.NONE */
+    long budgetMillis(HttpServletRequest request, Object handler) {
+        long budgetMillis = timeoutMillis;
+        if (handler instanceof HandlerMethod) {
+            RequestTimeout requestTimeout = ((HandlerMethod) handler).getMethodAnnotation(RequestTimeout.class);
+            if (requestTimeout != null) {
+                budgetMillis = requestTimeout.value();
+            }
+        }
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header == null) {
+            return budgetMillis;
+        }
+        long clientMillis;
+        try {
+            clientMillis = Math.max(0L, Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring {} : {}", TIMEOUT_HEADER, header);
+            return budgetMillis;
+        }
+        return budgetMillis == RequestTimeout.NONE ? clientMillis : Math.min(budgetMillis, clientMillis);
+    }
+}
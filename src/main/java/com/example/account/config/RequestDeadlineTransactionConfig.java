@@ -0,0 +1,75 @@
+package com.example.account.config;
+
+import com.example.account.service.RequestDeadline;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 요청 안에서 시작한 트랜잭션은 요청의 남은 시간({@link RequestDeadline})을 timeout 으로 쓴다.
+ * 트랜잭션 timeout 은 초 단위라서 남은 시간을 올림해 Hibernate 에 넘기고
+ * (JDBC statement 의 query timeout, deadline 이 지난 뒤의 안전망),
+ * 트랜잭션에 묶인 EntityManager/Connection 에는 ms 단위로 걸어
+ * Spring Data JPA 쿼리의 javax.persistence.query.timeout 힌트와 JdbcTemplate 의 query timeout 이 남은 시간을 따른다.
+ * 이미 시간이 지난 요청은 트랜잭션을 시작하지 않는다.
+ */
+@Configuration
+public class RequestDeadlineTransactionConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new RequestDeadlineTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    static class RequestDeadlineTransactionManager extends JpaTransactionManager {
+
+        @Override
+        protected int determineTimeout(TransactionDefinition definition) {
+            int timeout = super.determineTimeout(definition);
+            long remainingMillis = RequestDeadline.remainingMillis();
+            if (remainingMillis == Long.MAX_VALUE) {
+                return timeout;
+            }
+            // Hibernate 는 남은 시간을 초 단위로 내림해 0 이 되면 실패하므로 1초를 더해 넘긴다.
+            // 정확한 deadline 은 doBegin 에서 ms 단위로 건다.
+            int remainingSeconds = (int) Math.min(Integer.MAX_VALUE - 1L,
+                    Math.max(0L, (remainingMillis + 999L) / 1000L)) + 1;
+            return timeout == TransactionDefinition.TIMEOUT_DEFAULT
+                    ? remainingSeconds : Math.min(timeout, remainingSeconds);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            RequestDeadline.checkNotExpired();
+            super.doBegin(transaction, definition);
+            long remainingMillis = RequestDeadline.remainingMillis();
+            if (remainingMillis == Long.MAX_VALUE) {
+                return;
+            }
+            shorten((EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory()),
+                    remainingMillis);
+            if (getDataSource() != null) {
+                shorten((ConnectionHolder) TransactionSynchronizationManager.getResource(getDataSource()),
+                        remainingMillis);
+            }
+        }
+
+        /** 초 단위로 올림한 deadline 을 남은 시간(ms)으로 당긴다. */
+        private static void shorten(ResourceHolderSupport holder, long remainingMillis) {
+            if (holder != null && (!holder.hasTimeout() || holder.getTimeToLiveInMillis() > remainingMillis)) {
+                holder.setTimeoutInMillis(Math.max(1L, remainingMillis));
+            }
+        }
+    }
+}
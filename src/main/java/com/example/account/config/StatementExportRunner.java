@@ -0,0 +1,68 @@
+package com.example.account.config;
+
+import com.example.account.service.StatementExportService;
+import com.example.account.type.StatementFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+/**
+ * 한 계좌의 거래 내역서를 gzip 파일로 내보내고 종료한다.
+ *
+ * java -jar account.jar --account.export.account-number=1000000000 \
+ *   --account.export.from=2023-01-01T00:00 --account.export.to=2023-02-01T00:00 \
+ *   --account.export.format=NDJSON --spring.main.web-application-type=none
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.export.account-number")
+public class StatementExportRunner implements ApplicationRunner {
+    private final StatementExportService statementExportService;
+    private final ApplicationContext applicationContext;
+
+    @Value("${account.export.account-number}")
+    private Long accountNumber;
+    @Value("${account.export.from}")
+    private String from;
+    @Value("${account.export.to}")
+    private String to;
+    @Value("${account.export.format:CSV}")
+    private StatementFormat format;
+    @Value("${account.export.dir}")
+    private String dir;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        LocalDateTime fromAt = LocalDateTime.parse(from);
+        Path path = Paths.get(dir, "statement-" + accountNumber + "-" + fromAt.toLocalDate()
+                + format.getExtension() + ".gz");
+        Files.createDirectories(path.getParent());
+
+        int exitCode;
+        try (OutputStream out = Files.newOutputStream(path)) {
+            statementExportService.validateAccount(accountNumber);
+            long rows = statementExportService.export(
+                    accountNumber, fromAt, LocalDateTime.parse(to), format, out);
+            log.info("Statement written to {} ({} transactions, {} bytes)", path, rows, Files.size(path));
+            exitCode = 0;
+        } catch (Exception e) {
+            log.error("Statement export failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+}
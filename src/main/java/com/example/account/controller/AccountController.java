@@ -1,24 +1,46 @@
 package com.example.account.controller;
 
+import com.example.account.aop.RequestTimeout;
 import com.example.account.domain.Account;
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.AccountDto;
 import com.example.account.dto.AccountInfo;
+import com.example.account.dto.BulkCreateAccount;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.ProvisioningReport;
+import com.example.account.service.AccountProvisioningService;
 import com.example.account.service.AccountService;
+import com.example.account.service.BalanceSnapshotService;
+import com.example.account.service.LookupCoalescingService;
+import com.example.account.service.StatementExportService;
+import com.example.account.type.StatementFormat;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
     private final AccountService accountService;
+    private final AccountProvisioningService accountProvisioningService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final LookupCoalescingService lookupCoalescingService;
+    private final StatementExportService statementExportService;
 
     @PostMapping("/account")
-    public synchronized CreateAccount.Response createAccount(
+    public CreateAccount.Response createAccount(
             @RequestBody @Valid CreateAccount.Request request
     ) {
         return CreateAccount.Response.from(
@@ -29,6 +51,15 @@ public class AccountController {
         );
     }
 
+    /** 계좌 대량 생성 (제휴사 계좌 등록) */
+    @PostMapping("/account/bulk")
+    @RequestTimeout(RequestTimeout.NONE)
+    public ProvisioningReport createAccounts(
+            @RequestBody @Valid BulkCreateAccount.Request request
+    ) {
+        return accountProvisioningService.provision(request.getAccounts());
+    }
+
     @DeleteMapping("/account")
     public DeleteAccount.Response deleteAccount(
             @RequestBody @Valid DeleteAccount.Request request
@@ -54,4 +85,48 @@ public class AccountController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/account/{accountNumber}")
+    public AccountInfo getAccount(
+            @PathVariable Long accountNumber
+    ) {
+        AccountDto accountDto = lookupCoalescingService.getAccount(accountNumber);
+        return AccountInfo.builder()
+                .accountNumber(accountDto.getAccountNumber())
+                .balance(accountDto.getBalance())
+                .build();
+    }
+
+    @GetMapping("/account/{accountNumber}/balance")
+    public AccountBalance getBalanceAt(
+            @PathVariable Long accountNumber,
+            @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        return AccountBalance.builder()
+                .accountNumber(accountNumber)
+                .balance(balanceSnapshotService.getBalanceAt(accountNumber, at))
+                .at(at)
+                .build();
+    }
+
+    /**
+     * [from, to) 기간의 거래 내역서를 gzip 으로 압축해 내려준다.
+     * 본문은 .gz 파일 그대로이므로 application/gzip 으로 보낸다.
+     * (Content-Encoding: gzip 을 붙이면 client 가 풀어서 저장해 파일 이름의 .gz 와 맞지 않는다)
+     */
+    @GetMapping("/account/{accountNumber}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @PathVariable Long accountNumber,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "format", defaultValue = "CSV") StatementFormat format
+    ) {
+        statementExportService.validateAccount(accountNumber);
+        String fileName = "statement-" + accountNumber + "-" + from.toLocalDate()
+                + format.getExtension() + ".gz";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(GZIP)
+                .body(out -> statementExportService.export(accountNumber, from, to, format, out));
+    }
+
 }
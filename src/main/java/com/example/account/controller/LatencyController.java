@@ -0,0 +1,45 @@
+package com.example.account.controller;
+
+import com.example.account.dto.LatencyReport;
+import com.example.account.service.LatencyRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 작업별 응답 시간 백분위 (내부용)
+ * 조회할 때마다 새 interval 이 시작되므로 주기적으로 한 곳에서만 가져간다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class LatencyController {
+    private static final String ROW_FORMAT = "%-28s %-10s %10s %10s %10s %10s %10s %10s%n";
+
+    private final LatencyRecorder latencyRecorder;
+
+    @GetMapping(value = "/internal/latency", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<LatencyReport> getLatency() {
+        return latencyRecorder.report();
+    }
+
+    @GetMapping(value = "/internal/latency", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String getLatencyText() {
+        StringBuilder text = new StringBuilder(String.format(ROW_FORMAT,
+                "operation (us)", "window", "count", "p50", "p90", "p99", "p99.9", "max"));
+        for (LatencyReport report : latencyRecorder.report()) {
+            appendRow(text, report.getOperation(), "interval", report.getInterval());
+            appendRow(text, report.getOperation(), "cumulative", report.getCumulative());
+        }
+        return text.toString();
+    }
+
+    private static void appendRow(StringBuilder text, String operation, String window,
+                                  LatencyReport.Percentiles percentiles) {
+        text.append(String.format(ROW_FORMAT, operation, window, percentiles.getCount(),
+                percentiles.getP50(), percentiles.getP90(), percentiles.getP99(),
+                percentiles.getP999(), percentiles.getMax()));
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.LockMode;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.service.GroupCommitService;
+import com.example.account.service.LookupCoalescingService;
+import com.example.account.service.RequestDeadline;
 import com.example.account.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +22,7 @@ import javax.validation.Valid;
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 계좌 간 송금
  */
 @Slf4j
 @RestController
@@ -24,6 +30,8 @@ import javax.validation.Valid;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final GroupCommitService groupCommitService;
+    private final LookupCoalescingService lookupCoalescingService;
 
     @PostMapping("/transaction/use")
     @AccountLock
@@ -32,22 +40,24 @@ public class TransactionController {
     ) {
         try {
             return UseBalance.Response.from(
-                    transactionService.useBalance(
+                    groupCommitService.useBalance(
                             request.getUserId(),
                             request.getAccountNumber(),
                             request.getAmount()
                     ));
         } catch (AccountException e) {
-            log.error("Failed to use Balance. ");
-            transactionService.saveFailedUseTransaction(
+            log.debug("Failed to use Balance. ");
+            // 시간이 지나 실패한 요청도 실패 거래는 남긴다.
+            RequestDeadline.runWithoutDeadline(() -> transactionService.saveFailedUseTransaction(
                     request.getAccountNumber(),
                     request.getAmount()
-            );
+            ));
             throw e;
         }
     }
 
     @PostMapping("/transaction/cancel")
+    @AccountLock(key = "{#request.accountNumber, #request.transactionId}")
     public CancelBalance.Response cancelBalance(
             @Valid @RequestBody CancelBalance.Request request
     ) {
@@ -60,22 +70,48 @@ public class TransactionController {
                             request.getAmount()
                     ));
         } catch (AccountException e) {
-            log.error("Failed to cancel Balance. ");
-            transactionService.saveFailedCancelTransaction(
+            log.debug("Failed to cancel Balance. ");
+            // 시간이 지나 실패한 요청도 실패 거래는 남긴다.
+            RequestDeadline.runWithoutDeadline(() -> transactionService.saveFailedCancelTransaction(
                     request.getAccountNumber(),
                     request.getAmount()
-            );
+            ));
             throw e;
         }
     }
 
-    @GetMapping("/transaction/{transactionId}")
+    @PostMapping("/transaction/transfer")
     @AccountLock
+    public TransferBalance.Response transferBalance(
+            @Valid @RequestBody TransferBalance.Request request
+    ) {
+        try {
+            return TransferBalance.Response.from(
+                    transactionService.transferBalance(
+                            request.getUserId(),
+                            request.getFromAccountNumber(),
+                            request.getToAccountNumber(),
+                            request.getAmount()
+                    ),
+                    request.getToAccountNumber());
+        } catch (AccountException e) {
+            log.debug("Failed to transfer Balance. ");
+            // 시간이 지나 실패한 요청도 실패 거래는 남긴다.
+            RequestDeadline.runWithoutDeadline(() -> transactionService.saveFailedTransferTransaction(
+                    request.getFromAccountNumber(),
+                    request.getAmount()
+            ));
+            throw e;
+        }
+    }
+
+    @GetMapping("/transaction/{transactionId}")
+    @AccountLock(key = "#transactionId", mode = LockMode.READ)
     public QueryTransactionResponse queryTransaction(
             @PathVariable String transactionId
     ) {
         return QueryTransactionResponse.from(
-                transactionService.queryTransaction(transactionId)
+                lookupCoalescingService.queryTransaction(transactionId)
         );
     }
 
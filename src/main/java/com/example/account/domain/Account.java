@@ -11,23 +11,44 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static com.example.account.type.ErrorCode.*;
 import static javax.persistence.EnumType.*;
 import static javax.persistence.FetchType.*;
+import static org.hibernate.jpa.QueryHints.*;
 
+/**
+ * 계좌 소유자 조회(AccountRepository.findOwnerIdByAccountNumber)는 query cache(accountOwnership region)에 둔다.
+ * 소유 관계는 바뀌지 않으므로 query space 를 account 테이블 대신 account_ownership 으로 두어
+ * 잔액 변경으로 캐시가 지워지지 않게 한다.
+ * (native scalar 결과를 캐시하려면 컬럼 타입을 알려 줘야 하므로 result set mapping 을 쓴다)
+ */
+@NamedNativeQuery(
+        name = "Account.findOwnerIdByAccountNumber",
+        query = "select account_user_id as owner_id from account where account_number = :accountNumber",
+        resultSetMapping = "Account.ownerId",
+        hints = {
+                @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HINT_CACHE_REGION, value = "accountOwnership"),
+                @QueryHint(name = HINT_NATIVE_SPACES, value = "account_ownership")
+        })
+@SqlResultSetMapping(name = "Account.ownerId",
+        columns = @ColumnResult(name = "owner_id", type = Long.class))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @SuperBuilder
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = "accountNumber"))
 public class Account extends BaseEntity{
 
     @ManyToOne(fetch = LAZY)
     private AccountUser accountUser;
 
-    private String accountNumber;
+    /** 10자리 계좌번호 (JSON 에서는 문자열, {@link com.example.account.dto.AccountNumberFormat}) */
+    private Long accountNumber;
 
     @Enumerated(STRING)
     private AccountStatus accountStatus;
@@ -37,6 +58,29 @@ public class Account extends BaseEntity{
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    /** 마지막으로 이 계좌를 바꾼 lock 의 fencing token */
+    private Long fencingToken;
+
+    /** hot 계좌로 잔액을 나눈 slot 수 (나누지 않았으면 null, 나눈 뒤에는 balance 는 0) */
+    private Integer balanceSlotCount;
+
+    @OneToMany(mappedBy = "account", fetch = LAZY)
+    private List<AccountBalanceSlot> balanceSlots;
+
+    public boolean isBalanceSplit(){
+        return balanceSlotCount != null && balanceSlotCount > 0;
+    }
+
+    /** 계좌 잔액 (slot 으로 나눈 계좌는 slot 잔액의 합) */
+    public Long getTotalBalance(){
+        if(!isBalanceSplit()){
+            return balance;
+        }
+        return balance + balanceSlots.stream()
+                .mapToLong(AccountBalanceSlot::getBalance)
+                .sum();
+    }
+
     public void useBalance(Long amount){
         if(amount > balance){
             throw new AccountException(BALANCE_NOT_EMPTY);
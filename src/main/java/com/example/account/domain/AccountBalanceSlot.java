@@ -0,0 +1,29 @@
+package com.example.account.domain;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+
+import static javax.persistence.FetchType.*;
+
+/**
+ * hot 계좌의 잔액 조각
+ * slot 마다 따로 lock 을 잡고 차감하므로 한 계좌의 요청이 slot 수만큼 동시에 처리된다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slotIndex"}))
+public class AccountBalanceSlot extends BaseEntity {
+
+    @ManyToOne(fetch = LAZY)
+    private Account account;
+
+    private Integer slotIndex;
+
+    private Long balance;
+}
@@ -0,0 +1,23 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * database lock provider 가 SELECT ... FOR UPDATE 로 잡는 lock row
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class AccountLockRow {
+    @Id
+    private String lockKey;
+
+    /** lock 을 잡을 때마다 1씩 늘리는 fencing token */
+    private Long fencingToken;
+}
@@ -0,0 +1,22 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 계좌번호 발급이 마지막으로 예약한 번호. 모든 서버가 조건부 UPDATE 로 함께 늘린다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class AccountNumberSequence {
+    @Id
+    private String name;
+
+    private Long lastReserved;
+}
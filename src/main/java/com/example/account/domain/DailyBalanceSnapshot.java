@@ -0,0 +1,30 @@
+package com.example.account.domain;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+import static javax.persistence.FetchType.*;
+
+/**
+ * 계좌별 일 마감 잔액
+ * 특정 시점 잔액 조회는 가장 가까운 스냅샷에서 시작해 그날의 거래만 다시 적용한다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "snapshotDate"}))
+public class DailyBalanceSnapshot extends BaseEntity {
+
+    @ManyToOne(fetch = LAZY)
+    private Account account;
+
+    private LocalDate snapshotDate;
+
+    private Long balance;
+}
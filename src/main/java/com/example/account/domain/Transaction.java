@@ -17,6 +17,11 @@ import static javax.persistence.FetchType.*;
 @NoArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(columnList = "transactionId"),
+        @Index(columnList = "transactedAt"),
+        @Index(columnList = "account_id, transactedAt")
+})
 public class Transaction extends BaseEntity {
 
     @Enumerated(STRING)
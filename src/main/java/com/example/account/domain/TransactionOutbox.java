@@ -0,0 +1,48 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+import static javax.persistence.EnumType.*;
+
+/**
+ * 거래 변경 이벤트 outbox
+ * 거래 저장과 같은 트랜잭션에서 기록되고, relay 가 sink 로 발행한 뒤 삭제한다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Entity
+public class TransactionOutbox extends BaseEntity {
+
+    private String transactionId;
+    private String accountNumber;
+
+    @Enumerated(STRING)
+    private TransactionType transactionType;
+    @Enumerated(STRING)
+    private TransactionResultType transactionResultType;
+
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    public static TransactionOutbox from(Transaction transaction) {
+        return TransactionOutbox.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountNumber(String.valueOf(transaction.getAccount().getAccountNumber()))
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountBalance {
+    @AccountNumberFormat
+    private Long accountNumber;
+    private Long balance;
+    private LocalDateTime at;
+}
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @Builder
 public class AccountDto {
     private Long userId;
-    private String accountNumber;
+    private Long accountNumber;
     private Long balance;
 
     private LocalDateTime registeredAt;
@@ -24,7 +24,7 @@ public class AccountDto {
                 .accountNumber(account.getAccountNumber())
                 .registeredAt(account.getRegisteredAt())
                 .unRegisteredAt(account.getUnRegisteredAt())
-                .balance(account.getBalance())
+                .balance(account.getTotalBalance())
                 .build();
     }
 }
@@ -8,7 +8,8 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 public class AccountInfo {
-    private String accountNumber;
+    @AccountNumberFormat
+    private Long accountNumber;
     private Long balance;
 
 }
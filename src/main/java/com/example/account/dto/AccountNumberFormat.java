@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 계좌번호는 서버 안에서 long 으로 다루고 JSON 에서는 10자리 문자열("1000000012")로 주고받는다.
+ * 발급하는 번호가 1000000000 ~ 9999999999 이므로 자릿수를 맞추지 않아도 항상 10자리다.
+ * 요청은 숫자로 보내도 받는다.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonFormat(shape = JsonFormat.Shape.STRING)
+public @interface AccountNumberFormat {
+    long MIN = 1_000_000_000L;
+    long MAX = 9_999_999_999L;
+}
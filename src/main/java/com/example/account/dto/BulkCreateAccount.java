@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BulkCreateAccount {
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request {
+        /** 더 많으면 파일 import(account.import.file)를 쓴다. */
+        @Valid
+        @NotEmpty
+        @Size(max = 10000)
+        private List<CreateAccount.Request> accounts;
+    }
+}
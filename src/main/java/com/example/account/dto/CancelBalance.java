@@ -16,9 +16,11 @@ public class CancelBalance {
         @NotBlank
         private String transactionId;
 
-        @NotBlank
-        @Size(min = 10, max = 10)
-        private String accountNumber;
+        @NotNull
+        @Min(AccountNumberFormat.MIN)
+        @Max(AccountNumberFormat.MAX)
+        @AccountNumberFormat
+        private Long accountNumber;
 
 
         @NotNull
@@ -35,7 +37,8 @@ public class CancelBalance {
     @AllArgsConstructor
     @Builder
     public static class Response {
-        private String accountNumber;
+        @AccountNumberFormat
+        private Long accountNumber;
         private TransactionResultType transactionResult;
         private String transactionId;
         private Long amount;
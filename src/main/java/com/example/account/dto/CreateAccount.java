@@ -31,7 +31,8 @@ public class CreateAccount {
     @Builder
     public static class Response {
         private Long userId;
-        private String accountNumber;
+        @AccountNumberFormat
+        private Long accountNumber;
         private LocalDateTime registeredAt;
 
         public static Response from(AccountDto accountDto){
@@ -2,10 +2,9 @@ package com.example.account.dto;
 
 import lombok.*;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
-import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 public class DeleteAccount {
@@ -19,9 +18,11 @@ public class DeleteAccount {
         @Min(1)
         private Long userId;
 
-        @NotBlank
-        @Size(min = 10, max = 10)
-        private String accountNumber;
+        @NotNull
+        @Min(AccountNumberFormat.MIN)
+        @Max(AccountNumberFormat.MAX)
+        @AccountNumberFormat
+        private Long accountNumber;
 
     }
 
@@ -33,7 +34,8 @@ public class DeleteAccount {
     @Builder
     public static class Response {
         private Long userId;
-        private String accountNumber;
+        @AccountNumberFormat
+        private Long accountNumber;
         private LocalDateTime unRegisteredAt;
 
         public static Response from(AccountDto accountDto){
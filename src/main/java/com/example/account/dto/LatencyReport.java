@@ -0,0 +1,33 @@
+package com.example.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 작업 하나의 응답 시간 분포 (µs)
+ * interval 은 지난 조회 이후, cumulative 는 서버가 뜬 뒤 전체 구간이다.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyReport {
+    private String operation;
+    private Percentiles interval;
+    private Percentiles cumulative;
+
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Percentiles {
+        private long count;
+        private double p50;
+        private double p90;
+        private double p99;
+        private double p999;
+        private double max;
+    }
+}
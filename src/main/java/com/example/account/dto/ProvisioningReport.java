@@ -0,0 +1,26 @@
+package com.example.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 계좌 대량 생성 결과
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisioningReport {
+    private int requested;
+    private int created;
+    /** 저장에 실패한 묶음의 계좌 수 (예약한 번호는 비워 둔다) */
+    private int failed;
+    @AccountNumberFormat
+    private Long firstAccountNumber;
+    @AccountNumberFormat
+    private Long lastAccountNumber;
+    private long elapsedMillis;
+    private double accountsPerSecond;
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class QueryTransactionResponse {
-    private String accountNumber;
+    @AccountNumberFormat
+    private Long accountNumber;
     private TransactionType transactionType;
     private TransactionResultType transactionResult;
     private String transactionId;
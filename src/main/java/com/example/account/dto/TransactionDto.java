@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class TransactionDto {
-    private String accountNumber;
+    private Long accountNumber;
     private TransactionType transactionType;
     private TransactionResultType transactionResultType;
     private Long amount;
@@ -0,0 +1,84 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.AccountUserIdInterface;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class TransferBalance {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request implements AccountLockIdInterface, AccountUserIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotNull
+        @Min(AccountNumberFormat.MIN)
+        @Max(AccountNumberFormat.MAX)
+        @AccountNumberFormat
+        private Long fromAccountNumber;
+
+        @NotNull
+        @Min(AccountNumberFormat.MIN)
+        @Max(AccountNumberFormat.MAX)
+        @AccountNumberFormat
+        private Long toAccountNumber;
+
+        @NotNull
+        @Min(100)
+        @Max(1_000_000_000)
+        private Long amount;
+
+        /** 요청 수 제한은 출금 계좌 기준 */
+        @Override
+        @JsonIgnore
+        public Long getAccountNumber() {
+            return fromAccountNumber;
+        }
+
+        @Override
+        @JsonIgnore
+        public List<Long> getAccountNumbers() {
+            return Arrays.asList(fromAccountNumber, toAccountNumber);
+        }
+    }
+
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        @AccountNumberFormat
+        private Long fromAccountNumber;
+        @AccountNumberFormat
+        private Long toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+
+
+        public static Response from(TransactionDto transactionDto, Long toAccountNumber){
+            return Response.builder()
+                    .fromAccountNumber(transactionDto.getAccountNumber())
+                    .toAccountNumber(toAccountNumber)
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.example.account.dto;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.AccountUserIdInterface;
 import com.example.account.type.TransactionResultType;
 import lombok.*;
 
@@ -12,14 +13,16 @@ public class UseBalance {
     @Setter
     @AllArgsConstructor
     @NoArgsConstructor
-    public static class Request implements AccountLockIdInterface {
+    public static class Request implements AccountLockIdInterface, AccountUserIdInterface {
         @NotNull
         @Min(1)
         private Long userId;
 
-        @NotBlank
-        @Size(min = 10, max = 10)
-        private String accountNumber;
+        @NotNull
+        @Min(AccountNumberFormat.MIN)
+        @Max(AccountNumberFormat.MAX)
+        @AccountNumberFormat
+        private Long accountNumber;
 
 
         @NotNull
@@ -36,7 +39,8 @@ public class UseBalance {
     @AllArgsConstructor
     @Builder
     public static class Response {
-        private String accountNumber;
+        @AccountNumberFormat
+        private Long accountNumber;
         private TransactionResultType transactionResult;
         private String transactionId;
         private Long amount;
@@ -0,0 +1,57 @@
+package com.example.account.exception;
+
+import com.example.account.type.ErrorCode;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ErrorCode 별로 1초에 maxPerSecond 건까지만 로그를 남기도록 거른다.
+ * 거절이 몰릴 때 로그가 요청 처리 비용을 넘지 않게 하고,
+ * 건너뛴 건수는 다음에 남기는 로그에 함께 알려 준다.
+ */
+public class ErrorLogSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxPerSecond;
+    private final Map<ErrorCode, Window> windows = new EnumMap<>(ErrorCode.class);
+
+    public ErrorLogSampler(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            windows.put(errorCode, new Window());
+        }
+    }
+
+    /**
+     * 로그를 남겨야 하면 그동안 건너뛴 건수(0 이상), 건너뛰어야 하면 -1
+     */
+    public long sample(ErrorCode errorCode, long nowNanos) {
+        return windows.get(errorCode).sample(nowNanos);
+    }
+
+    private class Window {
+        private long startedAt;
+        private int logged;
+        private long suppressed;
+        private boolean started;
+
+        synchronized long sample(long nowNanos) {
+            if (!started || nowNanos - startedAt >= WINDOW_NANOS) {
+                started = true;
+                startedAt = nowNanos;
+                logged = 0;
+            }
+            if (logged >= maxPerSecond) {
+                suppressed++;
+                return -1;
+            }
+            logged++;
+            long skipped = suppressed;
+            suppressed = 0;
+            return skipped;
+        }
+    }
+}
@@ -3,10 +3,21 @@ package com.example.account.exception;
 import com.example.account.dto.ErrorResponse;
 import com.example.account.type.ErrorCode;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.sql.SQLTimeoutException;
 
 import static com.example.account.type.ErrorCode.*;
 
@@ -14,9 +25,30 @@ import static com.example.account.type.ErrorCode.*;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final ErrorLogSampler errorLogSampler;
+
+    public GlobalExceptionHandler(
+            @Value("${account.error-log.max-per-second:10}") int maxPerSecond) {
+        this.errorLogSampler = new ErrorLogSampler(maxPerSecond);
+    }
+
     @ExceptionHandler(AccountException.class)
     public ErrorResponse handleAccountException(AccountException e){
-        log.error("{} is occurred.", e.getErrorCode());
+        // 예상된 업무 실패는 ErrorCode 별로 표본만 남긴다.
+        long suppressed = errorLogSampler.sample(e.getErrorCode(), System.nanoTime());
+        if (suppressed > 0) {
+            log.warn("{} is occurred. ({} suppressed)", e.getErrorCode(), suppressed);
+        } else if (suppressed == 0) {
+            log.warn("{} is occurred.", e.getErrorCode());
+        }
+
+        return new ErrorResponse(e.getErrorCode(), e.getErrorMessage());
+    }
+
+    @ExceptionHandler(RateLimitException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleRateLimitException(RateLimitException e, HttpServletResponse response){
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
 
         return new ErrorResponse(e.getErrorCode(), e.getErrorMessage());
     }
@@ -28,6 +60,22 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(INVALID_REQUEST, INVALID_REQUEST.getDescription());
     }
 
+    /** 숫자가 아닌 계좌번호처럼 값을 읽을 수 없는 요청 */
+    @ExceptionHandler({HttpMessageNotReadableException.class, MethodArgumentTypeMismatchException.class})
+    public ErrorResponse handleUnreadableRequest(Exception e){
+        log.warn("Unreadable request : {}", e.getMessage());
+
+        return new ErrorResponse(INVALID_REQUEST, INVALID_REQUEST.getDescription());
+    }
+
+    /** 요청의 남은 시간으로 건 트랜잭션/쿼리 timeout 이 지남 */
+    @ExceptionHandler({TransactionTimedOutException.class, QueryTimeoutException.class})
+    public ErrorResponse handleTimeout(Exception e){
+        log.warn("Request deadline exceeded : {}", e.getMessage());
+
+        return new ErrorResponse(REQUEST_TIMEOUT, REQUEST_TIMEOUT.getDescription());
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ErrorResponse handleAccountDataIntegrityViolationException(DataIntegrityViolationException e){
         log.error("DataIntegrityViolationException is occurred.", e);
@@ -38,6 +86,10 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleException(Exception e){
+        if (isTimeout(e)) {
+            // JPA/JDBC 예외로 감싸여 올라온 timeout
+            return handleTimeout(e);
+        }
         log.error("Exception is occurred.", e);
 
         return new ErrorResponse(
@@ -46,4 +98,17 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /** 원인 중에 트랜잭션/쿼리 timeout 이 있는지. deadline 이 지난 뒤의 다른 예외는 timeout 으로 바꾸지 않는다. */
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionTimedOutException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof javax.persistence.QueryTimeoutException
+                    || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
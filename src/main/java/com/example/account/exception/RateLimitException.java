@@ -0,0 +1,14 @@
+package com.example.account.exception;
+
+import com.example.account.type.ErrorCode;
+import lombok.Getter;
+
+@Getter
+public class RateLimitException extends AccountException {
+    private final long retryAfterSeconds;
+
+    public RateLimitException(long retryAfterSeconds) {
+        super(ErrorCode.TOO_MANY_REQUESTS);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
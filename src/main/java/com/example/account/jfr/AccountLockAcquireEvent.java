@@ -0,0 +1,30 @@
+package com.example.account.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * lock 취득 한 번. 기다린 시간, lock 저장소 오류 재시도까지 포함한다.
+ * provider 로 redis / DB / 서버 안 lock 중 어디서 기다렸는지 구분한다.
+ */
+@Name("com.example.account.AccountLockAcquire")
+@Label("Account Lock Acquire")
+@Category({"Account", "Lock"})
+@StackTrace(false)
+public class AccountLockAcquireEvent extends Event {
+    @Label("Account Number")
+    @Description("lock 을 잡은 계좌번호(또는 slot id), 여러 개면 쉼표로 구분")
+    public String accountNumber;
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Outcome")
+    @Description("acquired, timeout, error, interrupted")
+    public String outcome;
+}
@@ -0,0 +1,63 @@
+package com.example.account.jfr;
+
+import com.example.account.exception.AccountException;
+import jdk.jfr.*;
+
+/**
+ * 잔액을 바꾸는 서비스 호출 한 번 (fencing, 계좌 조회, 검증, 변경, 거래 저장까지)
+ * DB commit 은 서비스 메서드가 끝난 뒤라 포함하지 않는다.
+ */
+@Name("com.example.account.BalanceMutation")
+@Label("Balance Mutation")
+@Category({"Account", "Balance"})
+@StackTrace(false)
+public class BalanceMutationEvent extends Event {
+    public static final String SUCCESS = "S";
+
+    @Label("Account Number")
+    public long accountNumber;
+
+    @Label("Counterparty Account Number")
+    @Description("송금 받는 계좌")
+    public long counterpartyAccountNumber;
+
+    @Label("Mutation")
+    @Description("USE, CANCEL, TRANSFER, OPEN, CLOSE")
+    public String mutation;
+
+    @Label("Amount")
+    public long amount;
+
+    @Label("Outcome")
+    @Description("성공이면 S, 실패면 ErrorCode 또는 예외 class 이름")
+    public String outcome;
+
+    /** 기록 중이 아니면 JIT 가 객체 생성까지 없애므로 호출 비용이 거의 없다. */
+    public static BalanceMutationEvent begin(String mutation, Long accountNumber, Long amount) {
+        BalanceMutationEvent event = new BalanceMutationEvent();
+        event.begin();
+        event.mutation = mutation;
+        event.accountNumber = accountNumber == null ? 0L : accountNumber;
+        event.amount = amount == null ? 0L : amount;
+        event.outcome = SUCCESS;
+        return event;
+    }
+
+    public void failed(RuntimeException e) {
+        outcome = outcomeOf(e);
+    }
+
+    /** threshold 와 비교하려면 먼저 end() 로 시간을 재야 한다. */
+    public void commitIfEnabled() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+
+    static String outcomeOf(RuntimeException e) {
+        return e instanceof AccountException
+                ? String.valueOf(((AccountException) e).getErrorCode())
+                : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.account.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * 거래와 outbox 이벤트 저장 (persist).
+ * id 를 sequence 에서 받는 시간이 들어가고, INSERT 자체는 commit 할 때 flush 된다.
+ */
+@Name("com.example.account.TransactionInsert")
+@Label("Transaction Insert")
+@Category({"Account", "Ledger"})
+@StackTrace(false)
+public class TransactionInsertEvent extends Event {
+    @Label("Account Number")
+    public long accountNumber;
+
+    @Label("Transaction Type")
+    public String transactionType;
+
+    @Label("Transaction Result Type")
+    public String transactionResultType;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,57 @@
+package com.example.account.respository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+
+    /** 잔액이 충분할 때만 차감 (차감된 행 수 반환) */
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance - :amount " +
+            "where s.account = :account and s.slotIndex = :slotIndex and s.balance >= :amount")
+    int debit(@Param("account") Account account,
+              @Param("slotIndex") int slotIndex,
+              @Param("amount") long amount);
+
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance + :amount " +
+            "where s.account = :account and s.slotIndex = :slotIndex")
+    int credit(@Param("account") Account account,
+               @Param("slotIndex") int slotIndex,
+               @Param("amount") long amount);
+
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = :balance " +
+            "where s.account = :account and s.slotIndex = :slotIndex")
+    int updateBalance(@Param("account") Account account,
+                      @Param("slotIndex") int slotIndex,
+                      @Param("balance") long balance);
+
+    /** lock 없이 읽는 slot 잔액 */
+    @Query("select s.balance from AccountBalanceSlot s where s.account = :account and s.slotIndex = :slotIndex")
+    long findBalance(@Param("account") Account account,
+                     @Param("slotIndex") int slotIndex);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.account = :account")
+    long sumBalance(@Param("account") Account account);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s " +
+            "where s.account = :account and s.slotIndex >= :fromSlot")
+    long sumBalanceFrom(@Param("account") Account account,
+                        @Param("fromSlot") int fromSlot);
+
+    /** fromSlot 부터 slot 순서대로 행 lock 을 잡으므로 여러 요청이 동시에 모아도 교착되지 않는다. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<AccountBalanceSlot> findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(
+            Account account, int fromSlot);
+}
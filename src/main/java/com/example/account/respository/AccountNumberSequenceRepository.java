@@ -0,0 +1,30 @@
+package com.example.account.respository;
+
+import com.example.account.domain.AccountNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AccountNumberSequenceRepository extends JpaRepository<AccountNumberSequence, String> {
+
+    /** 영속성 컨텍스트를 거치지 않고 읽는 마지막 예약 번호 */
+    @Query("select s.lastReserved from AccountNumberSequence s where s.name = :name")
+    Optional<Long> findLastReserved(@Param("name") String name);
+
+    /** 처음 예약하는 서버가 row 를 만든다. (다른 서버가 먼저 만들었으면 키 중복으로 실패) */
+    @Modifying
+    @Query(value = "insert into account_number_sequence (name, last_reserved) values (:name, :lastReserved)",
+            nativeQuery = true)
+    int create(@Param("name") String name, @Param("lastReserved") long lastReserved);
+
+    /** 다른 서버가 먼저 늘리지 않았을 때만 늘린다. (늘린 행 수 반환) */
+    @Modifying
+    @Query("update AccountNumberSequence s set s.lastReserved = :next " +
+            "where s.name = :name and s.lastReserved = :last")
+    int advance(@Param("name") String name, @Param("last") long last, @Param("next") long next);
+}
@@ -4,18 +4,50 @@ package com.example.account.respository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    Optional<Account> findFirstByOrderByIdDesc();
+    Optional<Account> findFirstByOrderByAccountNumberDesc();
 
     Integer countByAccountUser(AccountUser accountUser);
 
-    Optional<Account> findByAccountNumber(String accountNumber);
+    /** 사용자별 계좌 수 (계좌가 없는 사용자는 빠진다) */
+    @Query("select a.accountUser.id as userId, count(a) as accountCount from Account a " +
+            "where a.accountUser.id in :userIds group by a.accountUser.id")
+    List<UserAccountCount> countByAccountUserIds(@Param("userIds") Collection<Long> userIds);
+
+    Optional<Account> findByAccountNumber(Long accountNumber);
 
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    boolean existsByAccountNumber(Long accountNumber);
+
+    /**
+     * 계좌 소유자 id. (Account 의 named query, query cache)
+     * 없는 계좌번호의 빈 결과도 만료 전까지 남으므로 비어 있으면 계좌를 직접 조회해야 한다.
+     */
+    Optional<Long> findOwnerIdByAccountNumber(@Param("accountNumber") Long accountNumber);
+
+    /**
+     * 더 새 fencing token 이 기록되지 않은 경우에만 token 을 기록한다. (0 이면 lease 가 끝난 lock)
+     */
+    @Modifying
+    @Query("update Account a set a.fencingToken = :token " +
+            "where a.accountNumber = :accountNumber " +
+            "and (a.fencingToken is null or a.fencingToken < :token)")
+    int fence(@Param("accountNumber") Long accountNumber, @Param("token") long token);
+
+    interface UserAccountCount {
+        Long getUserId();
+
+        long getAccountCount();
+    }
 }
@@ -2,8 +2,19 @@ package com.example.account.respository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
+
+    /** 사용자 행에 lock 을 잡는다. 같은 사용자의 계좌 생성은 트랜잭션이 끝날 때까지 기다린다. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from AccountUser u where u.id = :id")
+    Optional<AccountUser> findByIdForUpdate(@Param("id") Long id);
 }
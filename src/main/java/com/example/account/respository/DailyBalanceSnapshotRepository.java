@@ -0,0 +1,19 @@
+package com.example.account.respository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.DailyBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailyBalanceSnapshotRepository extends JpaRepository<DailyBalanceSnapshot, Long> {
+    Optional<DailyBalanceSnapshot> findFirstByOrderBySnapshotDateDesc();
+
+    Optional<DailyBalanceSnapshot> findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(
+            Account account, LocalDate snapshotDate);
+
+    boolean existsByAccountAndSnapshotDate(Account account, LocalDate snapshotDate);
+}
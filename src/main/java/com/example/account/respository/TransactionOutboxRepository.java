@@ -0,0 +1,13 @@
+package com.example.account.respository;
+
+import com.example.account.domain.TransactionOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TransactionOutboxRepository extends JpaRepository<TransactionOutbox, Long> {
+    List<TransactionOutbox> findByOrderByIdAsc(Pageable pageable);
+}
@@ -4,10 +4,13 @@ package com.example.account.respository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +18,17 @@ import java.util.Optional;
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     @EntityGraph(attributePaths = {"account"})
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    Optional<Transaction> findFirstByOrderByTransactedAtAsc();
+
+    Optional<Transaction> findFirstByAccountOrderByIdAsc(Account account);
+
+    List<Transaction> findByAccountAndTransactionResultTypeAndTransactedAtBetweenOrderByIdAsc(
+            Account account, TransactionResultType transactionResultType,
+            LocalDateTime from, LocalDateTime to);
+
+    /** 아카이브할 거래를 id 순서로 afterId 다음부터 pageable 크기만큼 (원거래/취소 거래까지 함께 읽는다) */
+    @EntityGraph(attributePaths = {"account", "parent", "child", "child.account"})
+    List<Transaction> findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+            LocalDateTime from, LocalDateTime to, Long afterId, Pageable pageable);
 }
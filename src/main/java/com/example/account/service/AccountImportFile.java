@@ -0,0 +1,79 @@
+package com.example.account.service;
+
+import com.example.account.dto.CreateAccount;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 계좌 대량 생성 파일
+ * 확장자가 .csv 면 "userId,initialBalance" 행(첫 줄 header 는 건너뛴다),
+ * .ndjson/.jsonl 이면 한 줄에 {"userId":1,"initialBalance":1000} 하나씩 읽는다.
+ */
+public final class AccountImportFile {
+
+    private AccountImportFile() {
+    }
+
+    public static List<CreateAccount.Request> read(Path path, ObjectMapper objectMapper) throws IOException {
+        String fileName = path.getFileName().toString().toLowerCase();
+        boolean csv = fileName.endsWith(".csv");
+        if (!csv && !fileName.endsWith(".ndjson") && !fileName.endsWith(".jsonl")) {
+            throw new IllegalArgumentException("Unsupported import file : " + path);
+        }
+
+        List<CreateAccount.Request> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || (csv && lineNumber == 1 && line.startsWith("userId"))) {
+                    continue;
+                }
+                CreateAccount.Request request = csv ? parseCsv(line) : parseJson(line, objectMapper);
+                if (request == null || !isValid(request)) {
+                    throw new IllegalArgumentException(
+                            "Invalid account at line " + lineNumber + " : " + line);
+                }
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private static CreateAccount.Request parseCsv(String line) {
+        String[] columns = line.split(",");
+        if (columns.length != 2) {
+            return null;
+        }
+        try {
+            return new CreateAccount.Request(
+                    Long.parseLong(columns[0].trim()), Long.parseLong(columns[1].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static CreateAccount.Request parseJson(String line, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readValue(line, CreateAccount.Request.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /** CreateAccount.Request 의 검증 조건과 같다. */
+    private static boolean isValid(CreateAccount.Request request) {
+        return request.getUserId() != null && request.getUserId() >= 1
+                && request.getInitialBalance() != null && request.getInitialBalance() >= 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLock;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @AccountLock 의 key(SpEL)로 lock id 목록을 구한다.
+ */
+@Component
+public class AccountLockKeyResolver {
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public List<String> resolve(AccountLock accountLock, Method method, Object[] args) {
+        Expression expression = expressions.computeIfAbsent(
+                accountLock.key(), parser::parseExpression);
+        Object value = expression.getValue(
+                new MethodBasedEvaluationContext(null, method, args, parameterNameDiscoverer));
+
+        List<String> lockIds = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object id : (Collection<?>) value) {
+                if (id != null) {
+                    lockIds.add(id.toString());
+                }
+            }
+        } else if (value != null) {
+            lockIds.add(value.toString());
+        }
+
+        if (lockIds.isEmpty()) {
+            throw new IllegalStateException(
+                    "Lock key '" + accountLock.key() + "' resolved no lock id for " + method);
+        }
+        return lockIds;
+    }
+}
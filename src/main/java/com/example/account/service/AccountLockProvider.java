@@ -0,0 +1,30 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 lock 구현 (account.lock.provider 로 선택)
+ * - redisson : redis 분산 read/write lock (기본값, 여러 서버)
+ * - in-process : JVM 안의 ReentrantReadWriteLock (서버 한 대)
+ * - database : lock 테이블 row 의 SELECT ... FOR UPDATE (redis 없이 여러 서버)
+ */
+public interface AccountLockProvider {
+
+    /**
+     * lockKeys 를 모두 잡거나 하나도 잡지 않는다. lockKeys 는 정렬된 순서로 넘어온다.
+     * waitTime 동안 기다리며, leaseTime 이 지나면 풀리는 lock 은 redisson 뿐이다.
+     */
+    boolean tryLock(List<String> lockKeys, LockMode mode, long waitTime, long leaseTime, TimeUnit unit)
+            throws InterruptedException;
+
+    void unlock(List<String> lockKeys, LockMode mode);
+
+    /**
+     * write lock 을 잡은 key 의 다음 fencing token. key 마다 계속 커진다.
+     * 저장소가 비워지거나 재시작해도 작아지지 않도록 현재 시각(ms) * 1000 보다 작은 값은 주지 않는다.
+     */
+    long nextFencingToken(String lockKey);
+}
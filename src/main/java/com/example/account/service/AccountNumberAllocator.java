@@ -0,0 +1,78 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountNumberFormat;
+import com.example.account.respository.AccountNumberSequenceRepository;
+import com.example.account.respository.AccountRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+/**
+ * 계좌번호 발급
+ * 연속된 번호를 한 번에 예약한다. 대량 생성은 예약한 번호를 나중에 저장하므로,
+ * 아직 저장되지 않은 번호를 다시 주지 않도록 마지막으로 예약한 번호를 DB 의 account_number_sequence 에 두고
+ * 모든 서버가 조건부 UPDATE 로 함께 늘린다. (account.lock.provider 와 관계없이 redis 가 없어도 된다)
+ * 예약은 호출한 트랜잭션과 따로 짧은 트랜잭션으로 해서 row lock 을 계좌 생성이 끝날 때까지 잡지 않는다.
+ * 대량 생성은 여러 connection 에서 나눠 저장하므로 id 가 아니라 계좌번호의 최댓값을 보고,
+ * 예약 row 가 없어지거나 뒤처져도 저장된 번호 다음부터 예약한다. (계좌번호는 unique 라 겹치면 저장이 실패한다)
+ */
+@Component
+public class AccountNumberAllocator {
+    static final long FIRST_ACCOUNT_NUMBER = AccountNumberFormat.MIN;
+    static final String SEQUENCE_NAME = "account";
+
+    private final AccountRepository accountRepository;
+    private final AccountNumberSequenceRepository accountNumberSequenceRepository;
+    private final TransactionTemplate newTransaction;
+
+    public AccountNumberAllocator(AccountRepository accountRepository,
+                                  AccountNumberSequenceRepository accountNumberSequenceRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.accountNumberSequenceRepository = accountNumberSequenceRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** count 개의 연속된 계좌번호를 예약하고 첫 번호를 돌려준다. */
+    public long reserve(int count) {
+        long lastSaved = accountRepository.findFirstByOrderByAccountNumberDesc()
+                .map(Account::getAccountNumber)
+                .orElse(FIRST_ACCOUNT_NUMBER - 1);
+        while (true) {
+            try {
+                Long start = newTransaction.execute(status -> tryReserve(count, lastSaved));
+                if (start != null) {
+                    return start;
+                }
+            } catch (DataIntegrityViolationException e) {
+                // 다른 서버가 먼저 row 를 만들었으면 만든 row 를 늘린다.
+            }
+        }
+    }
+
+    /** 예약하면 첫 번호, 다른 서버가 먼저 늘렸으면 null */
+    private Long tryReserve(int count, long lastSaved) {
+        Optional<Long> lastReserved = accountNumberSequenceRepository.findLastReserved(SEQUENCE_NAME);
+        long last = lastReserved.orElse(lastSaved);
+        long start = Math.max(last, lastSaved) + 1;
+        checkRange(start, count);
+        if (lastReserved.isEmpty()) {
+            accountNumberSequenceRepository.create(SEQUENCE_NAME, start + count - 1);
+            return start;
+        }
+        return accountNumberSequenceRepository.advance(SEQUENCE_NAME, last, start + count - 1) == 1
+                ? start : null;
+    }
+
+    private static void checkRange(long start, int count) {
+        if (start + count - 1 > AccountNumberFormat.MAX) {
+            throw new IllegalStateException("No account number left to reserve " + count + " from " + start);
+        }
+    }
+}
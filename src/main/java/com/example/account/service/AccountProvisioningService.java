@@ -0,0 +1,216 @@
+package com.example.account.service;
+
+import com.example.account.dto.CreateAccount;
+import com.example.account.dto.ProvisioningReport;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.respository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.ErrorCode.MAX_ACCOUNT_PER_USER_10;
+import static com.example.account.type.ErrorCode.USER_NOT_FOUND;
+
+/**
+ * 계좌 대량 생성
+ * 사용자별 계좌 수 제한을 전체 요청에 대해 한 번에 확인하고, 계좌번호를 한 번에 예약한 뒤
+ * batch-size 개씩 나눠 parallelism 개의 스레드에서 JDBC batch insert 로 저장한다.
+ * 나눈 묶음은 각자의 트랜잭션으로 저장하므로 실패한 묶음만 빠지고(failed) 그 번호는 비어 있게 된다.
+ * 처음 확인은 요청 전체를 빨리 거절하기 위한 것이고, 묶음마다 저장하는 트랜잭션에서 사용자 행에 lock 을 잡고
+ * 계좌 수를 다시 센다. 그래서 같은 사용자의 계좌 생성(createAccount, 다른 묶음)과 겹쳐도 10개를 넘지 않는다.
+ */
+@Slf4j
+@Service
+public class AccountProvisioningService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+    /** IN 절 하나에 넣는 사용자 수 */
+    private static final int USER_CHUNK_SIZE = 1000;
+    /** 사용자 행은 id 순서로 lock 해 묶음끼리 교착되지 않게 한다. */
+    private static final String LOCK_USERS_SQL_FORMAT =
+            "select id from account_user where id in (%s) order by id for update";
+    private static final String COUNT_ACCOUNTS_SQL_FORMAT =
+            "select account_user_id, count(*) from account where account_user_id in (%s) group by account_user_id";
+    private static final String INSERT_SQL_FORMAT =
+            "insert into account (id, account_user_id, account_number, account_status, balance, " +
+                    "registered_at, created_at, updated_at) values (%s, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String insertSql;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public AccountProvisioningService(
+            AccountRepository accountRepository,
+            AccountUserRepository accountUserRepository,
+            AccountNumberAllocator accountNumberAllocator,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${account.provisioning.id-sql:next value for hibernate_sequence}") String idSql,
+            @Value("${account.provisioning.batch-size:1000}") int batchSize,
+            @Value("${account.provisioning.parallelism:4}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.insertSql = String.format(INSERT_SQL_FORMAT, idSql);
+        this.batchSize = batchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "account-provisioning-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ProvisioningReport provision(List<CreateAccount.Request> requests) {
+        long startedAt = System.nanoTime();
+        validateAccountCounts(requests);
+
+        long firstAccountNumber = accountNumberAllocator.reserve(requests.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<Future<Integer>> partitions = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<CreateAccount.Request> partition =
+                    requests.subList(from, Math.min(requests.size(), from + batchSize));
+            long partitionFirstNumber = firstAccountNumber + from;
+            partitions.add(executor.submit(() -> insert(partition, partitionFirstNumber, now)));
+        }
+
+        int created = 0;
+        for (Future<Integer> partition : partitions) {
+            try {
+                created += partition.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Account provisioning interrupted", e);
+            } catch (ExecutionException e) {
+                log.error("Failed to provision accounts", e.getCause());
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        ProvisioningReport report = ProvisioningReport.builder()
+                .requested(requests.size())
+                .created(created)
+                .failed(requests.size() - created)
+                .firstAccountNumber(firstAccountNumber)
+                .lastAccountNumber(firstAccountNumber + requests.size() - 1)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .accountsPerSecond(created * 1_000_000_000.0 / Math.max(1, elapsedNanos))
+                .build();
+        log.info("Provisioned {}/{} accounts in {} ms ({} accounts/s)",
+                report.getCreated(), report.getRequested(), report.getElapsedMillis(),
+                Math.round(report.getAccountsPerSecond()));
+        return report;
+    }
+
+    /** 이미 가진 계좌와 요청한 계좌를 합쳐 사용자별 최대 계좌 수를 넘지 않는지 확인한다. */
+    private void validateAccountCounts(List<CreateAccount.Request> requests) {
+        Map<Long, Long> requestedByUser = requests.stream()
+                .collect(Collectors.groupingBy(CreateAccount.Request::getUserId, Collectors.counting()));
+        List<Long> userIds = new ArrayList<>(requestedByUser.keySet());
+
+        for (int from = 0; from < userIds.size(); from += USER_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + USER_CHUNK_SIZE));
+            if (accountUserRepository.findAllById(chunk).size() != chunk.size()) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+
+            Map<Long, Long> existing = accountRepository.countByAccountUserIds(chunk).stream()
+                    .collect(Collectors.toMap(AccountRepository.UserAccountCount::getUserId,
+                            AccountRepository.UserAccountCount::getAccountCount));
+            for (Long userId : chunk) {
+                if (existing.getOrDefault(userId, 0L) + requestedByUser.get(userId) > MAX_ACCOUNT_PER_USER) {
+                    throw new AccountException(MAX_ACCOUNT_PER_USER_10);
+                }
+            }
+        }
+    }
+
+    /** 저장할 트랜잭션 안에서 사용자 행에 lock 을 잡고 이미 저장된 계좌와 합쳐 다시 확인한다. */
+    private void lockAndValidateAccountCounts(List<CreateAccount.Request> partition) {
+        Map<Long, Long> requestedByUser = partition.stream()
+                .collect(Collectors.groupingBy(CreateAccount.Request::getUserId, TreeMap::new, Collectors.counting()));
+        List<Long> userIds = new ArrayList<>(requestedByUser.keySet());
+
+        for (int from = 0; from < userIds.size(); from += USER_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + USER_CHUNK_SIZE));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Object[] args = chunk.toArray();
+            if (jdbcTemplate.queryForList(String.format(LOCK_USERS_SQL_FORMAT, placeholders), Long.class, args)
+                    .size() != chunk.size()) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+
+            Map<Long, Long> existing = new HashMap<>();
+            jdbcTemplate.query(String.format(COUNT_ACCOUNTS_SQL_FORMAT, placeholders),
+                    (RowCallbackHandler) rs -> existing.put(rs.getLong(1), rs.getLong(2)), args);
+            for (Long userId : chunk) {
+                if (existing.getOrDefault(userId, 0L) + requestedByUser.get(userId) > MAX_ACCOUNT_PER_USER) {
+                    throw new AccountException(MAX_ACCOUNT_PER_USER_10);
+                }
+            }
+        }
+    }
+
+    private int insert(List<CreateAccount.Request> partition, long firstAccountNumber, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        Integer inserted = transactionTemplate.execute(status -> {
+            lockAndValidateAccountCounts(partition);
+            jdbcTemplate.batchUpdate(insertSql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    CreateAccount.Request request = partition.get(i);
+                    ps.setLong(1, request.getUserId());
+                    ps.setLong(2, firstAccountNumber + i);
+                    ps.setString(3, AccountStatus.IN_USE.name());
+                    ps.setLong(4, request.getInitialBalance());
+                    ps.setTimestamp(5, timestamp);
+                    ps.setTimestamp(6, timestamp);
+                    ps.setTimestamp(7, timestamp);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return partition.size();
+                }
+            });
+            return partition.size();
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -4,6 +4,7 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
 import com.example.account.exception.AccountException;
+import com.example.account.jfr.BalanceMutationEvent;
 import com.example.account.respository.AccountRepository;
 import com.example.account.respository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
@@ -25,51 +26,72 @@ import static com.example.account.type.ErrorCode.*;
 public class AccountService {
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final InMemoryLedgerService inMemoryLedgerService;
 
 
     /**
      * 계좌 생성
+     * 사용자 행에 lock 을 잡고 계좌 수를 세므로 같은 사용자의 계좌 생성(대량 생성 포함)은
+     * 서버가 여러 대여도 하나씩 처리되고, 센 계좌 수와 저장이 같은 트랜잭션에 묶인다.
      */
-    public synchronized AccountDto createAccount(Long userId, Long initialBalance) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-
-        validateCreateAccount(accountUser);
-
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
-
-        return AccountDto.fromEntity(accountRepository.save(
-                        Account.builder()
-                                .accountUser(accountUser)
-                                .accountStatus(IN_USE)
-                                .accountNumber(newAccountNumber)
-                                .balance(initialBalance)
-                                .registeredAt(LocalDateTime.now())
-                                .build()
-                )
-        );
-
+    public AccountDto createAccount(Long userId, Long initialBalance) {
+        BalanceMutationEvent event = BalanceMutationEvent.begin("OPEN", null, initialBalance);
+        try {
+            AccountUser accountUser = accountUserRepository.findByIdForUpdate(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+
+            validateCreateAccount(accountUser);
+
+            long newAccountNumber = accountNumberAllocator.reserve(1);
+            event.accountNumber = newAccountNumber;
+
+            return AccountDto.fromEntity(accountRepository.save(
+                            Account.builder()
+                                    .accountUser(accountUser)
+                                    .accountStatus(IN_USE)
+                                    .accountNumber(newAccountNumber)
+                                    .balance(initialBalance)
+                                    .registeredAt(LocalDateTime.now())
+                                    .build()
+                    )
+            );
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commitIfEnabled();
+        }
     }
 
     /**
      * 계좌 해지
      */
-    public AccountDto deleteAccount(Long userId, String accountNumber) {
-        AccountUser accountUser = getAccountUser(userId);
-
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
-
-        validateDeleteAccount(accountUser, account);
-
-        account.setAccountStatus(AccountStatus.UNREGISTERED);
-        account.setUnRegisteredAt(LocalDateTime.now());
-
-        accountRepository.save(account);
-
-        return AccountDto.fromEntity(account);
+    public AccountDto deleteAccount(Long userId, Long accountNumber) {
+        BalanceMutationEvent event = BalanceMutationEvent.begin("CLOSE", accountNumber, 0L);
+        try {
+            AccountUser accountUser = getAccountUser(userId);
+
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+            validateDeleteAccount(accountUser, account);
+            if (inMemoryLedgerService.isEnabled()) {
+                inMemoryLedgerService.unregister(account);
+            }
+
+            account.setAccountStatus(AccountStatus.UNREGISTERED);
+            account.setUnRegisteredAt(LocalDateTime.now());
+
+            accountRepository.save(account);
+
+            return toDto(account);
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commitIfEnabled();
+        }
     }
 
     /**
@@ -80,11 +102,30 @@ public class AccountService {
         AccountUser accountUser = getAccountUser(userId);
 
         return accountRepository.findByAccountUser(accountUser)
-                .stream().map(AccountDto::fromEntity)
+                .stream().map(this::toDto)
                 .collect(Collectors.toList());
     }
 
 
+    /**
+     * 계좌번호로 계좌 조회
+     */
+    @Transactional(readOnly = true)
+    public AccountDto getAccount(Long accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(this::toDto)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    }
+
+    /** in-memory 장부면 DB 잔액 대신 장부의 잔액을 보여준다. */
+    private AccountDto toDto(Account account) {
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        if (inMemoryLedgerService.isEnabled()) {
+            accountDto.setBalance(inMemoryLedgerService.balance(account));
+        }
+        return accountDto;
+    }
+
     public AccountUser getAccountUser(Long userId) {
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
@@ -100,7 +141,8 @@ public class AccountService {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
 
-        if (account.getBalance() > 0) {
+        // in-memory 장부는 해지하면서 장부의 잔액을 확인한다.
+        if (!inMemoryLedgerService.isEnabled() && account.getTotalBalance() > 0) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
     }
@@ -0,0 +1,128 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountBalanceSlotRepository;
+import com.example.account.respository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+
+/**
+ * hot 계좌 잔액 slot
+ * slot 차감/충전은 조건부 update 한 번으로 처리하므로 slot lock 만 잡아도 잔액이 음수가 되지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BalanceSlotService {
+    private final AccountBalanceSlotRepository accountBalanceSlotRepository;
+    private final AccountRepository accountRepository;
+
+    /**
+     * 계좌 잔액을 slot 으로 나누기 (계좌 lock 을 잡은 상태에서 호출)
+     * @return 나눈 slot 수, 나눌 수 없는 계좌면 0
+     */
+    public int split(Long accountNumber, int slotCount) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        if (account.isBalanceSplit()) {
+            return account.getBalanceSlotCount();
+        }
+        if (account.getAccountStatus() != IN_USE) {
+            return 0;
+        }
+
+        long balance = account.getBalance();
+        for (int slotIndex = 0; slotIndex < slotCount; slotIndex++) {
+            accountBalanceSlotRepository.save(AccountBalanceSlot.builder()
+                    .account(account)
+                    .slotIndex(slotIndex)
+                    .balance(balance / slotCount + (slotIndex < balance % slotCount ? 1 : 0))
+                    .build());
+        }
+        account.setBalance(0L);
+        account.setBalanceSlotCount(slotCount);
+
+        log.info("Split balance of hot account {} into {} slots", accountNumber, slotCount);
+        return slotCount;
+    }
+
+    /**
+     * slot 에서 차감
+     * 고른 slot 은 slot lock 으로 지키므로 lock 없이 잔액을 읽어 보고 충분할 때만 update 한다.
+     * 부족하면 모든 slot 행을 slot 순서대로 lock 한 뒤 앞 slot 부터 차감하고,
+     * 어느 slot 도 혼자 감당할 수 없으면 slot 을 모아 다시 나눈다.
+     * 읽은 뒤 다른 요청이 고른 slot 에서 먼저 차감해 update 가 실패하면 그 행 lock 이 남으므로,
+     * 고른 slot 부터 뒤 slot 만 lock 해 모든 요청이 행을 slot 순서대로 잡도록 한다.
+     * 앞 slot 까지 모아야 감당할 수 있으면 계좌 사용 중으로 돌려준다. DB 가 되돌린 실패는 그대로 올린다.
+     */
+    public void debit(Account account, int preferredSlot, long amount) {
+        int preferred = slotIndex(preferredSlot, account.getBalanceSlotCount());
+        if (accountBalanceSlotRepository.findBalance(account, preferred) < amount) {
+            debitInOrder(account, 0, amount);
+        } else if (accountBalanceSlotRepository.debit(account, preferred, amount) == 0) {
+            debitInOrder(account, preferred, amount);
+        }
+    }
+
+    public void credit(Account account, int preferredSlot, long amount) {
+        accountBalanceSlotRepository.credit(
+                account, slotIndex(preferredSlot, account.getBalanceSlotCount()), amount);
+    }
+
+    public long totalBalance(Account account) {
+        return account.getBalance() + accountBalanceSlotRepository.sumBalance(account);
+    }
+
+    /** fromSlot 부터 slot 행을 순서대로 lock 하고 앞 slot 부터 차감, 모두 부족하면 모아서 다시 나눈다. */
+    private void debitInOrder(Account account, int fromSlot, long amount) {
+        List<AccountBalanceSlot> slots = accountBalanceSlotRepository
+                .findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, fromSlot);
+        for (AccountBalanceSlot slot : slots) {
+            if (accountBalanceSlotRepository.debit(account, slot.getSlotIndex(), amount) == 1) {
+                return;
+            }
+        }
+        rebalanceAndDebit(account, fromSlot, slots.size(), amount);
+    }
+
+    /** fromSlot 부터 slotCount 개의 slot 행에 lock 을 잡은 상태에서 합계를 다시 읽는다. */
+    private void rebalanceAndDebit(Account account, int fromSlot, int slotCount, long amount) {
+        long total = accountBalanceSlotRepository.sumBalanceFrom(account, fromSlot);
+        if (total < amount) {
+            if (fromSlot > 0) {
+                log.warn("Slots of hot account {} changed while debiting, slot {} and later cannot cover {}",
+                        account.getAccountNumber(), fromSlot, amount);
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+
+        // 차감 후 남은 잔액을 slot 에 고르게 다시 나눈다.
+        long remaining = total - amount;
+        for (int i = 0; i < slotCount; i++) {
+            accountBalanceSlotRepository.updateBalance(account, fromSlot + i,
+                    remaining / slotCount + (i < remaining % slotCount ? 1 : 0));
+        }
+    }
+
+    private int slotIndex(int preferredSlot, int slotCount) {
+        if (preferredSlot >= 0) {
+            return preferredSlot % slotCount;
+        }
+        return ThreadLocalRandom.current().nextInt(slotCount);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.DailyBalanceSnapshot;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.respository.DailyBalanceSnapshotRepository;
+import com.example.account.respository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.account.type.ErrorCode.BALANCE_HISTORY_UNAVAILABLE;
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * 일 마감 잔액 스냅샷
+ * 1. 매일 전날의 계좌별 잔액을 스냅샷으로 저장 (이전 스냅샷 + 그날의 거래)
+ * 2. 특정 시점 잔액 조회 (가장 가까운 스냅샷 + 그날의 거래)
+ *    다시 적용할 구간이 아카이브로 옮긴 기간에 걸치면 남은 거래로는 잔액을 알 수 없어 BALANCE_HISTORY_UNAVAILABLE 로 실패한다.
+ * 스냅샷 생성은 여러 서버에서 함께 돌면 같은 (계좌, 날짜) 를 겹쳐 저장하다 실패하므로 {@link ScheduledJobLock} 을 잡은 서버만 한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotService {
+    static final String SNAPSHOT_JOB = "balance-snapshot";
+
+    private final DailyBalanceSnapshotRepository dailyBalanceSnapshotRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionArchiveService transactionArchiveService;
+    private final ScheduledJobLock scheduledJobLock;
+
+    @Value("${account.snapshot.page-size:500}")
+    private int pageSize;
+
+    /** 마지막 스냅샷 다음 날부터 어제까지 스냅샷 생성 */
+    @Scheduled(cron = "${account.snapshot.cron:0 10 0 * * *}")
+    public void takeSnapshots() {
+        scheduledJobLock.runExclusively(SNAPSHOT_JOB, this::takeMissingSnapshots);
+    }
+
+    private void takeMissingSnapshots() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate day = dailyBalanceSnapshotRepository.findFirstByOrderBySnapshotDateDesc()
+                .map(snapshot -> snapshot.getSnapshotDate().plusDays(1))
+                .orElse(yesterday);
+
+        for (; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            takeSnapshots(day);
+        }
+    }
+
+    public void takeSnapshots(LocalDate day) {
+        int page = 0;
+        boolean hasNext;
+        do {
+            PageRequest pageRequest = PageRequest.of(page++, pageSize, Sort.by("id"));
+            hasNext = Boolean.TRUE.equals(
+                    transactionTemplate.execute(status -> takeSnapshots(day, pageRequest)));
+        } while (hasNext);
+
+        log.info("Saved daily balance snapshots for {}", day);
+    }
+
+    private boolean takeSnapshots(LocalDate day, PageRequest pageRequest) {
+        LocalDateTime endOfDay = day.atTime(LocalTime.MAX);
+        Page<Account> accounts = accountRepository.findAll(pageRequest);
+
+        for (Account account : accounts) {
+            if (account.getRegisteredAt().isAfter(endOfDay)
+                    || dailyBalanceSnapshotRepository.existsByAccountAndSnapshotDate(account, day)) {
+                continue;
+            }
+            dailyBalanceSnapshotRepository.save(DailyBalanceSnapshot.builder()
+                    .account(account)
+                    .snapshotDate(day)
+                    .balance(balanceAt(account, endOfDay))
+                    .build());
+        }
+        return accounts.hasNext();
+    }
+
+    /** 계좌의 특정 시점 잔액 */
+    @Transactional(readOnly = true)
+    public Long getBalanceAt(Long accountNumber, LocalDateTime at) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        if (at.isBefore(account.getRegisteredAt())) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+
+        return balanceAt(account, at);
+    }
+
+    private long balanceAt(Account account, LocalDateTime at) {
+        Optional<DailyBalanceSnapshot> snapshot = dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(
+                        account, at.toLocalDate());
+
+        long balance;
+        LocalDateTime replayFrom;
+        if (snapshot.isPresent()) {
+            balance = snapshot.get().getBalance();
+            replayFrom = snapshot.get().getSnapshotDate().plusDays(1).atStartOfDay();
+            checkNotArchived(replayFrom);
+        } else {
+            // 스냅샷이 없으면 남아 있는 첫 거래 직전 잔액에서 시작한다.
+            Optional<Transaction> first = transactionRepository.findFirstByAccountOrderByIdAsc(account);
+            if (first.isEmpty() || at.isBefore(first.get().getTransactedAt())) {
+                checkNotArchived(at);
+            }
+            if (first.isEmpty()) {
+                return account.getTotalBalance();
+            }
+            balance = balanceBefore(first.get());
+            replayFrom = first.get().getTransactedAt();
+        }
+
+        for (Transaction transaction : transactionRepository
+                .findByAccountAndTransactionResultTypeAndTransactedAtBetweenOrderByIdAsc(
+                        account, S, replayFrom, at)) {
+            balance += delta(transaction);
+        }
+        return balance;
+    }
+
+    /**
+     * from 이후의 거래를 hot 테이블에서 모두 읽을 수 있는지 확인한다.
+     * 아카이브 기준 시각보다 이른 거래는 아카이브로 옮겨졌을 수 있다.
+     * (스냅샷 다음 날부터 다시 적용할 때, 남아 있는 첫 거래보다 이른 시점을 조회할 때)
+     */
+    private void checkNotArchived(LocalDateTime from) {
+        if (from.isBefore(transactionArchiveService.archiveCutoff(LocalDateTime.now()))) {
+            throw new AccountException(BALANCE_HISTORY_UNAVAILABLE);
+        }
+    }
+
+    private long balanceBefore(Transaction transaction) {
+        if (transaction.getTransactionResultType() != S) {
+            return transaction.getBalanceSnapshot();
+        }
+        return transaction.getBalanceSnapshot() - delta(transaction);
+    }
+
+    private long delta(Transaction transaction) {
+        switch (transaction.getTransactionType()) {
+            case USE:
+            case TRANSFER_OUT:
+                return -transaction.getAmount();
+            case CANCEL:
+            case TRANSFER_IN:
+                return transaction.getAmount();
+            default:
+                throw new IllegalStateException(
+                        "Unknown transaction type : " + transaction.getTransactionType());
+        }
+    }
+}
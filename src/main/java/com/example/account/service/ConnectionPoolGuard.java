@@ -0,0 +1,160 @@
+package com.example.account.service;
+
+import com.example.account.exception.RateLimitException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 lock 을 잡기 전에 DB connection 을 받을 수 있는지 확인한다. (account.lock.pool-guard.mode)
+ * lock 을 잡은 요청이 connection 을 기다리면 그동안 같은 계좌의 다른 요청이 모두 lock 을 기다린다.
+ * - none: 확인하지 않는다.
+ * - reserve: connection pool 크기만큼의 허가를 먼저 받고 lock 을 잡는다. 허가를 받은 요청만 lock 을 잡으므로
+ *   lock 을 잡은 뒤에는 connection 을 오래 기다리지 않는다. 허가를 기다린 시간만큼 lock 을 기다리는 시간을 줄인다.
+ * - reject: connection 을 기다리는 스레드가 max-pending 보다 많으면 lock 을 잡지 않고 바로 거절한다.
+ * 허가를 받지 못하거나 거절하면 요청 수 제한과 같이 429 와 Retry-After 로 응답한다.
+ * database lock 은 lock 을 잡은 connection 과 거래 connection 을 따로 쓰므로, 허가 없이 lock 을 잡은 요청이
+ * pool 을 다 차지하면 거래 connection 을 서로 기다리며 멈춘다. 그래서 database lock 은 reserve 로만 시작하고
+ * (모드를 비워 두면 reserve), pool 이 요청 하나가 쓰는 connection 수보다 작으면 시작할 때 실패한다.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolGuard {
+    static final String NONE = "none";
+    static final String RESERVE = "reserve";
+    static final String REJECT = "reject";
+    private static final String DATABASE_LOCK_PROVIDER = "database";
+    private static final long RETRY_AFTER_SECONDS = 1L;
+    private static final ThreadLocal<Boolean> LOCK_HELD = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+    private final String mode;
+    private final int maxPending;
+    private final Semaphore permits;
+    private final Counter rejected;
+    private final LatencyRecorder latencyRecorder;
+
+    public ConnectionPoolGuard(DataSource dataSource,
+                               MeterRegistry meterRegistry,
+                               LatencyRecorder latencyRecorder,
+                               @Value("${account.lock.pool-guard.mode:}") String mode,
+                               @Value("${account.lock.provider:redisson}") String lockProvider,
+                               @Value("${account.lock.pool-guard.headroom:2}") int headroom,
+                               @Value("${account.lock.pool-guard.max-pending:0}") int maxPending) {
+        boolean databaseLock = DATABASE_LOCK_PROVIDER.equals(lockProvider);
+        if (mode == null || mode.isEmpty()) {
+            mode = databaseLock ? RESERVE : NONE;
+        }
+        if (!NONE.equals(mode) && !RESERVE.equals(mode) && !REJECT.equals(mode)) {
+            throw new IllegalArgumentException("Unknown account.lock.pool-guard.mode: " + mode);
+        }
+        if (databaseLock && !RESERVE.equals(mode)) {
+            throw new IllegalStateException("account.lock.provider=database needs account.lock.pool-guard.mode="
+                    + RESERVE + " (lock and transaction use separate connections), but was " + mode);
+        }
+        this.dataSource = dataSource;
+        this.latencyRecorder = latencyRecorder;
+        this.mode = mode;
+        this.maxPending = maxPending;
+        this.rejected = Counter.builder("account.lock.pool-guard.rejected")
+                .description("connection 을 받을 수 없어 lock 을 잡지 않고 거절한 요청 수")
+                .register(meterRegistry);
+        if (RESERVE.equals(mode)) {
+            // database lock 은 lock 하나에 connection 을 하나 더 쓴다.
+            int connectionsPerRequest = databaseLock ? 2 : 1;
+            int maximumPoolSize = hikari().getMaximumPoolSize();
+            if (maximumPoolSize < connectionsPerRequest) {
+                throw new IllegalStateException("maximum-pool-size " + maximumPoolSize + " is smaller than "
+                        + connectionsPerRequest + " connections a locked request uses");
+            }
+            int size = Math.max(1, (maximumPoolSize - headroom) / connectionsPerRequest);
+            this.permits = new Semaphore(size, true);
+            Gauge.builder("account.lock.pool-guard.available", permits, Semaphore::availablePermits)
+                    .description("남은 connection 허가 수")
+                    .register(meterRegistry);
+            log.info("Connection pool guard reserves {} permits before account locks", size);
+        } else {
+            this.permits = null;
+        }
+    }
+
+    /**
+     * lock 을 잡기 전에 부른다. 허가를 기다린 만큼 뺀, lock 을 기다릴 수 있는 시간(ms)을 돌려준다.
+     * reserve 모드에서 허가를 받았으면 lock 을 푼 뒤 {@link #release()} 를 불러야 한다.
+     */
+    public long reserve(long tryLockTimeMillis) {
+        if (REJECT.equals(mode)) {
+            HikariPoolMXBean pool = hikari().getHikariPoolMXBean();
+            // pool 이 아직 만들어지지 않았으면 기다리는 스레드도 없다.
+            if (pool != null && pool.getThreadsAwaitingConnection() > maxPending) {
+                rejected.increment();
+                throw new RateLimitException(RETRY_AFTER_SECONDS);
+            }
+            return tryLockTimeMillis;
+        }
+        if (permits == null) {
+            return tryLockTimeMillis;
+        }
+        long waitMillis = Math.max(0L, Math.min(tryLockTimeMillis, RequestDeadline.remainingMillis()));
+        long startedAt = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long waitedNanos = System.nanoTime() - startedAt;
+        latencyRecorder.record("db.connection.reserve", waitedNanos);
+        if (!acquired) {
+            rejected.increment();
+            throw new RateLimitException(RETRY_AFTER_SECONDS);
+        }
+        return Math.max(0L, tryLockTimeMillis - TimeUnit.NANOSECONDS.toMillis(waitedNanos));
+    }
+
+    /**
+     * 스케줄 작업처럼 기다리지 않는 작업이 lock 을 잡기 전에 부른다. reserve 모드에서만 허가를 받고,
+     * true 면 작업이 끝난 뒤 {@link #release()} 를 불러야 한다.
+     */
+    public boolean tryReserve() {
+        return permits == null || permits.tryAcquire();
+    }
+
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    /** 이 스레드가 계좌 lock 을 잡고 있는 동안 표시한다. (lock 을 잡은 채 connection 을 기다린 시간을 따로 기록) */
+    public static void lockHeld(boolean held) {
+        if (held) {
+            LOCK_HELD.set(Boolean.TRUE);
+        } else {
+            LOCK_HELD.remove();
+        }
+    }
+
+    public static boolean isLockHeld() {
+        return LOCK_HELD.get() != null;
+    }
+
+    private HikariDataSource hikari() {
+        try {
+            return dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("account.lock.pool-guard needs a HikariCP datasource", e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lock 테이블(account_lock_row)의 row 를 SELECT ... FOR UPDATE 로 잡는 lock.
+ * redis 없이 여러 서버가 같은 DB 를 쓸 때 사용한다.
+ * lock 을 잡은 동안 connection 하나를 따로 쓰고, commit 하면 풀린다.
+ * 거래 connection 까지 요청 하나가 connection 을 두 개 쓰므로 {@link ConnectionPoolGuard} 의 reserve 모드로만 쓴다.
+ * lease 는 없지만 서버가 죽으면 connection 이 끊기면서 DB 가 lock 을 푼다.
+ * READ lock 은 account.lock.database.read-lock-clause 로 잡는다. 기본값은 H2 에서도 되는
+ * "for update" 라 읽기도 하나씩 처리되며, MySQL/PostgreSQL 에서는 "for share" 로 바꾸면 함께 읽는다.
+ * fencing token 은 lock row 의 fencing_token 컬럼을 lock 을 잡은 connection 에서 1씩 늘려 발급한다.
+ * lock row 는 계좌(와 hot 계좌 slot)마다 하나씩 만든다. 거래 id 는 계속 늘어나므로 row 를 만들지 않고
+ * TRANSACTION_STRIPES 개의 row 중 hash 로 고른 row 를 잡는다. (다른 거래와 같은 row 를 나눠 쓸 수 있다)
+ * 계좌 lock 이 아닌 key(스케줄 작업 lock)는 stripe 를 나눠 쓰지 않고 자기 row 를 잡는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "database")
+public class DatabaseAccountLockProvider implements AccountLockProvider {
+    /** 거래 id lock 이 나눠 쓰는 row 수 */
+    static final int TRANSACTION_STRIPES = 256;
+    private static final String INSERT_SQL =
+            "insert into account_lock_row (lock_key, fencing_token) values (?, ?)";
+    private static final String EXISTS_SQL =
+            "select 1 from account_lock_row where lock_key = ?";
+    private static final String SELECT_SQL =
+            "select lock_key from account_lock_row where lock_key = ? ";
+    private static final String NEXT_TOKEN_SQL =
+            "update account_lock_row set fencing_token = coalesce(fencing_token, ?) + 1 where lock_key = ?";
+    private static final String TOKEN_SQL =
+            "select fencing_token from account_lock_row where lock_key = ?";
+
+    /** 스레드가 잡고 있는 lock 의 connection (lock key 목록별) */
+    private static final ThreadLocal<Map<String, Connection>> HELD =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private final DataSource dataSource;
+    private final String readLockClause;
+
+    public DatabaseAccountLockProvider(
+            DataSource dataSource,
+            @Value("${account.lock.database.read-lock-clause:for update}") String readLockClause) {
+        this.dataSource = dataSource;
+        this.readLockClause = readLockClause;
+    }
+
+    @Override
+    public boolean tryLock(List<String> lockKeys, LockMode mode, long waitTime, long leaseTime, TimeUnit unit) {
+        String heldKey = String.join(",", lockKeys);
+        if (HELD.get().containsKey(heldKey)) {
+            throw new IllegalStateException("Lock is already held by current thread : " + heldKey);
+        }
+
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            Set<String> rowKeys = rowKeys(lockKeys);
+            for (String rowKey : rowKeys) {
+                insertIfAbsent(connection, rowKey);
+            }
+
+            connection.setAutoCommit(false);
+            // JDBC 의 query timeout 은 초 단위이므로 1초 미만은 1초로 올린다.
+            int timeoutSeconds = (int) Math.max(1, (unit.toMillis(waitTime) + 999) / 1000);
+            String lockSql = SELECT_SQL + (mode == LockMode.READ ? readLockClause : "for update");
+            for (String rowKey : rowKeys) {
+                lockRow(connection, lockSql, rowKey, timeoutSeconds);
+            }
+            HELD.get().put(heldKey, connection);
+            return true;
+        } catch (SQLException e) {
+            log.debug("Failed to lock {} : {}", heldKey, e.getMessage());
+            release(connection);
+            return false;
+        }
+    }
+
+    @Override
+    public void unlock(List<String> lockKeys, LockMode mode) {
+        Connection connection = HELD.get().remove(String.join(",", lockKeys));
+        if (connection == null) {
+            throw new IllegalMonitorStateException("Lock is not held by current thread.");
+        }
+        release(connection);
+    }
+
+    @Override
+    public long nextFencingToken(String lockKey) {
+        Connection connection = heldConnection(lockKey);
+        try {
+            try (PreparedStatement statement = connection.prepareStatement(NEXT_TOKEN_SQL)) {
+                statement.setLong(1, FencingTokens.seed());
+                statement.setString(2, lockKey);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(TOKEN_SQL)) {
+                statement.setString(1, lockKey);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to issue fencing token : " + lockKey, e);
+        }
+    }
+
+    /** lockKey 를 포함한 lock 을 잡고 있는 connection */
+    private Connection heldConnection(String lockKey) {
+        return HELD.get().entrySet().stream()
+                .filter(held -> List.of(held.getKey().split(",")).contains(lockKey))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new IllegalMonitorStateException(
+                        "Lock is not held by current thread : " + lockKey));
+    }
+
+    /** lock key 마다 잡을 row 의 key. 정렬된 순서로 잡도록 TreeSet 에 모은다. */
+    static Set<String> rowKeys(List<String> lockKeys) {
+        Set<String> rowKeys = new TreeSet<>();
+        for (String lockKey : lockKeys) {
+            rowKeys.add(rowKey(lockKey));
+        }
+        return rowKeys;
+    }
+
+    private static String rowKey(String lockKey) {
+        if (!lockKey.startsWith(LockService.LOCK_KEY_PREFIX)) {
+            return lockKey;
+        }
+        String lockId = LockService.lockIdOf(lockKey);
+        int slot = lockId.indexOf(':');
+        if (LockService.isAccountNumber(slot < 0 ? lockId : lockId.substring(0, slot))) {
+            return lockKey;
+        }
+        return LockService.LOCK_KEY_PREFIX + "stripe:" + Math.floorMod(lockId.hashCode(), TRANSACTION_STRIPES);
+    }
+
+    private void insertIfAbsent(Connection connection, String lockKey) throws SQLException {
+        if (exists(connection, lockKey)) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            statement.setString(1, lockKey);
+            statement.setLong(2, FencingTokens.seed());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            // 다른 서버가 먼저 만든 경우
+            if (!exists(connection, lockKey)) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean exists(Connection connection, String lockKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(EXISTS_SQL)) {
+            statement.setString(1, lockKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private void lockRow(Connection connection, String lockSql, String lockKey, int timeoutSeconds)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(lockSql)) {
+            statement.setQueryTimeout(timeoutSeconds);
+            statement.setString(1, lockKey);
+            statement.executeQuery().close();
+        }
+    }
+
+    /** commit 으로 row lock 을 풀고 connection 을 돌려준다. */
+    private void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to release database lock", e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close lock connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.account.service;
+
+/**
+ * fencing token 의 시작 값.
+ * 저장소가 비워지거나 서버가 다시 시작해도 이전에 발급한 token 보다 작아지지 않도록
+ * 현재 시각(ms) * 1000 에서 시작한다. (ms 당 1000 번보다 적게 발급하는 한 단조 증가)
+ */
+final class FencingTokens {
+
+    private FencingTokens() {
+    }
+
+    static long seed() {
+        return System.currentTimeMillis() * 1000;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+/**
+ * 테스트/로컬용 sink
+ * 이벤트를 한 줄에 하나씩 NDJSON 으로 파일 끝에 추가한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final ObjectMapper objectMapper;
+
+    @Value("${account.outbox.file-path:build/outbox/transactions.ndjson}")
+    private String filePath;
+
+    @Override
+    public synchronized void publish(List<TransactionOutbox> events) throws IOException {
+        Path path = Paths.get(filePath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                path, StandardCharsets.UTF_8, CREATE, APPEND)) {
+            for (TransactionOutbox event : events) {
+                writer.write(objectMapper.writeValueAsString(toNode(event)));
+                writer.newLine();
+            }
+        }
+    }
+
+    private ObjectNode toNode(TransactionOutbox event) {
+        return objectMapper.createObjectNode()
+                .put("transactionId", event.getTransactionId())
+                .put("accountNumber", event.getAccountNumber())
+                .put("transactionType", event.getTransactionType().name())
+                .put("transactionResult", event.getTransactionResultType().name())
+                .put("amount", event.getAmount())
+                .put("balanceSnapshot", event.getBalanceSnapshot())
+                .put("transactedAt", String.valueOf(event.getTransactedAt()));
+    }
+}
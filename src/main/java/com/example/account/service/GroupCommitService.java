@@ -0,0 +1,299 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.ErrorCode.REQUEST_TIMEOUT;
+
+/**
+ * 잔액 사용 group commit (account.group-commit.enabled=true)
+ * 요청마다 commit 하면 commit 의 fsync 가 처리량을 정한다. 동시에 들어온 잔액 사용을
+ * window 동안 (또는 max-batch-size 건이 모일 때까지) 모아 committer 스레드가 한 트랜잭션으로 저장하고,
+ * commit 이 끝나면 기다리던 요청에 결과를 한꺼번에 돌려준다.
+ * 요청 스레드는 결과를 받을 때까지 계좌 lock 을 잡고 있으므로 commit 전에 lock 이 풀리지 않는다.
+ * lock 의 fencing token 과 hot 계좌 slot 은 요청 스레드에만 있으므로 넣을 때 함께 넘긴다.
+ * 검증 실패는 그 건만 실패하고, 묶음의 commit 이 실패하면 한 건씩 다시 처리해 실패를 그 건에 가둔다.
+ * 요청의 deadline 도 함께 넘긴다. 요청은 남은 시간만큼만 기다리고, committer 가 아직 꺼내지 않은 건은
+ * 포기하고 REQUEST_TIMEOUT 으로 끝낸다. committer 는 시간이 지난 건을 처리하지 않고,
+ * 묶음의 트랜잭션에는 가장 이른 deadline 을 건다. (시간이 지나 묶음이 실패하면 한 건씩 자기 deadline 으로 다시 처리)
+ */
+@Slf4j
+@Service
+public class GroupCommitService {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final HotAccountService hotAccountService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingUse> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+    private final Counter fallbacks;
+    private final ExecutorService committer;
+    private volatile boolean stopped;
+
+    public GroupCommitService(
+            TransactionService transactionService,
+            LockService lockService,
+            HotAccountService hotAccountService,
+            MeterRegistry meterRegistry,
+            @Value("${account.group-commit.enabled:false}") boolean enabled,
+            @Value("${account.group-commit.window-micros:300}") long windowMicros,
+            @Value("${account.group-commit.max-batch-size:64}") int maxBatchSize) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.hotAccountService = hotAccountService;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("account.group-commit.batch-size")
+                .description("한 번에 commit 한 잔액 사용 건수")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("account.group-commit.commit")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("account.group-commit.fallback")
+                .description("묶음 commit 이 실패해 한 건씩 다시 처리한 횟수")
+                .register(meterRegistry);
+        if (enabled) {
+            this.committer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "group-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.committer.execute(this::commitLoop);
+        } else {
+            this.committer = null;
+        }
+    }
+
+    /** 잔액 사용 (꺼져 있으면 요청 스레드에서 바로 처리) */
+    public TransactionDto useBalance(Long userId, Long accountNumber, Long amount) {
+        if (!enabled) {
+            return transactionService.useBalance(userId, accountNumber, amount);
+        }
+        // committer 스레드에는 요청 deadline 이 없으므로 넣기 전에 확인한다.
+        RequestDeadline.checkNotExpired();
+        PendingUse use = new PendingUse(userId, accountNumber, amount,
+                lockService.fencingToken(accountNumber.longValue()), hotAccountService.currentSlot());
+        queue.add(use);
+        if (stopped) {
+            failQueued();
+        }
+        return use.join();
+    }
+
+    private void commitLoop() {
+        List<PendingUse> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!stopped) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingUse next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            batch.forEach(use -> use.failed(new IllegalStateException("Group commit stopped")));
+            batch.forEach(PendingUse::complete);
+            failQueued();
+        }
+    }
+
+    void commit(List<PendingUse> batch) {
+        batchSizes.record(batch.size());
+        long startedAt = System.nanoTime();
+        // 요청이 포기했거나 시간이 지난 건은 처리하지 않는다.
+        List<PendingUse> live = new ArrayList<>(batch.size());
+        Long earliestDeadline = null;
+        for (PendingUse use : batch) {
+            if (!use.claim() || use.isExpired()) {
+                use.failed(new AccountException(REQUEST_TIMEOUT));
+                continue;
+            }
+            live.add(use);
+            if (use.deadlineNanos != null
+                    && (earliestDeadline == null || use.deadlineNanos - earliestDeadline < 0)) {
+                earliestDeadline = use.deadlineNanos;
+            }
+        }
+        try {
+            if (!live.isEmpty()) {
+                RequestDeadline.restore(earliestDeadline);
+                transactionService.useBalances(live);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} uses failed, retrying one by one : {}", live.size(), e.toString());
+            fallbacks.increment();
+            for (PendingUse use : live) {
+                use.reset();
+                try {
+                    RequestDeadline.restore(use.deadlineNanos);
+                    transactionService.useBalances(Collections.singletonList(use));
+                } catch (RuntimeException single) {
+                    use.failed(single);
+                }
+            }
+        } finally {
+            RequestDeadline.clear();
+            commitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+        batch.forEach(PendingUse::complete);
+    }
+
+    private void failQueued() {
+        PendingUse use;
+        while ((use = queue.poll()) != null) {
+            use.failed(new IllegalStateException("Group commit stopped"));
+            use.complete();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        if (committer != null) {
+            committer.shutdownNow();
+        }
+    }
+
+    /**
+     * committer 스레드가 처리할 잔액 사용 한 건.
+     * 결과는 commit 이 끝난 뒤에 요청 스레드로 넘긴다.
+     */
+    @Getter
+    public static class PendingUse {
+        private static final int NEW = 0;
+        private static final int CLAIMED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Long userId;
+        private final Long accountNumber;
+        private final Long amount;
+        private final OptionalLong fencingToken;
+        private final int slot;
+        private TransactionDto result;
+        private RuntimeException failure;
+        @Getter(AccessLevel.NONE)
+        private final CompletableFuture<TransactionDto> future = new CompletableFuture<>();
+        /** 요청의 deadline (RequestDeadline.current(), 없으면 null) */
+        @Getter(AccessLevel.NONE)
+        private final Long deadlineNanos;
+        /** NEW -> CLAIMED(committer 가 꺼냄) 또는 NEW -> ABANDONED(요청이 포기함) */
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger state = new AtomicInteger(NEW);
+
+        PendingUse(Long userId, Long accountNumber, Long amount, OptionalLong fencingToken, int slot) {
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+            this.amount = amount;
+            this.fencingToken = fencingToken;
+            this.slot = slot;
+            this.deadlineNanos = RequestDeadline.current();
+        }
+
+        boolean claim() {
+            return state.compareAndSet(NEW, CLAIMED);
+        }
+
+        boolean isExpired() {
+            return deadlineNanos != null && deadlineNanos - System.nanoTime() <= 0;
+        }
+
+        void succeeded(TransactionDto result) {
+            this.result = result;
+        }
+
+        void failed(RuntimeException failure) {
+            if (this.failure == null) {
+                this.failure = failure;
+            }
+        }
+
+        boolean isDone() {
+            return result != null || failure != null;
+        }
+
+        void reset() {
+            result = null;
+            failure = null;
+        }
+
+        void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        /**
+         * 남은 시간만큼 결과를 기다린다. 시간이 지났을 때 committer 가 아직 꺼내지 않았으면 포기하고,
+         * 이미 처리 중이면 이 요청의 deadline 을 건 트랜잭션이 끝날 때까지 기다린다.
+         */
+        TransactionDto join() {
+            try {
+                long remainingMillis = RequestDeadline.remainingMillis();
+                if (remainingMillis == Long.MAX_VALUE) {
+                    return future.join();
+                }
+                try {
+                    return future.get(Math.max(0L, remainingMillis), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (state.compareAndSet(NEW, ABANDONED)) {
+                        throw new AccountException(REQUEST_TIMEOUT);
+                    }
+                    return future.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (state.compareAndSet(NEW, ABANDONED)) {
+                        throw new AccountException(REQUEST_TIMEOUT);
+                    }
+                    return future.join();
+                } catch (ExecutionException e) {
+                    throw new CompletionException(e.getCause());
+                }
+            } catch (CompletionException e) {
+                // committer 에서 발생한 예외(AccountException 등)를 그대로 전달
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * hot 계좌 감지
+ * 1. 계좌별 초당 요청 수를 세서 기준을 넘으면 잔액을 slot 으로 나눈다.
+ * 2. 나눈 계좌는 계좌 lock 대신 slot 하나의 lock 을 잡게 한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotAccountService {
+    private static final String SLOT_SEPARATOR = ":";
+    private static final ThreadLocal<Integer> CURRENT_SLOT = new ThreadLocal<>();
+
+    private final BalanceSlotService balanceSlotService;
+
+    private final Map<String, RequestRate> requestRates = new ConcurrentHashMap<>();
+    /** 나눈 계좌의 slot lock id ("계좌번호:slot") 를 미리 만들어 둔다. */
+    private final Map<String, String[]> splitAccounts = new ConcurrentHashMap<>();
+    /** 거래마다 불리는 markSplit 이 계좌번호를 문자열로 바꾸지 않도록 숫자로도 기록한다. */
+    private final Map<Long, Integer> splitSlotCounts = new ConcurrentHashMap<>();
+
+    @Value("${account.hot-account.split.enabled:false}")
+    private boolean splitEnabled;
+
+    @Value("${account.hot-account.threshold-per-second:50}")
+    private int thresholdPerSecond;
+
+    @Value("${account.hot-account.split.slots:8}")
+    private int slotCount;
+
+    /**
+     * 요청을 기록하고 잡아야 할 lock id 를 돌려준다.
+     * slot 으로 나눈 계좌면 slot 하나를 골라 "계좌번호:slot" 을, 아니면 계좌번호를 돌려준다.
+     */
+    public String resolveLockId(String accountNumber) {
+        if (splitEnabled) {
+            requestRates.computeIfAbsent(accountNumber, key -> new RequestRate())
+                    .record(System.currentTimeMillis() / 1000);
+        }
+
+        String[] slotLockIds = splitAccounts.get(accountNumber);
+        if (slotLockIds == null) {
+            return accountNumber;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(slotLockIds.length);
+        CURRENT_SLOT.set(slot);
+        return slotLockIds[slot];
+    }
+
+    /** 계좌 lock 을 잡은 상태에서 hot 계좌면 잔액을 나눈다. */
+    public void splitIfHot(String accountNumber, String lockId) {
+        if (!splitEnabled || !accountNumber.equals(lockId) || splitAccounts.containsKey(accountNumber)) {
+            return;
+        }
+        RequestRate rate = requestRates.get(accountNumber);
+        if (rate == null || rate.perSecond() < thresholdPerSecond) {
+            return;
+        }
+
+        try {
+            Long number = Long.valueOf(accountNumber);
+            markSplit(number, balanceSlotService.split(number, slotCount));
+        } catch (Exception e) {
+            log.warn("Failed to split hot account {}", accountNumber, e);
+        }
+    }
+
+    /** 이미 같은 slot 수로 기록한 계좌는 map 에 쓰지 않고 돌아간다. (거래마다 불린다) */
+    public void markSplit(Long accountNumber, int slots) {
+        Integer marked = splitSlotCounts.get(accountNumber);
+        if (slots <= 0 || (marked != null && marked == slots)) {
+            return;
+        }
+        splitSlotCounts.put(accountNumber, slots);
+        String lockId = String.valueOf(accountNumber);
+        String[] slotLockIds = new String[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            slotLockIds[slot] = lockId + SLOT_SEPARATOR + slot;
+        }
+        splitAccounts.put(lockId, slotLockIds);
+    }
+
+    /** 현재 요청이 lock 을 잡은 slot (없으면 -1) */
+    public int currentSlot() {
+        Integer slot = CURRENT_SLOT.get();
+        return slot == null ? -1 : slot;
+    }
+
+    public void clearCurrentSlot() {
+        CURRENT_SLOT.remove();
+    }
+
+    @Scheduled(fixedDelayString = "${account.hot-account.evict-interval-ms:60000}")
+    public void evictIdleRates() {
+        long nowSecond = System.currentTimeMillis() / 1000;
+        requestRates.values().removeIf(rate -> rate.isIdle(nowSecond));
+    }
+
+    /** 직전 1초 구간의 요청 수 */
+    static class RequestRate {
+        private long currentSecond;
+        private int currentCount;
+        private int previousCount;
+
+        synchronized void record(long nowSecond) {
+            if (nowSecond != currentSecond) {
+                previousCount = nowSecond == currentSecond + 1 ? currentCount : 0;
+                currentSecond = nowSecond;
+                currentCount = 0;
+            }
+            currentCount++;
+        }
+
+        synchronized int perSecond() {
+            return Math.max(previousCount, currentCount);
+        }
+
+        synchronized boolean isIdle(long nowSecond) {
+            return nowSecond - currentSecond > 60;
+        }
+    }
+}
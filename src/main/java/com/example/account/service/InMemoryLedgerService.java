@@ -0,0 +1,155 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+
+/**
+ * in-memory 장부 (account.ledger.mode=in-memory, 시뮬레이션/거래 재현 환경용)
+ * 계좌 잔액, 상태, 소유자를 OffHeapBalanceIndex 에 두고 잔액은 CAS 로 바꾼다.
+ * 거래는 그대로 DB 에 저장하지만 계좌 행은 읽지도 고치지도 않으므로 DB 의 계좌 잔액은 처음 값으로 남는다.
+ * (서버를 내리면 바뀐 잔액은 사라진다)
+ * 시작할 때 계좌를 모두 읽어 두고, 그 뒤에 만든 계좌는 처음 쓸 때 DB 에서 읽어 넣는다.
+ * 바꾼 트랜잭션이 되돌려지면 잔액도 되돌린다.
+ */
+@Slf4j
+@Service
+public class InMemoryLedgerService {
+    private static final String IN_MEMORY = "in-memory";
+    private static final String LOAD_SQL =
+            "select a.id, a.account_number, a.account_user_id, a.account_status, a.balance + coalesce(" +
+                    "(select sum(s.balance) from account_balance_slot s where s.account_id = a.id), 0) " +
+                    "from account a";
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final OffHeapBalanceIndex index;
+
+    public InMemoryLedgerService(AccountRepository accountRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${account.ledger.mode:jpa}") String mode,
+                                 @Value("${account.ledger.in-memory.max-accounts:1000000}") int maxAccounts) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.index = IN_MEMORY.equals(mode) ? new OffHeapBalanceIndex(maxAccounts) : null;
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!isEnabled()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            index.putIfAbsent(rs.getLong(2), rs.getLong(1), rs.getLong(3),
+                    AccountStatus.valueOf(rs.getString(4)), rs.getLong(5));
+        });
+        log.info("Loaded {} accounts into in-memory ledger ({} MB off-heap) in {} ms",
+                index.size(), index.offHeapBytes() >> 20,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /** 장부의 값으로 채운 계좌 (DB 에 저장하지 않는 참조용, 거래의 계좌로 쓴다) */
+    public Account getAccount(Long accountNumber) {
+        int entry = entryOf(accountNumber);
+        return Account.builder()
+                .id(index.accountId(entry))
+                .accountNumber(accountNumber)
+                .accountUser(AccountUser.builder().id(index.ownerId(entry)).build())
+                .accountStatus(index.status(entry))
+                .balance(index.balance(entry))
+                .build();
+    }
+
+    public Optional<Long> findOwnerId(Long accountNumber) {
+        try {
+            return Optional.of(index.ownerId(entryOf(accountNumber)));
+        } catch (AccountException e) {
+            return Optional.empty();
+        }
+    }
+
+    public long balance(Account account) {
+        return index.balance(entryOf(account));
+    }
+
+    public long debit(Account account, long amount) {
+        int entry = entryOf(account);
+        long balance = index.debit(entry, amount);
+        onRollback(account, () -> index.credit(entry, amount));
+        return balance;
+    }
+
+    public long credit(Account account, long amount) {
+        int entry = entryOf(account);
+        long balance = index.credit(entry, amount);
+        onRollback(account, () -> index.debit(entry, amount));
+        return balance;
+    }
+
+    public void unregister(Account account) {
+        int entry = entryOf(account);
+        index.unregister(entry);
+        onRollback(account, () -> index.reopen(entry));
+    }
+
+    private int entryOf(Long accountNumber) {
+        int entry = index.find(accountNumber);
+        if (entry >= 0) {
+            return entry;
+        }
+        return entryOf(accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND)));
+    }
+
+    private int entryOf(Account account) {
+        long accountNumber = account.getAccountNumber();
+        int entry = index.find(accountNumber);
+        if (entry >= 0) {
+            return entry;
+        }
+        // 시작한 뒤에 만든 계좌 (DB 잔액이 처음 잔액)
+        return index.putIfAbsent(accountNumber, account.getId(), account.getAccountUser().getId(),
+                account.getAccountStatus(), account.getTotalBalance());
+    }
+
+    /** 트랜잭션이 되돌려지면 장부도 되돌린다. */
+    private void onRollback(Account account, Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    undo.run();
+                } catch (AccountException e) {
+                    log.error("Failed to roll back in-memory balance of {} : {}",
+                            account.getAccountNumber(), e.getErrorCode());
+                }
+            }
+        });
+    }
+}
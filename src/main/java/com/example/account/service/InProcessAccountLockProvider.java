@@ -0,0 +1,175 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 서버 한 대로 운영할 때 쓰는 JVM 안의 lock.
+ * lock key 를 stripe 로 나눠 ReentrantReadWriteLock 을 나눠 쓰고, stripe 의 lock 은 처음 쓸 때 만든다.
+ * 아무도 잡고 있지 않은 lock 은 weak reference 로만 남아 GC 가 치운다.
+ * 잡고 있는 동안에는 heldLocks 가 잡은 횟수와 함께 강하게 참조하므로 사라지지 않는다.
+ * 프로세스 안에서만 유효하고 lease 는 없다. (lock 을 잡은 요청이 finally 에서 푼다)
+ * account.lock.fair 가 true 면 기다린 순서대로 lock 을 주는 fair 모드로 만든다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "in-process")
+public class InProcessAccountLockProvider implements AccountLockProvider {
+
+    private final int stripeMask;
+    private final boolean fair;
+    private final ConcurrentMap<Integer, StripeReference> stripes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, HeldLock> heldLocks = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ReentrantReadWriteLock> collected = new ReferenceQueue<>();
+    private final AtomicLong fencingTokens = new AtomicLong(FencingTokens.seed());
+
+    public InProcessAccountLockProvider(
+            @Value("${account.lock.in-process.stripes:1024}") int stripes,
+            @Value("${account.lock.fair:false}") boolean fair) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripeMask = size - 1;
+        this.fair = fair;
+    }
+
+    @Override
+    public boolean tryLock(List<String> lockKeys, LockMode mode, long waitTime, long leaseTime, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        List<Integer> locked = new ArrayList<>();
+        try {
+            // 다른 key 가 같은 stripe 를 쓸 수 있으므로 stripe 순서로 잡는다.
+            for (int stripe : stripesOf(lockKeys)) {
+                ReentrantReadWriteLock lock = getLock(stripe);
+                hold(stripe, lock);
+                if (!lockOf(lock, mode).tryLock(
+                        Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    release(stripe);
+                    return false;
+                }
+                locked.add(stripe);
+            }
+            locked.clear();
+            return true;
+        } finally {
+            for (int stripe : locked) {
+                unlock(stripe, mode);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(List<String> lockKeys, LockMode mode) {
+        for (int stripe : stripesOf(lockKeys).descendingSet()) {
+            unlock(stripe, mode);
+        }
+    }
+
+    /** 프로세스 안의 모든 key 가 하나의 증가하는 token 을 나눠 쓴다. */
+    @Override
+    public long nextFencingToken(String lockKey) {
+        return fencingTokens.incrementAndGet();
+    }
+
+    /** 지금 만들어져 있는 stripe lock 수 */
+    int stripeCount() {
+        purge();
+        return stripes.size();
+    }
+
+    private void unlock(int stripe, LockMode mode) {
+        HeldLock held = heldLocks.get(stripe);
+        if (held == null) {
+            throw new IllegalMonitorStateException("Lock is not held.");
+        }
+        lockOf(held.lock, mode).unlock();
+        release(stripe);
+    }
+
+    /** lock 을 기다리거나 잡고 있는 동안 GC 되지 않도록 잡은 횟수를 센다. */
+    private void hold(int stripe, ReentrantReadWriteLock lock) {
+        heldLocks.compute(stripe, (key, held) -> {
+            HeldLock result = held == null ? new HeldLock(lock) : held;
+            result.count++;
+            return result;
+        });
+    }
+
+    private void release(int stripe) {
+        heldLocks.computeIfPresent(stripe, (key, held) -> --held.count == 0 ? null : held);
+    }
+
+    private ReentrantReadWriteLock getLock(int stripe) {
+        purge();
+        while (true) {
+            StripeReference reference = stripes.get(stripe);
+            ReentrantReadWriteLock lock = reference == null ? null : reference.get();
+            if (lock != null) {
+                return lock;
+            }
+            ReentrantReadWriteLock created = new ReentrantReadWriteLock(fair);
+            StripeReference createdReference = new StripeReference(stripe, created, collected);
+            boolean installed = reference == null
+                    ? stripes.putIfAbsent(stripe, createdReference) == null
+                    : stripes.replace(stripe, reference, createdReference);
+            if (installed) {
+                return created;
+            }
+        }
+    }
+
+    /** GC 가 치운 lock 의 stripe 를 map 에서 지운다. */
+    private void purge() {
+        StripeReference reference;
+        while ((reference = (StripeReference) collected.poll()) != null) {
+            stripes.remove(reference.stripe, reference);
+        }
+    }
+
+    private static Lock lockOf(ReentrantReadWriteLock lock, LockMode mode) {
+        return mode == LockMode.READ ? lock.readLock() : lock.writeLock();
+    }
+
+    private TreeSet<Integer> stripesOf(List<String> lockKeys) {
+        TreeSet<Integer> result = new TreeSet<>();
+        for (String lockKey : lockKeys) {
+            result.add(stripeOf(lockKey));
+        }
+        return result;
+    }
+
+    private int stripeOf(String lockKey) {
+        int hash = lockKey.hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private static class HeldLock {
+        private final ReentrantReadWriteLock lock;
+        private int count;
+
+        HeldLock(ReentrantReadWriteLock lock) {
+            this.lock = lock;
+        }
+    }
+
+    private static class StripeReference extends WeakReference<ReentrantReadWriteLock> {
+        private final int stripe;
+
+        StripeReference(int stripe, ReentrantReadWriteLock lock, ReferenceQueue<ReentrantReadWriteLock> queue) {
+            super(lock, queue);
+            this.stripe = stripe;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 컨트롤러 메서드(요청 수 제한, lock 포함)와 lock 취득/해제 시간을 LatencyRecorder 에 기록한다.
+ * 컨트롤러 메서드는 메서드 이름(useBalance 등), lock 은 lock.write.acquire 같은 이름으로 남는다.
+ */
+@Aspect
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class LatencyAopAspect {
+    private static final Map<LockMode, String> ACQUIRE = operations(".acquire");
+    private static final Map<LockMode, String> RELEASE = operations(".release");
+
+    private final LatencyRecorder latencyRecorder;
+
+    @Around("within(com.example.account.controller..*) && execution(public * *(..))" +
+            " && !within(com.example.account.controller.LatencyController)")
+    public Object aroundController(ProceedingJoinPoint pjp) throws Throwable {
+        return proceed(pjp, pjp.getSignature().getName());
+    }
+
+    @Around("execution(* com.example.account.service.LockService.lock(..)) && args(*, mode, *)")
+    public Object aroundLock(ProceedingJoinPoint pjp, LockMode mode) throws Throwable {
+        return proceed(pjp, ACQUIRE.get(mode));
+    }
+
+    @Around("execution(* com.example.account.service.LockService.unlock(..)) && args(*, mode)")
+    public Object aroundUnlock(ProceedingJoinPoint pjp, LockMode mode) throws Throwable {
+        return proceed(pjp, RELEASE.get(mode));
+    }
+
+    private Object proceed(ProceedingJoinPoint pjp, String operation) throws Throwable {
+        long startedAt = System.nanoTime();
+        try {
+            return pjp.proceed();
+        } finally {
+            latencyRecorder.record(operation, System.nanoTime() - startedAt);
+        }
+    }
+
+    private static Map<LockMode, String> operations(String suffix) {
+        Map<LockMode, String> operations = new EnumMap<>(LockMode.class);
+        for (LockMode mode : LockMode.values()) {
+            operations.put(mode, "lock." + mode.name().toLowerCase() + suffix);
+        }
+        return operations;
+    }
+}
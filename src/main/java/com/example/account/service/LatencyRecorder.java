@@ -0,0 +1,82 @@
+package com.example.account.service;
+
+import com.example.account.dto.LatencyReport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 작업별 응답 시간을 HdrHistogram 에 기록한다.
+ * 기록은 Recorder 의 활성 histogram 에 값 하나를 더하는 것이라 lock 도, 할당도 없다.
+ * 조회할 때 Recorder 가 histogram 을 바꿔 끼우고 지난 구간(interval)을 넘겨주면 누적 histogram 에 더한다.
+ */
+@Component
+public class LatencyRecorder {
+    private static final long LOWEST_TRACKABLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    /** 이보다 긴 값은 이 값으로 기록한다. */
+    static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+
+    public void record(String operation, long nanos) {
+        Operation recorded = operations.get(operation);
+        if (recorded == null) {
+            recorded = operations.computeIfAbsent(operation, name -> new Operation());
+        }
+        recorded.recorder.recordValue(
+                Math.max(LOWEST_TRACKABLE_NANOS, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+    }
+
+    /** 지난 조회 이후 구간을 닫고, 작업 이름 순으로 interval/누적 분포를 돌려준다. */
+    public synchronized List<LatencyReport> report() {
+        List<LatencyReport> reports = new ArrayList<>();
+        operations.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    Operation operation = entry.getValue();
+                    operation.interval = operation.recorder.getIntervalHistogram(operation.interval);
+                    operation.cumulative.add(operation.interval);
+                    reports.add(LatencyReport.builder()
+                            .operation(entry.getKey())
+                            .interval(percentiles(operation.interval))
+                            .cumulative(percentiles(operation.cumulative))
+                            .build());
+                });
+        return reports;
+    }
+
+    private static LatencyReport.Percentiles percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return new LatencyReport.Percentiles();
+        }
+        return LatencyReport.Percentiles.builder()
+                .count(histogram.getTotalCount())
+                .p50(micros(histogram.getValueAtPercentile(50)))
+                .p90(micros(histogram.getValueAtPercentile(90)))
+                .p99(micros(histogram.getValueAtPercentile(99)))
+                .p999(micros(histogram.getValueAtPercentile(99.9)))
+                .max(micros(histogram.getMaxValue()))
+                .build();
+    }
+
+    private static double micros(long nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    private static class Operation {
+        private final Recorder recorder =
+                new Recorder(LOWEST_TRACKABLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        private final Histogram cumulative =
+                new Histogram(LOWEST_TRACKABLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        /** Recorder 에 돌려줘 다시 쓰는 histogram */
+        private Histogram interval;
+    }
+}
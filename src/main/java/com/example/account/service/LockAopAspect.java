@@ -1,34 +1,91 @@
 package com.example.account.service;
 
-import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.LockMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 @Aspect
 @Component
+@Order(2)
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
+    private static final Map<LockMode, String> HOLD = holdOperations();
+
     private final LockService lockService;
+    private final HotAccountService hotAccountService;
+    private final AccountLockKeyResolver accountLockKeyResolver;
+    private final ConnectionPoolGuard connectionPoolGuard;
+    private final LatencyRecorder latencyRecorder;
 
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    @Around("@annotation(accountLock)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
-            AccountLockIdInterface  request
+            AccountLock accountLock
             ) throws Throwable {
-        // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        List<String> lockIds = accountLockKeyResolver.resolve(
+                accountLock, ((MethodSignature) pjp.getSignature()).getMethod(), pjp.getArgs());
+
+        if (lockIds.size() > 1 || accountLock.mode() == LockMode.READ) {
+            // 여러 id 는 id 순서로 한 번에 lock, 읽기는 read lock
+            return proceedWithLock(pjp, lockIds, accountLock, null);
+        }
+
+        // hot 계좌는 계좌 lock 대신 slot lock
+        String accountNumber = lockIds.get(0);
+        String lockId = hotAccountService.resolveLockId(accountNumber);
         try{
-            return pjp.proceed();
+            return proceedWithLock(pjp, Collections.singletonList(lockId), accountLock, accountNumber);
         }finally {
-            // lock 해제
-            lockService.unlock(request.getAccountNumber());
+            hotAccountService.clearCurrentSlot();
+        }
+    }
 
+    /**
+     * hotAccountNumber 가 있으면 계좌 lock 을 잡은 상태에서 hot 계좌인지 확인한다.
+     * lock 을 잡은 채 connection 을 기다리지 않도록 connection 허가를 먼저 받는다. (account.lock.pool-guard)
+     */
+    private Object proceedWithLock(ProceedingJoinPoint pjp, List<String> lockIds,
+                                   AccountLock accountLock, String hotAccountNumber) throws Throwable {
+        long tryLockTime = connectionPoolGuard.reserve(accountLock.tryLockTime());
+        try{
+            // lock 취득 시도
+            lockService.lock(lockIds, accountLock.mode(), tryLockTime);
+            long lockedAt = System.nanoTime();
+            ConnectionPoolGuard.lockHeld(true);
+            try{
+                if (hotAccountNumber != null) {
+                    hotAccountService.splitIfHot(hotAccountNumber, lockIds.get(0));
+                }
+                return pjp.proceed();
+            }finally {
+                ConnectionPoolGuard.lockHeld(false);
+                // lock 해제
+                lockService.unlock(lockIds, accountLock.mode());
+                latencyRecorder.record(HOLD.get(accountLock.mode()), System.nanoTime() - lockedAt);
+            }
+        }finally {
+            connectionPoolGuard.release();
         }
     }
 
+    private static Map<LockMode, String> holdOperations() {
+        Map<LockMode, String> operations = new EnumMap<>(LockMode.class);
+        for (LockMode mode : LockMode.values()) {
+            operations.put(mode, "lock." + mode.name().toLowerCase() + ".hold");
+        }
+        return operations;
+    }
 }
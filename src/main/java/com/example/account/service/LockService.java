@@ -1,46 +1,294 @@
 package com.example.account.service;
 
+import com.example.account.aop.LockMode;
 import com.example.account.exception.AccountException;
+import com.example.account.jfr.AccountLockAcquireEvent;
 import com.example.account.type.ErrorCode;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    static final String LOCK_KEY_PREFIX = "ACLK:";
+    /** long 의 최대 자릿수 */
+    private static final int MAX_ACCOUNT_NUMBER_DIGITS = 19;
+    /** 계좌/slot lock key 를 만들어 두는 최대 개수. 넘으면 비우고 다시 채운다. */
+    static final int MAX_CACHED_LOCK_KEYS = 65_536;
+    /** 이 스레드가 write lock 으로 받은 fencing token (계좌번호 별) */
+    private static final ThreadLocal<FencingTokens> FENCING_TOKENS =
+            ThreadLocal.withInitial(FencingTokens::new);
 
-    public void lock(String accountNumber){
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("Trying lock for accountNumber : {}", accountNumber);
+    /** 요청마다 "ACLK:" 를 붙여 key 를 만들지 않도록 계좌/slot lock id 의 key 를 재사용한다. (거래 id 는 매번 달라 만들지 않는다) */
+    private final Map<String, String> lockKeyCache = new ConcurrentHashMap<>();
 
-        try{
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
+    private final AccountLockProvider accountLockProvider;
+    private final MeterRegistry meterRegistry;
+    /** -1 이면 고정 lease 없이 메서드가 끝날 때까지 watchdog 이 lease 를 늘린다. */
+    private final long leaseTimeMillis;
+    /** lock 저장소 오류로 실패했을 때 다시 시도하는 횟수 (첫 시도 포함) */
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public LockService(AccountLockProvider accountLockProvider,
+                       MeterRegistry meterRegistry,
+                       @Value("${account.lock.lease-time-ms:-1}") long leaseTimeMillis,
+                       @Value("${account.lock.retry.max-attempts:3}") int maxAttempts,
+                       @Value("${account.lock.retry.initial-backoff-ms:20}") long initialBackoffMillis,
+                       @Value("${account.lock.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.accountLockProvider = accountLockProvider;
+        this.meterRegistry = meterRegistry;
+        this.leaseTimeMillis = leaseTimeMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * lockIds 의 lock 을 한 번에 잡는다.
+     * 모든 요청이 id 순서로 잡으므로 서로 상대 계좌를 기다리는 교착이 생기지 않는다.
+     * tryLockTimeMillis 와 요청의 남은 시간({@link RequestDeadline}) 중 짧은 쪽까지 기다리고
+     * (이미 시간이 지난 요청은 lock 을 잡지 않는다),
+     * lock 저장소 오류는 남은 시간 안에서 jitter 를 준 backoff 로 maxAttempts 번까지 다시 시도한다.
+     * lock 을 못 잡으면 어떤 경우에도 예외로 끝나므로 lock 없이 실행되지 않는다.
+     * write lock 이면 계좌번호마다 fencing token 을 받아 두고, DB 쓰기에서 {@link #fencingToken} 으로 확인한다.
+     */
+    public void lock(List<String> lockIds, LockMode mode, long tryLockTimeMillis){
+        log.debug("Trying {} lock for : {}", mode, lockIds);
+        RequestDeadline.checkNotExpired();
+        List<String> lockKeys = getLockKeys(lockIds);
+        long waitMillis = Math.max(0, Math.min(tryLockTimeMillis, RequestDeadline.remainingMillis()));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+
+        AccountLockAcquireEvent event = new AccountLockAcquireEvent();
+        event.begin();
+        try {
+            boolean isLock;
+            for (int attempt = 1; ; attempt++) {
+                event.attempts = attempt;
+                try {
+                    isLock = accountLockProvider.tryLock(lockKeys, mode,
+                            attempt == 1 ? waitMillis : remainingMillis(deadline),
+                            leaseTimeMillis, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    count(event, mode, "interrupted");
+                    throw new AccountException(ErrorCode.LOCK_UNAVAILABLE);
+                } catch (RuntimeException e) {
+                    long backoffMillis = backoffMillis(attempt);
+                    if (attempt >= maxAttempts || backoffMillis >= remainingMillis(deadline)) {
+                        count(event, mode, "error");
+                        log.error("Account lock failed : {}", lockIds, e);
+                        throw new AccountException(ErrorCode.LOCK_UNAVAILABLE);
+                    }
+                    log.debug("Retrying {} lock for : {} ({})", mode, lockIds, e.getMessage());
+                    meterRegistry.counter("account.lock.retry", "mode", tag(mode)).increment();
+                    sleep(backoffMillis, mode, event);
+                }
+            }
             if(!isLock){
+                count(event, mode, "timeout");
                 throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
             }
+            count(event, mode, "acquired");
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.accountNumber = String.join(",", lockIds);
+                event.mode = mode.name();
+                event.provider = accountLockProvider.getClass().getSimpleName();
+                event.commit();
+            }
+        }
 
-        }catch (AccountException e){
-          throw e;
-        } catch (Exception e){
-            log.error("Redis lock failed", e);
+        if (mode == LockMode.WRITE) {
+            try {
+                issueFencingTokens(lockIds);
+            } catch (RuntimeException e) {
+                unlock(lockIds, mode);
+                throw e;
+            }
         }
+    }
 
+    public void unlock(List<String> lockIds, LockMode mode){
+        log.debug("Unlock {} lock for : {}", mode, lockIds);
+        FencingTokens tokens = FENCING_TOKENS.get();
+        for (String lockId : lockIds) {
+            if (isAccountNumber(lockId)) {
+                tokens.remove(Long.parseLong(lockId));
+            }
+        }
+        accountLockProvider.unlock(getLockKeys(lockIds), mode);
     }
 
-    public void unlock(String accountNumber){
-        log.debug("Unlock for accountNumber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    /** 이 스레드가 lockId 의 write lock 을 잡고 받은 fencing token */
+    public OptionalLong fencingToken(String lockId) {
+        return isAccountNumber(lockId) ? fencingToken(Long.parseLong(lockId)) : OptionalLong.empty();
     }
 
-    private String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    /** 이 스레드가 계좌번호의 write lock 을 잡고 받은 fencing token */
+    public OptionalLong fencingToken(long accountNumber) {
+        return FENCING_TOKENS.get().get(accountNumber);
+    }
+
+    /**
+     * DB 쓰기에서 확인하는 것은 계좌번호의 token 뿐이므로 거래 id, hot 계좌 slot 에는 발급하지 않는다.
+     * (거래마다 token 카운터가 남지 않도록)
+     */
+    private void issueFencingTokens(List<String> lockIds) {
+        FencingTokens tokens = FENCING_TOKENS.get();
+        for (String lockId : lockIds) {
+            if (isAccountNumber(lockId)) {
+                tokens.put(Long.parseLong(lockId), accountLockProvider.nextFencingToken(getLockKey(lockId)));
+            }
+        }
+    }
+
+    /** 계좌번호 lock id (숫자만). 거래 id 는 32자리 16진수, hot 계좌 slot 은 "계좌번호:slot" 이다. */
+    static boolean isAccountNumber(String lockId) {
+        int length = lockId.length();
+        if (length == 0 || length > MAX_ACCOUNT_NUMBER_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = lockId.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 계좌번호나 hot 계좌 slot("계좌번호:slot") lock id */
+    private static boolean isAccountLockId(String lockId) {
+        int separator = lockId.indexOf(':');
+        return isAccountNumber(separator < 0 ? lockId : lockId.substring(0, separator));
+    }
+
+    /** lock key 에서 lock id 를 꺼낸다. */
+    static String lockIdOf(String lockKey) {
+        return lockKey.startsWith(LOCK_KEY_PREFIX) ? lockKey.substring(LOCK_KEY_PREFIX.length()) : lockKey;
+    }
+
+    /** full jitter: 0 ~ min(max, initial * 2^(attempt-1)) 사이에서 고른다. */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private void sleep(long millis, LockMode mode, AccountLockAcquireEvent event) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count(event, mode, "interrupted");
+            throw new AccountException(ErrorCode.LOCK_UNAVAILABLE);
+        }
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    private void count(AccountLockAcquireEvent event, LockMode mode, String result) {
+        event.outcome = result;
+        meterRegistry.counter("account.lock.acquire", "mode", tag(mode), "result", result).increment();
+    }
+
+    private static String tag(LockMode mode) {
+        return mode.name().toLowerCase(Locale.ROOT);
+    }
+
+    /** 요청 대부분은 계좌 하나라 stream 없이 바로 만든다. 여러 id 는 중복을 빼고 id 순서로 잡는다. */
+    private List<String> getLockKeys(List<String> lockIds) {
+        if (lockIds.size() == 1) {
+            return Collections.singletonList(getLockKey(lockIds.get(0)));
+        }
+        TreeSet<String> sortedIds = new TreeSet<>(lockIds);
+        List<String> lockKeys = new ArrayList<>(sortedIds.size());
+        for (String lockId : sortedIds) {
+            lockKeys.add(getLockKey(lockId));
+        }
+        return lockKeys;
+    }
+
+    private String getLockKey(String lockId) {
+        String lockKey = lockKeyCache.get(lockId);
+        if (lockKey != null) {
+            return lockKey;
+        }
+        lockKey = LOCK_KEY_PREFIX + lockId;
+        if (isAccountLockId(lockId)) {
+            if (lockKeyCache.size() >= MAX_CACHED_LOCK_KEYS) {
+                lockKeyCache.clear();
+            }
+            lockKeyCache.put(lockId, lockKey);
+        }
+        return lockKey;
+    }
+
+    /**
+     * 한 요청이 write lock 으로 잡는 계좌는 많아야 둘(송금)이라 배열에서 찾는다.
+     * 계좌번호를 문자열이나 Long 으로 바꾸지 않고 token 을 찾는다.
+     */
+    static final class FencingTokens {
+        private long[] accountNumbers = new long[2];
+        private long[] tokens = new long[2];
+        private int size;
+
+        void put(long accountNumber, long token) {
+            int index = indexOf(accountNumber);
+            if (index < 0) {
+                if (size == accountNumbers.length) {
+                    accountNumbers = Arrays.copyOf(accountNumbers, size * 2);
+                    tokens = Arrays.copyOf(tokens, size * 2);
+                }
+                index = size++;
+                accountNumbers[index] = accountNumber;
+            }
+            tokens[index] = token;
+        }
+
+        OptionalLong get(long accountNumber) {
+            int index = indexOf(accountNumber);
+            return index < 0 ? OptionalLong.empty() : OptionalLong.of(tokens[index]);
+        }
+
+        void remove(long accountNumber) {
+            int index = indexOf(accountNumber);
+            if (index < 0) {
+                return;
+            }
+            size--;
+            accountNumbers[index] = accountNumbers[size];
+            tokens[index] = tokens[size];
+        }
+
+        private int indexOf(long accountNumber) {
+            for (int i = 0; i < size; i++) {
+                if (accountNumbers[i] == accountNumber) {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 
 }
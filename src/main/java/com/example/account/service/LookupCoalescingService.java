@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+/**
+ * 거래 확인, 계좌번호 조회를 single-flight 로 묶는다.
+ * webhook 재시도나 polling 으로 같은 id 를 동시에 조회하면 DB 조회는 한 번만 실행한다.
+ * 기다리는 요청이 DB connection 을 잡고 있지 않도록 트랜잭션 밖에서 묶는다.
+ */
+@Service
+public class LookupCoalescingService {
+
+    private final TransactionService transactionService;
+    private final AccountService accountService;
+    private final SingleFlight<String, TransactionDto> transactionLookups;
+    private final SingleFlight<Long, AccountDto> accountLookups;
+
+    public LookupCoalescingService(TransactionService transactionService,
+                                   AccountService accountService,
+                                   MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.accountService = accountService;
+        this.transactionLookups = new SingleFlight<>("transaction", meterRegistry);
+        this.accountLookups = new SingleFlight<>("account", meterRegistry);
+    }
+
+    /** 거래 확인 */
+    public TransactionDto queryTransaction(String transactionId) {
+        return transactionLookups.execute(transactionId,
+                () -> transactionService.queryTransaction(transactionId));
+    }
+
+    /** 계좌번호로 계좌 조회 */
+    public AccountDto getAccount(Long accountNumber) {
+        return accountLookups.execute(accountNumber,
+                () -> accountService.getAccount(accountNumber));
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.AccountStatus.UNREGISTERED;
+import static com.example.account.type.ErrorCode.*;
+
+/**
+ * 숫자 계좌번호 -> (계좌 id, 소유자 id, 잔액) 을 heap 밖 direct buffer 에 두는 open addressing hash 표.
+ * 계좌 하나가 long 4개(32 byte)이고 객체를 만들지 않으므로 계좌가 수백만 개여도 heap 과 GC 에 부담이 없다.
+ * 1. 추가는 드물어서 synchronized 로 하나씩 하고, 값을 다 쓴 뒤 key 를 release 로 써서 공개한다.
+ * 2. 조회는 lock 없이 key 를 acquire 로 읽으며 linear probing 으로 찾는다. 지우지 않으므로 tombstone 이 없다.
+ * 3. 잔액은 CAS 로 바꾼다. 해지한 계좌는 잔액 자리에 UNREGISTERED_BALANCE 를 두어 상태와 잔액을 한 번에 바꾼다.
+ * 표는 처음 정한 크기에서 늘어나지 않는다. (사용률 3/4 이하)
+ */
+public class OffHeapBalanceIndex {
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private static final int ENTRY_BYTES = 32;
+    private static final int KEY = 0;
+    private static final int ACCOUNT_ID = 8;
+    private static final int OWNER_ID = 16;
+    private static final int BALANCE = 24;
+    private static final long UNREGISTERED_BALANCE = Long.MIN_VALUE;
+
+    /** direct buffer 하나(2GB 미만)에 들어가는 최대 칸 수 */
+    static final int MAX_TABLE_SIZE = 1 << 25;
+
+    private final ByteBuffer table;
+    private final int mask;
+    private final int shift;
+    private final int maxEntries;
+    private volatile int size;
+
+    public OffHeapBalanceIndex(int maxEntries) {
+        long tableSize = Long.highestOneBit(Math.max(2, (long) maxEntries * 4 / 3 + 1) - 1) << 1;
+        if (maxEntries <= 0 || tableSize > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException("maxEntries must be between 1 and "
+                    + (MAX_TABLE_SIZE - 1) / 4 * 3 + " : " + maxEntries);
+        }
+        // CAS 는 8 byte 정렬된 위치에서만 쓸 수 있다.
+        this.table = ByteBuffer.allocateDirect((int) tableSize * ENTRY_BYTES + Long.BYTES)
+                .alignedSlice(Long.BYTES);
+        this.mask = (int) tableSize - 1;
+        this.shift = Long.SIZE - Long.numberOfTrailingZeros(tableSize);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 계좌를 넣는다. 이미 있으면 그대로 둔다. (먼저 넣은 쪽의 잔액이 이후 변경을 모두 담고 있다)
+     * @return 계좌 위치
+     */
+    public synchronized int putIfAbsent(long accountNumber, long accountId, long ownerId,
+                                        AccountStatus status, long balance) {
+        if (accountNumber <= 0) {
+            throw new IllegalArgumentException("accountNumber must be positive : " + accountNumber);
+        }
+        for (int index = indexOf(accountNumber); ; index = (index + 1) & mask) {
+            int entry = index * ENTRY_BYTES;
+            long key = (long) LONGS.get(table, entry + KEY);
+            if (key == accountNumber) {
+                return entry;
+            }
+            if (key == 0) {
+                if (size == maxEntries) {
+                    throw new IllegalStateException("Off-heap balance index is full : " + maxEntries);
+                }
+                LONGS.set(table, entry + ACCOUNT_ID, accountId);
+                LONGS.set(table, entry + OWNER_ID, ownerId);
+                LONGS.set(table, entry + BALANCE, status == IN_USE ? balance : UNREGISTERED_BALANCE);
+                LONGS.setRelease(table, entry + KEY, accountNumber);
+                size++;
+                return entry;
+            }
+        }
+    }
+
+    /** @return 계좌 위치, 없으면 -1 */
+    public int find(long accountNumber) {
+        if (accountNumber <= 0) {
+            return -1;
+        }
+        for (int index = indexOf(accountNumber); ; index = (index + 1) & mask) {
+            int entry = index * ENTRY_BYTES;
+            long key = (long) LONGS.getAcquire(table, entry + KEY);
+            if (key == accountNumber) {
+                return entry;
+            }
+            if (key == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /** 잔액이 충분할 때만 차감하고 차감한 뒤의 잔액을 돌려준다. */
+    public long debit(int entry, long amount) {
+        while (true) {
+            long balance = (long) LONGS.getVolatile(table, entry + BALANCE);
+            if (balance == UNREGISTERED_BALANCE) {
+                throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (balance < amount) {
+                throw new AccountException(AMOUNT_EXCEED_BALANCE);
+            }
+            if (LONGS.compareAndSet(table, entry + BALANCE, balance, balance - amount)) {
+                return balance - amount;
+            }
+        }
+    }
+
+    /** 충전하고 충전한 뒤의 잔액을 돌려준다. */
+    public long credit(int entry, long amount) {
+        if (amount < 0) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        while (true) {
+            long balance = (long) LONGS.getVolatile(table, entry + BALANCE);
+            if (balance == UNREGISTERED_BALANCE) {
+                throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (LONGS.compareAndSet(table, entry + BALANCE, balance, Math.addExact(balance, amount))) {
+                return balance + amount;
+            }
+        }
+    }
+
+    /** 잔액이 0 인 계좌만 해지한다. */
+    public void unregister(int entry) {
+        while (true) {
+            long balance = (long) LONGS.getVolatile(table, entry + BALANCE);
+            if (balance == UNREGISTERED_BALANCE) {
+                throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+            }
+            if (balance > 0) {
+                throw new AccountException(BALANCE_NOT_EMPTY);
+            }
+            if (LONGS.compareAndSet(table, entry + BALANCE, 0L, UNREGISTERED_BALANCE)) {
+                return;
+            }
+        }
+    }
+
+    /** 해지를 되돌린다. (잔액 0) */
+    public void reopen(int entry) {
+        LONGS.compareAndSet(table, entry + BALANCE, UNREGISTERED_BALANCE, 0L);
+    }
+
+    /** 잔액 (해지한 계좌는 0) */
+    public long balance(int entry) {
+        long balance = (long) LONGS.getVolatile(table, entry + BALANCE);
+        return balance == UNREGISTERED_BALANCE ? 0 : balance;
+    }
+
+    public AccountStatus status(int entry) {
+        return (long) LONGS.getVolatile(table, entry + BALANCE) == UNREGISTERED_BALANCE
+                ? UNREGISTERED : IN_USE;
+    }
+
+    public long accountId(int entry) {
+        return (long) LONGS.get(table, entry + ACCOUNT_ID);
+    }
+
+    public long ownerId(int entry) {
+        return (long) LONGS.get(table, entry + OWNER_ID);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long offHeapBytes() {
+        return table.capacity();
+    }
+
+    private int indexOf(long accountNumber) {
+        return (int) ((accountNumber * GOLDEN_RATIO) >>> shift);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionOutbox;
+import com.example.account.respository.TransactionOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * outbox relay
+ * 1. id 순서대로 배치를 읽어 sink 로 발행
+ * 2. 발행에 성공한 배치만 outbox 에서 삭제 (at-least-once)
+ * 발행이 실패하면 그 배치에서 멈추고 다음 주기에 같은 위치부터 다시 시도하므로 계좌별 순서가 유지된다.
+ * 여러 서버가 함께 돌면 같은 배치를 겹쳐 발행하거나 뒤 배치를 먼저 발행할 수 있으므로,
+ * 주기마다 {@link ScheduledJobLock} 을 잡은 서버만 발행한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelayService {
+    static final String RELAY_JOB = "outbox-relay";
+
+    private final TransactionOutboxRepository transactionOutboxRepository;
+    private final OutboxSink outboxSink;
+    private final ScheduledJobLock scheduledJobLock;
+
+    @Value("${account.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${account.outbox.relay.interval-ms:200}")
+    public void relay() {
+        scheduledJobLock.runExclusively(RELAY_JOB, this::drain);
+    }
+
+    private void drain() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    public int relayBatch() {
+        List<TransactionOutbox> events =
+                transactionOutboxRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            outboxSink.publish(events);
+        } catch (Exception e) {
+            log.warn("Outbox publish failed. {} events will be retried.", events.size(), e);
+            return 0;
+        }
+
+        transactionOutboxRepository.deleteAllByIdInBatch(
+                events.stream().map(TransactionOutbox::getId).collect(Collectors.toList())
+        );
+        return events.size();
+    }
+}
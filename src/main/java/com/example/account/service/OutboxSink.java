@@ -0,0 +1,13 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionOutbox;
+
+import java.util.List;
+
+/**
+ * outbox 이벤트 발행 대상
+ * 배치 단위로 순서대로 발행하고, 실패하면 예외를 던져 relay 가 같은 배치를 다시 시도하게 한다.
+ */
+public interface OutboxSink {
+    void publish(List<TransactionOutbox> events) throws Exception;
+}
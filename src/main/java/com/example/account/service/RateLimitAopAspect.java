@@ -0,0 +1,34 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.AccountUserIdInterface;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 요청 수 제한은 lock 을 잡기 전에 (LockAopAspect 바깥에서) 적용한다.
+ */
+@Aspect
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class RateLimitAopAspect {
+    private final RateLimitService rateLimitService;
+
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            AccountLockIdInterface request
+    ) throws Throwable {
+        rateLimitService.acquire(
+                request.getAccountNumber(),
+                request instanceof AccountUserIdInterface
+                        ? ((AccountUserIdInterface) request).getUserId() : null
+        );
+        return pjp.proceed();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.account.service;
+
+import com.example.account.exception.RateLimitException;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateIntervalUnit;
+import org.redisson.api.RateLimiterConfig;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌/사용자별 요청 수 제한
+ * lock 을 잡기 전에 토큰 버킷으로 초과 요청을 바로 거절한다.
+ * redis 버킷을 켜면 여러 서버가 계좌별 한도를 함께 쓴다.
+ */
+@Slf4j
+@Service
+public class RateLimitService {
+    private final RedissonClient redissonClient;
+
+    private final Map<Long, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Map<Long, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<Long, RedisLimiter> redisLimiters = new ConcurrentHashMap<>();
+
+    /** redis 버킷을 켜지 않으면 redis 에 연결하지 않도록 처음 쓸 때 만든다. */
+    public RateLimitService(@Lazy RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Value("${account.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${account.rate-limit.account.capacity:20}")
+    private long accountCapacity;
+
+    @Value("${account.rate-limit.account.refill-per-second:10}")
+    private double accountRefillPerSecond;
+
+    @Value("${account.rate-limit.user.capacity:50}")
+    private long userCapacity;
+
+    @Value("${account.rate-limit.user.refill-per-second:25}")
+    private double userRefillPerSecond;
+
+    @Value("${account.rate-limit.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    /**
+     * 이 시간 동안 쓰이지 않은 계좌의 redis key(RLMT:<계좌번호>)는 redis 가 지운다.
+     * 만료는 요청마다 늦추지 않고 정리 주기(evict-interval-ms)마다 그 사이 쓰인 계좌만 늦추므로 정리 주기보다 길어야 한다.
+     */
+    @Value("${account.rate-limit.redis.idle-ttl-ms:600000}")
+    private long redisIdleTtlMillis;
+
+    /**
+     * 모든 버킷에서 토큰을 얻어야 통과한다.
+     * 뒤 버킷에서 거절되면 앞에서 쓴 토큰은 돌려주므로 거절된 요청은 한도를 쓰지 않는다.
+     */
+    public void acquire(Long accountNumber, Long userId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+
+        TokenBucket accountBucket = accountBuckets.computeIfAbsent(accountNumber,
+                key -> new TokenBucket(accountCapacity, accountRefillPerSecond, now));
+        checkWait(accountBucket.tryAcquire(now));
+
+        TokenBucket userBucket = null;
+        if (userId != null) {
+            userBucket = userBuckets.computeIfAbsent(userId,
+                    key -> new TokenBucket(userCapacity, userRefillPerSecond, now));
+            long waitNanos = userBucket.tryAcquire(now);
+            if (waitNanos > 0) {
+                accountBucket.refund();
+                checkWait(waitNanos);
+            }
+        }
+
+        if (redisEnabled) {
+            RedisLimiter redisLimiter = redisLimiter(accountNumber);
+            RRateLimiter limiter = redisLimiter.limiter;
+            if (!limiter.tryAcquire()) {
+                accountBucket.refund();
+                if (userBucket != null) {
+                    userBucket.refund();
+                }
+                throw new RateLimitException(retryAfterSeconds(limiter));
+            }
+            // 만료는 정리 주기에 늦추고 요청마다 redis 를 한 번 더 부르지 않는다.
+            redisLimiter.used = true;
+        }
+    }
+
+    /**
+     * 가득 찬(한동안 쓰이지 않은) 버킷과 그 계좌의 redis limiter 정리
+     * 지난 정리 뒤 쓰인 redis limiter 는 key 의 만료를 늦춘다.
+     */
+    @Scheduled(fixedDelayString = "${account.rate-limit.evict-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        accountBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        for (RedisLimiter redisLimiter : redisLimiters.values()) {
+            if (redisLimiter.used) {
+                redisLimiter.used = false;
+                redisLimiter.limiter.expireAsync(Duration.ofMillis(redisIdleTtlMillis));
+            }
+        }
+        redisLimiters.keySet().retainAll(accountBuckets.keySet());
+    }
+
+    private void checkWait(long waitNanos) {
+        if (waitNanos > 0) {
+            throw new RateLimitException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                    waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+    }
+
+    /** redis limiter 는 rateInterval 안에서 rate 개를 허가하므로 늦어도 rateInterval 뒤에는 허가가 생긴다. */
+    private long retryAfterSeconds(RRateLimiter limiter) {
+        RateLimiterConfig config = limiter.getConfig();
+        if (config == null || config.getRateInterval() == null) {
+            return 1;
+        }
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(
+                config.getRateInterval() + TimeUnit.SECONDS.toMillis(1) - 1));
+    }
+
+    private RedisLimiter redisLimiter(Long accountNumber) {
+        return redisLimiters.computeIfAbsent(accountNumber, key -> {
+            RRateLimiter limiter = redissonClient.getRateLimiter("RLMT:" + key);
+            long permits = Math.max(1, (long) accountRefillPerSecond);
+            limiter.trySetRate(RateType.OVERALL, permits,
+                    rateIntervalMillis(permits, accountRefillPerSecond), RateIntervalUnit.MILLISECONDS);
+            limiter.expireAsync(Duration.ofMillis(redisIdleTtlMillis));
+            return new RedisLimiter(limiter);
+        });
+    }
+
+    /**
+     * redis limiter 는 정수 개의 허가만 받으므로 소수 한도(0.5/s, 2.5/s)는 간격을 늘려 맞춘다.
+     * ex) 0.5/s -> 2000ms 에 1개, 2.5/s -> 800ms 에 2개
+     */
+    static long rateIntervalMillis(long permits, double refillPerSecond) {
+        if (!(refillPerSecond > 0)) {
+            throw new IllegalStateException("refill-per-second must be positive: " + refillPerSecond);
+        }
+        return Math.max(1, Math.round(permits * 1000 / refillPerSecond));
+    }
+
+    private static class RedisLimiter {
+        private final RRateLimiter limiter;
+        private volatile boolean used;
+
+        private RedisLimiter(RRateLimiter limiter) {
+            this.limiter = limiter;
+        }
+    }
+}
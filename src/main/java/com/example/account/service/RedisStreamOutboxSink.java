@@ -0,0 +1,48 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionOutbox;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.stream.StreamAddArgs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "account.outbox.sink", havingValue = "redis-stream", matchIfMissing = true)
+public class RedisStreamOutboxSink implements OutboxSink {
+    private final RedissonClient redissonClient;
+
+    /** relay 는 시작 시 만들어지므로, redis 연결은 처음 발행할 때까지 미룬다. */
+    public RedisStreamOutboxSink(@Lazy RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Value("${account.outbox.stream-key:account:transactions}")
+    private String streamKey;
+
+    @Override
+    public void publish(List<TransactionOutbox> events) {
+        RStream<String, String> stream = redissonClient.getStream(streamKey);
+        for (TransactionOutbox event : events) {
+            stream.add(StreamAddArgs.entries(toEntries(event)));
+        }
+    }
+
+    private Map<String, String> toEntries(TransactionOutbox event) {
+        Map<String, String> entries = new HashMap<>();
+        entries.put("transactionId", event.getTransactionId());
+        entries.put("accountNumber", event.getAccountNumber());
+        entries.put("transactionType", event.getTransactionType().name());
+        entries.put("transactionResult", event.getTransactionResultType().name());
+        entries.put("amount", String.valueOf(event.getAmount()));
+        entries.put("balanceSnapshot", String.valueOf(event.getBalanceSnapshot()));
+        entries.put("transactedAt", String.valueOf(event.getTransactedAt()));
+        return entries;
+    }
+}
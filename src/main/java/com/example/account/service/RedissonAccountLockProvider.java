@@ -0,0 +1,78 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RLock;
+import org.redisson.api.RReadWriteLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 key 를 read/write 로 함께 쓰므로 모든 lock 을 RReadWriteLock 으로 잡는다.
+ * account.lock.fair 가 true 면 기다린 순서대로 lock 을 주는 RFairLock 을 쓴다.
+ * fair lock 에는 read lock 이 없으므로 이때는 읽기도 하나씩 처리된다.
+ * (같은 key 를 두 방식으로 함께 잡을 수 없으므로 모든 서버의 설정이 같아야 한다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "redisson", matchIfMissing = true)
+public class RedissonAccountLockProvider implements AccountLockProvider {
+    private final RedissonClient redissonClient;
+    private final boolean fair;
+
+    public RedissonAccountLockProvider(RedissonClient redissonClient,
+                                       @Value("${account.lock.fair:false}") boolean fair) {
+        this.redissonClient = redissonClient;
+        this.fair = fair;
+        if (fair) {
+            log.warn("account.lock.fair=true: redisson fair lock has no read lock, READ locks are exclusive");
+        }
+    }
+
+    @Override
+    public boolean tryLock(List<String> lockKeys, LockMode mode, long waitTime, long leaseTime, TimeUnit unit)
+            throws InterruptedException {
+        return getLock(lockKeys, mode).tryLock(waitTime, leaseTime, unit);
+    }
+
+    @Override
+    public void unlock(List<String> lockKeys, LockMode mode) {
+        getLock(lockKeys, mode).unlock();
+    }
+
+    @Override
+    public long nextFencingToken(String lockKey) {
+        // write lock 을 잡은 요청만 늘리므로 같은 key 에서 동시에 불리지 않는다.
+        RAtomicLong counter = redissonClient.getAtomicLong(lockKey + ":fence");
+        long token = counter.incrementAndGet();
+        long seed = FencingTokens.seed();
+        if (token < seed) {
+            counter.set(seed);
+            return seed;
+        }
+        return token;
+    }
+
+    private RLock getLock(List<String> lockKeys, LockMode mode) {
+        if (lockKeys.size() == 1) {
+            return getLock(lockKeys.get(0), mode);
+        }
+        return redissonClient.getMultiLock(lockKeys.stream()
+                .map(lockKey -> getLock(lockKey, mode))
+                .toArray(RLock[]::new));
+    }
+
+    private RLock getLock(String lockKey, LockMode mode) {
+        if (fair) {
+            return redissonClient.getFairLock(lockKey);
+        }
+        RReadWriteLock lock = redissonClient.getReadWriteLock(lockKey);
+        return mode == LockMode.READ ? lock.readLock() : lock.writeLock();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청을 끝내야 하는 시각. 요청을 처리하는 스레드에만 있다.
+ * lock 을 기다리는 시간처럼 요청 안에서 기다리는 작업은 남은 시간을 넘기지 않는다.
+ * 트랜잭션 timeout 과 JPA 쿼리 timeout 도 남은 시간으로 건다. (RequestDeadlineTransactionConfig)
+ */
+public final class RequestDeadline {
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(long budgetMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /** 다른 스레드에 넘길 이 요청의 deadline (System.nanoTime 기준). 없으면 null */
+    public static Long current() {
+        return DEADLINE_NANOS.get();
+    }
+
+    /** current() 로 받은 deadline 을 이 스레드에 건다. null 이면 지운다. */
+    public static void restore(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            DEADLINE_NANOS.remove();
+        } else {
+            DEADLINE_NANOS.set(deadlineNanos);
+        }
+    }
+
+    /**
+     * deadline 없이 실행한다. 시간이 지나 실패한 요청도 실패 거래는 남겨야 하는 경우처럼
+     * 요청이 끝나기 전에 꼭 해야 하는 정리 작업에 쓴다.
+     */
+    public static void runWithoutDeadline(Runnable task) {
+        Long deadlineNanos = DEADLINE_NANOS.get();
+        DEADLINE_NANOS.remove();
+        try {
+            task.run();
+        } finally {
+            restore(deadlineNanos);
+        }
+    }
+
+    /** 남은 시간 (ms). 요청 밖이라 deadline 이 없으면 Long.MAX_VALUE */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    /** deadline 이 있고 이미 지났으면 true */
+    public static boolean isExpired() {
+        Long deadline = DEADLINE_NANOS.get();
+        return deadline != null && deadline - System.nanoTime() <= 0;
+    }
+
+    /** 시간이 지난 요청은 응답을 읽을 곳이 없으므로 더 일하지 않고 끝낸다. */
+    public static void checkNotExpired() {
+        if (isExpired()) {
+            throw new AccountException(ErrorCode.REQUEST_TIMEOUT);
+        }
+    }
+}
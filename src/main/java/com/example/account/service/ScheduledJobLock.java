@@ -0,0 +1,75 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 서버에서 도는 스케줄 작업(outbox relay, 아카이브, 일 마감 스냅샷)을 한 서버만 실행하게 한다.
+ * 계좌 lock 과 같은 저장소(account.lock.provider)에 작업마다 "JOBL:작업이름" lock 을 기다리지 않고 잡아 본다.
+ * - database lock 은 계좌 lock 의 stripe row 를 나눠 쓰지 않고 작업마다 row 를 따로 쓴다.
+ *   lock 이 connection 을 하나 더 쓰므로 {@link ConnectionPoolGuard} 의 허가를 받고 잡는다.
+ * - in-process lock 은 서버 한 대라 저장소의 lock 없이 실행한다. (계좌 lock 과 stripe 를 나눠 쓰지 않도록)
+ */
+@Slf4j
+@Component
+public class ScheduledJobLock {
+    static final String JOB_LOCK_KEY_PREFIX = "JOBL:";
+    private static final String IN_PROCESS_LOCK_PROVIDER = "in-process";
+
+    private final AccountLockProvider accountLockProvider;
+    private final ConnectionPoolGuard connectionPoolGuard;
+    private final boolean singleServer;
+
+    public ScheduledJobLock(AccountLockProvider accountLockProvider,
+                            ConnectionPoolGuard connectionPoolGuard,
+                            @Value("${account.lock.provider:redisson}") String lockProvider) {
+        this.accountLockProvider = accountLockProvider;
+        this.connectionPoolGuard = connectionPoolGuard;
+        this.singleServer = IN_PROCESS_LOCK_PROVIDER.equals(lockProvider);
+    }
+
+    /** 다른 서버가 작업 중이면 실행하지 않고 false 를 돌려준다. */
+    public boolean runExclusively(String job, Runnable task) {
+        if (singleServer) {
+            task.run();
+            return true;
+        }
+        if (!connectionPoolGuard.tryReserve()) {
+            log.debug("No connection permit for scheduled job {}", job);
+            return false;
+        }
+        try {
+            List<String> lockKeys = lockKeys(job);
+            boolean locked;
+            try {
+                // redisson 은 작업이 끝날 때까지 watchdog 이 lease 를 늘린다.
+                locked = accountLockProvider.tryLock(lockKeys, LockMode.WRITE, 0, -1, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (!locked) {
+                log.debug("Scheduled job {} is running on another server", job);
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                accountLockProvider.unlock(lockKeys, LockMode.WRITE);
+            }
+        } finally {
+            connectionPoolGuard.release();
+        }
+    }
+
+    static List<String> lockKeys(String job) {
+        return Collections.singletonList(JOB_LOCK_KEY_PREFIX + job);
+    }
+}
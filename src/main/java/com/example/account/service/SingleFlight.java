@@ -0,0 +1,83 @@
+package com.example.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key 로 동시에 들어온 조회를 하나로 합친다.
+ * 먼저 들어온 요청(leader)만 loader 를 실행하고, 실행 중에 들어온 요청(follower)은
+ * leader 의 CompletableFuture 결과를 함께 받는다.
+ * 결과를 캐시하지는 않으므로 조회가 끝난 뒤 들어온 요청은 다시 실행한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.executed = Counter.builder("account.lookup.single-flight")
+                .tag("lookup", name)
+                .tag("result", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("account.lookup.single-flight")
+                .tag("lookup", name)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("account.lookup.single-flight.coalescing-ratio", this, SingleFlight::coalescingRatio)
+                .tag("lookup", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+
+        executed.increment();
+        try {
+            future.complete(loader.get());
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+        return join(future);
+    }
+
+    /** 전체 요청 중 다른 요청의 결과를 받아 간 비율 */
+    public double coalescingRatio() {
+        double total = executed.count() + coalesced.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // leader 에서 발생한 예외(AccountException 등)를 그대로 전달
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
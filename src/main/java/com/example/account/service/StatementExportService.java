@@ -0,0 +1,168 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.type.StatementFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+
+/**
+ * 계좌 거래 내역서 내보내기
+ * 거래를 엔티티로 읽지 않고 forward-only JDBC cursor 에서 fetch-size 개씩 받아
+ * 바로 gzip 으로 압축해 쓰므로 기간이 길어도 메모리 사용량이 일정하다.
+ * 1년이 지나 아카이브로 옮긴 거래는 hot 테이블에 없으므로 포함되지 않는다.
+ */
+@Slf4j
+@Service
+public class StatementExportService {
+    static final String CSV_HEADER =
+            "transactionId,transactionType,transactionResultType,amount,balanceSnapshot,transactedAt";
+    private static final String SELECT_SQL =
+            "select t.transaction_id, t.transaction_type, t.transaction_result_type, t.amount, " +
+                    "t.balance_snapshot, t.transacted_at " +
+                    "from transaction t join account a on a.id = t.account_id " +
+                    "where a.account_number = ? and t.transacted_at >= ? and t.transacted_at < ? " +
+                    "order by t.transacted_at, t.id";
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+
+    public StatementExportService(AccountRepository accountRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${account.export.fetch-size:1000}") int fetchSize) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL 은 트랜잭션 안에서만 cursor 로 나눠 받는다.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    /** 응답을 쓰기 시작하기 전에 없는 계좌를 걸러낸다. */
+    public void validateAccount(Long accountNumber) {
+        if (!accountRepository.existsByAccountNumber(accountNumber)) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        }
+    }
+
+    /**
+     * [from, to) 기간의 거래를 거래 시각 순서로 gzip 압축해 out 에 쓴다. out 은 닫지 않는다.
+     * @return 쓴 거래 수
+     */
+    public long export(Long accountNumber, LocalDateTime from, LocalDateTime to,
+                       StatementFormat format, OutputStream out) throws IOException {
+        long startedAt = System.nanoTime();
+        GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out), 64 * 1024);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == StatementFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long[] rows = new long[1];
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, accountNumber);
+                statement.setTimestamp(2, Timestamp.valueOf(from));
+                statement.setTimestamp(3, Timestamp.valueOf(to));
+                return statement;
+            }, resultSet -> {
+                try {
+                    writeRow(writer, resultSet, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            // 받는 쪽이 연결을 끊은 경우
+            throw e.getCause();
+        }
+        writer.flush();
+        gzip.finish();
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        log.info("Exported {} transactions of {} in {} ms ({} rows/s)",
+                rows[0], accountNumber, elapsedNanos / 1_000_000,
+                Math.round(rows[0] * 1_000_000_000.0 / Math.max(1, elapsedNanos)));
+        return rows[0];
+    }
+
+    private static void writeRow(Writer writer, ResultSet resultSet, StatementFormat format)
+            throws SQLException, IOException {
+        String transactionId = resultSet.getString(1);
+        String transactionType = resultSet.getString(2);
+        String resultType = resultSet.getString(3);
+        long amount = resultSet.getLong(4);
+        long balanceSnapshot = resultSet.getLong(5);
+        String transactedAt = resultSet.getTimestamp(6).toLocalDateTime().toString();
+
+        // 값은 모두 16진수 id, enum 이름, 숫자, 시각이라 따로 escape 하지 않는다.
+        if (format == StatementFormat.CSV) {
+            writer.write(transactionId);
+            writer.write(',');
+            writer.write(transactionType);
+            writer.write(',');
+            writer.write(resultType);
+            writer.write(',');
+            writer.write(Long.toString(amount));
+            writer.write(',');
+            writer.write(Long.toString(balanceSnapshot));
+            writer.write(',');
+            writer.write(transactedAt);
+        } else {
+            writer.write("{\"transactionId\":\"");
+            writer.write(transactionId);
+            writer.write("\",\"transactionType\":\"");
+            writer.write(transactionType);
+            writer.write("\",\"transactionResultType\":\"");
+            writer.write(resultType);
+            writer.write("\",\"amount\":");
+            writer.write(Long.toString(amount));
+            writer.write(",\"balanceSnapshot\":");
+            writer.write(Long.toString(balanceSnapshot));
+            writer.write(",\"transactedAt\":\"");
+            writer.write(transactedAt);
+            writer.write("\"}");
+        }
+        writer.write('\n');
+    }
+
+    /** gzip 을 끝내도 응답/파일 스트림은 호출한 쪽이 닫는다. */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
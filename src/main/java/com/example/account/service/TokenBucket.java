@@ -0,0 +1,53 @@
+package com.example.account.service;
+
+/**
+ * 로컬 토큰 버킷
+ * 요청마다 토큰 하나를 쓰고, 시간이 지나면 초당 refillPerSecond 개씩 capacity 까지 채워진다.
+ */
+public class TokenBucket {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 토큰을 얻으면 0, 아니면 다음 토큰이 생길 때까지 남은 시간(ns)
+     */
+    public synchronized long tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+
+    /** 다른 버킷에서 거절된 요청이 쓴 토큰을 돌려준다. */
+    public synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /** 가득 찬 버킷은 없어도 결과가 같으므로 정리해도 된다. */
+    public synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * 거래 아카이브 파일 (월마다 아카이브 작업의 chunk 하나가 파일 하나)
+ * gzip 으로 압축하고, 행 단위가 아니라 컬럼 단위로 저장한다. transactionId 컬럼이 맨 앞에 있다.
+ * gzip 은 앞에서부터 풀어야 하므로 조회할 때도 찾은 행 앞뒤의 값을 모두 풀어 지나간다.
+ * 그래서 파일 옆에 transactionId 의 bloom filter(.bloom)를 함께 두고, 없는 거래는 파일을 열지 않는다.
+ * 파일은 임시 파일에 쓰고 fsync 한 뒤 이름을 바꾸고 디렉토리도 fsync 하므로, write 가 돌아오면 디스크에 남아 있다.
+ */
+public final class TransactionArchiveFile {
+    private static final int MAGIC = 0x54584152; // "TXAR"
+    private static final short VERSION = 1;
+    private static final int FILTER_MAGIC = 0x54584246; // "TXBF"
+    private static final String FILTER_SUFFIX = ".bloom";
+    private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+    private static final TransactionResultType[] RESULT_TYPES = TransactionResultType.values();
+
+    private TransactionArchiveFile() {
+    }
+
+    @Getter
+    @Builder
+    @AllArgsConstructor
+    public static class Row {
+        private String transactionId;
+        private String accountNumber;
+        private TransactionType transactionType;
+        private TransactionResultType transactionResultType;
+        private long amount;
+        private long balanceSnapshot;
+        private LocalDateTime transactedAt;
+        private String parentTransactionId;
+
+        public static Row from(Transaction transaction) {
+            return Row.builder()
+                    .transactionId(transaction.getTransactionId())
+                    .accountNumber(String.valueOf(transaction.getAccount().getAccountNumber()))
+                    .transactionType(transaction.getTransactionType())
+                    .transactionResultType(transaction.getTransactionResultType())
+                    .amount(transaction.getAmount())
+                    .balanceSnapshot(transaction.getBalanceSnapshot())
+                    .transactedAt(transaction.getTransactedAt())
+                    .parentTransactionId(transaction.getParent() == null
+                            ? null : transaction.getParent().getTransactionId())
+                    .build();
+        }
+
+        public TransactionDto toDto() {
+            return TransactionDto.builder()
+                    .accountNumber(Long.valueOf(accountNumber))
+                    .transactionType(transactionType)
+                    .transactionResultType(transactionResultType)
+                    .amount(amount)
+                    .balanceSnapshot(balanceSnapshot)
+                    .transactionId(transactionId)
+                    .transactedAt(transactedAt)
+                    .build();
+        }
+    }
+
+    /**
+     * bloom filter 를 먼저 쓰고 아카이브를 바꾼다.
+     * 중간에 실패해도 filter 에는 아카이브의 모든 거래가 들어 있다. (없는 거래를 있다고 할 수는 있어도 반대는 없다)
+     */
+    public static void write(Path path, List<Row> rows) throws IOException {
+        IdFilter filter = new IdFilter(rows.size());
+        rows.forEach(row -> filter.add(row.getTransactionId()));
+        writeFilter(path, filter);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(rows.size());
+
+            for (Row row : rows) out.writeUTF(row.getTransactionId());
+            for (Row row : rows) out.writeUTF(row.getAccountNumber());
+            for (Row row : rows) out.writeByte(row.getTransactionType().ordinal());
+            for (Row row : rows) out.writeByte(row.getTransactionResultType().ordinal());
+            for (Row row : rows) out.writeLong(row.getAmount());
+            for (Row row : rows) out.writeLong(row.getBalanceSnapshot());
+            for (Row row : rows) out.writeLong(row.getTransactedAt().toEpochSecond(ZoneOffset.UTC));
+            for (Row row : rows) out.writeInt(row.getTransactedAt().getNano());
+            for (Row row : rows) out.writeUTF(row.getParentTransactionId() == null
+                    ? "" : row.getParentTransactionId());
+        }
+        moveDurably(temp, path);
+    }
+
+    public static List<Row> readAll(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            int count = readHeader(in, path);
+            String[] transactionIds = new String[count];
+            for (int i = 0; i < count; i++) transactionIds[i] = in.readUTF();
+            return readRows(in, transactionIds, count);
+        }
+    }
+
+    /** 아카이브의 bloom filter. 없으면(이전에 쓴 파일) transactionId 컬럼으로 만들어 저장한다. */
+    public static IdFilter readFilter(Path path) throws IOException {
+        Path filterPath = filterPath(path);
+        if (Files.exists(filterPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(filterPath)))) {
+                if (in.readInt() != FILTER_MAGIC || in.readShort() != VERSION) {
+                    throw new IOException("Not a transaction archive filter : " + filterPath);
+                }
+                long[] bits = new long[in.readInt()];
+                for (int i = 0; i < bits.length; i++) bits[i] = in.readLong();
+                return new IdFilter(bits);
+            }
+        }
+        IdFilter filter;
+        try (DataInputStream in = open(path)) {
+            int count = readHeader(in, path);
+            filter = new IdFilter(count);
+            for (int i = 0; i < count; i++) filter.add(in.readUTF());
+        }
+        writeFilter(path, filter);
+        return filter;
+    }
+
+    public static Path filterPath(Path path) {
+        String fileName = path.getFileName().toString();
+        return path.resolveSibling(fileName.substring(0, fileName.lastIndexOf('.')) + FILTER_SUFFIX);
+    }
+
+    private static void writeFilter(Path path, IdFilter filter) throws IOException {
+        Path filterPath = filterPath(path);
+        Path temp = filterPath.resolveSibling(filterPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILTER_MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(filter.bits.length);
+            for (long word : filter.bits) out.writeLong(word);
+        }
+        moveDurably(temp, filterPath);
+    }
+
+    /** 임시 파일을 디스크에 내린 뒤 이름을 바꾸고, 바뀐 이름도 디스크에 남도록 디렉토리를 fsync 한다. */
+    private static void moveDurably(Path temp, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+        Path dir = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 디렉토리를 열 수 없는 OS(Windows)는 건너뛴다.
+            if (!System.getProperty("os.name", "").startsWith("Windows")) {
+                throw e;
+            }
+        }
+    }
+
+    public static Optional<Row> find(Path path, String transactionId) throws IOException {
+        try (DataInputStream in = open(path)) {
+            int count = readHeader(in, path);
+            String[] transactionIds = new String[count];
+            int index = -1;
+            for (int i = 0; i < count; i++) {
+                transactionIds[i] = in.readUTF();
+                if (index < 0 && transactionIds[i].equals(transactionId)) {
+                    index = i;
+                }
+            }
+            if (index < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(readRows(in, transactionIds, index + 1).get(index));
+        }
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))));
+    }
+
+    private static int readHeader(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("Not a transaction archive : " + path);
+        }
+        return in.readInt();
+    }
+
+    /** transactionId 다음 컬럼들을 앞에서부터 limit 개 행까지만 읽는다. */
+    private static List<Row> readRows(DataInputStream in, String[] transactionIds, int limit)
+            throws IOException {
+        int count = transactionIds.length;
+        String[] accountNumbers = new String[limit];
+        byte[] transactionTypes = new byte[limit];
+        byte[] resultTypes = new byte[limit];
+        long[] amounts = new long[limit];
+        long[] balanceSnapshots = new long[limit];
+        long[] epochSeconds = new long[limit];
+        int[] nanos = new int[limit];
+        String[] parentIds = new String[limit];
+
+        for (int i = 0; i < count; i++) { String v = in.readUTF(); if (i < limit) accountNumbers[i] = v; }
+        for (int i = 0; i < count; i++) { byte v = in.readByte(); if (i < limit) transactionTypes[i] = v; }
+        for (int i = 0; i < count; i++) { byte v = in.readByte(); if (i < limit) resultTypes[i] = v; }
+        for (int i = 0; i < count; i++) { long v = in.readLong(); if (i < limit) amounts[i] = v; }
+        for (int i = 0; i < count; i++) { long v = in.readLong(); if (i < limit) balanceSnapshots[i] = v; }
+        for (int i = 0; i < count; i++) { long v = in.readLong(); if (i < limit) epochSeconds[i] = v; }
+        for (int i = 0; i < count; i++) { int v = in.readInt(); if (i < limit) nanos[i] = v; }
+        for (int i = 0; i < limit; i++) parentIds[i] = in.readUTF();
+
+        List<Row> rows = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            rows.add(Row.builder()
+                    .transactionId(transactionIds[i])
+                    .accountNumber(accountNumbers[i])
+                    .transactionType(TRANSACTION_TYPES[transactionTypes[i]])
+                    .transactionResultType(RESULT_TYPES[resultTypes[i]])
+                    .amount(amounts[i])
+                    .balanceSnapshot(balanceSnapshots[i])
+                    .transactedAt(LocalDateTime.ofEpochSecond(epochSeconds[i], nanos[i], ZoneOffset.UTC))
+                    .parentTransactionId(parentIds[i].isEmpty() ? null : parentIds[i])
+                    .build());
+        }
+        return rows;
+    }
+
+    /** transactionId 의 bloom filter. id 하나에 10 bit, hash 7개 (오탐 약 1%) */
+    public static final class IdFilter {
+        private static final int BITS_PER_ID = 10;
+        private static final int HASHES = 7;
+        private final long[] bits;
+
+        IdFilter(int expectedIds) {
+            this(new long[Math.max(1, (int) ((long) expectedIds * BITS_PER_ID + 63) / 64)]);
+        }
+
+        private IdFilter(long[] bits) {
+            this.bits = bits;
+        }
+
+        void add(String transactionId) {
+            long numBits = (long) bits.length * 64;
+            long h1 = hash1(transactionId);
+            long h2 = hash2(transactionId);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        /** false 면 아카이브에 없는 거래 */
+        public boolean mightContain(String transactionId) {
+            long numBits = (long) bits.length * 64;
+            long h1 = hash1(transactionId);
+            long h2 = hash2(transactionId);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash1(String value) {
+            long h = value.hashCode() * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+
+        /** FNV-1a. 홀수로 만들어 h1 과 함께 서로 다른 위치를 고르게 한다. */
+        private static long hash2(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h | 1L;
+        }
+    }
+}
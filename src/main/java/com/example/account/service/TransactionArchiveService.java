@@ -0,0 +1,227 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.respository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 거래 아카이브
+ * 1년이 지난 거래는 취소가 불가능(TOO_OLD_ORDER_TO_CANCEL)하므로 변경되지 않는다.
+ * 취소 가능 기간이 지난 달의 거래를 chunk 단위로 읽어 파일로 옮기고 hot 테이블에서 삭제한다.
+ * chunk 마다 트랜잭션 하나로 파일을 디스크에 내린 뒤에 삭제하므로, 중간에 멈춰도 옮기지 못한 거래는 hot 테이블에 남는다.
+ * 파일 이름은 chunk 의 첫 거래 id 로 정해서 삭제가 실패해 다시 옮기면 같은 파일을 덮어쓴다.
+ * 삭제한 거래는 모든 서버가 아카이브에서 찾아야 하므로 account.archive.dir 은 모든 서버가 함께 쓰는 저장소(NFS 등)여야 한다.
+ * account.archive.shared-storage 로 함께 쓰는 저장소라고 알려 주지 않으면 (서버 한 대인 in-process lock 이 아닌 한) 옮기지 않는다.
+ * 여러 서버 중 {@link ScheduledJobLock} 을 잡은 서버만 옮긴다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionArchiveService {
+    static final String ARCHIVE_JOB = "transaction-archive";
+    private static final String FILE_PREFIX = "transaction-";
+    private static final String FILE_SUFFIX = ".arc.gz";
+    private static final String IN_PROCESS_LOCK_PROVIDER = "in-process";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledJobLock scheduledJobLock;
+    private final ConcurrentMap<Path, CachedFilter> filters = new ConcurrentHashMap<>();
+
+    @Value("${account.archive.dir:build/archive}")
+    private String archiveDir;
+
+    @Value("${account.archive.shared-storage:false}")
+    private boolean sharedStorage;
+
+    @Value("${account.lock.provider:redisson}")
+    private String lockProvider;
+
+    @Value("${account.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${account.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        if (!sharedStorage && !IN_PROCESS_LOCK_PROVIDER.equals(lockProvider)) {
+            log.warn("Skipping transaction archive: {} is not declared as shared storage "
+                    + "(account.archive.shared-storage)", archiveDir);
+            return;
+        }
+        scheduledJobLock.runExclusively(ARCHIVE_JOB, this::archiveExpiredMonths);
+    }
+
+    private void archiveExpiredMonths() {
+        LocalDateTime cutoff = archiveCutoff(LocalDateTime.now());
+
+        Optional<Transaction> oldest = transactionRepository.findFirstByOrderByTransactedAtAsc();
+        if (oldest.isEmpty()) {
+            return;
+        }
+
+        YearMonth month = YearMonth.from(oldest.get().getTransactedAt());
+        while (month.atDay(1).atStartOfDay().isBefore(cutoff)) {
+            archiveMonth(month, cutoff);
+            month = month.plusMonths(1);
+        }
+    }
+
+    /** 취소 가능 기간(1년)이 통째로 지난 달의 시작 */
+    public LocalDateTime archiveCutoff(LocalDateTime now) {
+        return YearMonth.from(now.minusYears(1)).atDay(1).atStartOfDay();
+    }
+
+    /** month 의 거래를 id 순서로 chunkSize 개씩 옮긴다. */
+    public void archiveMonth(YearMonth month, LocalDateTime cutoff) {
+        long afterId = 0L;
+        int archived = 0;
+        while (true) {
+            long from = afterId;
+            ArchivedChunk chunk = transactionTemplate.execute(status -> archiveChunk(month, cutoff, from));
+            if (chunk == null) {
+                break;
+            }
+            archived += chunk.archived;
+            afterId = chunk.lastId;
+        }
+        if (archived > 0) {
+            log.info("Archived {} transactions of {}", archived, month);
+        }
+    }
+
+    /** afterId 다음 chunk 하나를 파일로 옮기고 삭제한다. 읽은 거래가 없으면 null */
+    private ArchivedChunk archiveChunk(YearMonth month, LocalDateTime cutoff, long afterId) {
+        List<Transaction> transactions = transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        month.atDay(1).atStartOfDay(),
+                        month.plusMonths(1).atDay(1).atStartOfDay(),
+                        afterId, PageRequest.of(0, chunkSize));
+        if (transactions.isEmpty()) {
+            return null;
+        }
+        long lastId = transactions.get(transactions.size() - 1).getId();
+
+        // 취소 거래가 아직 hot 테이블에 남아야 하는 원거래는 다음 번에 함께 옮긴다.
+        // 취소 거래는 (다음 달에 있어도) 원거래와 함께 옮겨서 원거래만 먼저 삭제하지 않는다.
+        Map<Long, Transaction> parents = new LinkedHashMap<>();
+        Map<Long, Transaction> children = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            Transaction child = transaction.getChild();
+            if (child != null && !child.getTransactedAt().isBefore(cutoff)) {
+                continue;
+            }
+            if (transaction.getParent() != null) {
+                children.put(transaction.getId(), transaction);
+            } else {
+                parents.put(transaction.getId(), transaction);
+                if (child != null) {
+                    children.put(child.getId(), child);
+                }
+            }
+        }
+        if (parents.isEmpty() && children.isEmpty()) {
+            return new ArchivedChunk(lastId, 0);
+        }
+
+        Map<YearMonth, List<TransactionArchiveFile.Row>> rowsByMonth = new TreeMap<>();
+        for (Map<Long, Transaction> group : Arrays.asList(parents, children)) {
+            for (Transaction transaction : group.values()) {
+                rowsByMonth.computeIfAbsent(YearMonth.from(transaction.getTransactedAt()),
+                                key -> new ArrayList<>())
+                        .add(TransactionArchiveFile.Row.from(transaction));
+            }
+        }
+        long firstId = transactions.get(0).getId();
+        rowsByMonth.forEach((rowMonth, rows) -> writeArchive(archivePath(rowMonth, firstId), rows));
+
+        // 파일을 디스크에 내린 뒤 삭제한다. 취소 거래가 원거래를 참조하므로 취소 거래부터 삭제
+        transactionRepository.deleteAllByIdInBatch(new ArrayList<>(children.keySet()));
+        transactionRepository.deleteAllByIdInBatch(new ArrayList<>(parents.keySet()));
+        return new ArchivedChunk(lastId, parents.size() + children.size());
+    }
+
+    /** 아카이브 파일에서 거래 조회 (최근 달부터). bloom filter 에 없는 파일은 열지 않는다. */
+    public Optional<TransactionDto> find(String transactionId) {
+        Path dir = Paths.get(archiveDir);
+        if (!Files.isDirectory(dir)) {
+            return Optional.empty();
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+            files.sort(Comparator.reverseOrder());
+
+            for (Path file : files) {
+                if (!filter(file).mightContain(transactionId)) {
+                    continue;
+                }
+                Optional<TransactionArchiveFile.Row> row = TransactionArchiveFile.find(file, transactionId);
+                if (row.isPresent()) {
+                    return row.map(TransactionArchiveFile.Row::toDto);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive " + dir, e);
+        }
+        return Optional.empty();
+    }
+
+    /** 파일마다 bloom filter 를 한 번 읽어 두고, filter 파일이 바뀌면(월 아카이브를 다시 쓰면) 다시 읽는다. */
+    private TransactionArchiveFile.IdFilter filter(Path file) throws IOException {
+        Path filterPath = TransactionArchiveFile.filterPath(file);
+        long modified = Files.exists(filterPath) ? Files.getLastModifiedTime(filterPath).toMillis() : -1L;
+        CachedFilter cached = filters.get(file);
+        if (cached != null && cached.modified == modified) {
+            return cached.filter;
+        }
+        TransactionArchiveFile.IdFilter filter = TransactionArchiveFile.readFilter(file);
+        filters.put(file, new CachedFilter(Files.getLastModifiedTime(filterPath).toMillis(), filter));
+        return filter;
+    }
+
+    private void writeArchive(Path path, List<TransactionArchiveFile.Row> rows) {
+        try {
+            Files.createDirectories(path.getParent());
+            TransactionArchiveFile.write(path, rows);
+            filters.remove(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive " + path, e);
+        }
+    }
+
+    /** 달과 chunk 의 첫 거래 id 로 정한 파일 (같은 chunk 를 다시 옮기면 같은 파일) */
+    private Path archivePath(YearMonth month, long chunkId) {
+        return Paths.get(archiveDir, FILE_PREFIX + month + "-" + String.format("%019d", chunkId) + FILE_SUFFIX);
+    }
+
+    @RequiredArgsConstructor
+    private static class ArchivedChunk {
+        private final long lastId;
+        private final int archived;
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedFilter {
+        private final long modified;
+        private final TransactionArchiveFile.IdFilter filter;
+    }
+}
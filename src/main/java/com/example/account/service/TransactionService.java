@@ -3,10 +3,14 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionOutbox;
 import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
+import com.example.account.jfr.BalanceMutationEvent;
+import com.example.account.jfr.TransactionInsertEvent;
 import com.example.account.respository.AccountRepository;
 import com.example.account.respository.AccountUserRepository;
+import com.example.account.respository.TransactionOutboxRepository;
 import com.example.account.respository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.TransactionResultType;
@@ -14,17 +18,21 @@ import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static com.example.account.type.ErrorCode.*;
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
-import static com.example.account.type.TransactionType.CANCEL;
-import static com.example.account.type.TransactionType.USE;
+import static com.example.account.type.TransactionType.*;
 
 @Slf4j
 @Service
@@ -35,25 +43,98 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionOutboxRepository transactionOutboxRepository;
+    private final TransactionArchiveService transactionArchiveService;
+    private final BalanceSlotService balanceSlotService;
+    private final HotAccountService hotAccountService;
+    private final LockService lockService;
+    private final InMemoryLedgerService inMemoryLedgerService;
 
     /** 잔액 사용 */
-    public TransactionDto useBalance(Long userId, String accountNumber,
+    public TransactionDto useBalance(Long userId, Long accountNumber,
                                      Long amount) {
+        BalanceMutationEvent event = BalanceMutationEvent.begin("USE", accountNumber, amount);
+        try {
+            fence(accountNumber);
 
-        AccountUser user = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+            AccountUser user = getUser(userId, accountNumber);
+            Account account = getAccount(accountNumber);
+
+            validateUseBalance(user, account, amount);
+
+            debit(account, amount);
+
+            return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, amount, account));
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commitIfEnabled();
+        }
+    }
 
-        validateUseBalance(user, account, amount);
+    /**
+     * 잔액 사용 여러 건을 한 트랜잭션에서 처리한다. (group commit, {@link GroupCommitService})
+     * 계좌 조회가 앞 건의 변경을 중간에 flush 하지 않도록 fencing, 조회, 변경을 단계별로 모아서 하므로
+     * 거래 저장과 계좌 변경은 commit 할 때 JDBC batch 로 나간다.
+     * fencing 이나 검증에 실패한 건은 아무것도 바꾸지 않고 그 건만 실패로 남긴다.
+     * 바꾸는 중에 실패하면 그대로 던져 묶음 전체를 되돌린다.
+     */
+    public void useBalances(List<GroupCommitService.PendingUse> uses) {
+        AccountUser[] users = new AccountUser[uses.size()];
+        Account[] accounts = new Account[uses.size()];
 
-        account.useBalance(amount);
+        for (GroupCommitService.PendingUse use : uses) {
+            try {
+                fence(use.getAccountNumber(), use.getFencingToken());
+            } catch (AccountException e) {
+                use.failed(e);
+            }
+        }
+
+        for (int i = 0; i < uses.size(); i++) {
+            GroupCommitService.PendingUse use = uses.get(i);
+            if (use.isDone()) {
+                continue;
+            }
+            try {
+                users[i] = getUser(use.getUserId(), use.getAccountNumber());
+                accounts[i] = getAccount(use.getAccountNumber());
+            } catch (AccountException e) {
+                use.failed(e);
+            }
+        }
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, amount, account));
+        for (int i = 0; i < uses.size(); i++) {
+            GroupCommitService.PendingUse use = uses.get(i);
+            if (use.isDone()) {
+                continue;
+            }
+            BalanceMutationEvent event = BalanceMutationEvent.begin("USE", use.getAccountNumber(), use.getAmount());
+            try {
+                validateUseBalance(users[i], accounts[i], use.getAmount());
+            } catch (AccountException e) {
+                use.failed(e);
+                event.failed(e);
+                event.commitIfEnabled();
+                continue;
+            }
+            try {
+                debit(accounts[i], use.getAmount(), use.getSlot());
+                use.succeeded(TransactionDto.fromEntity(
+                        saveAndGetTransaction(USE, S, use.getAmount(), accounts[i])));
+            } catch (RuntimeException e) {
+                event.failed(e);
+                throw e;
+            } finally {
+                event.commitIfEnabled();
+            }
+        }
     }
 
-    /** 잔액사용 실패 */
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+    /** 잔액사용 실패 (실패한 거래의 트랜잭션과 따로 저장한다) */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveFailedUseTransaction(Long accountNumber, Long amount) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
@@ -63,43 +144,143 @@ public class TransactionService {
     /** 잔액사용 취소 */
     public TransactionDto cancelBalance(
             String transactionId,
-            String accountNumber,
+            Long accountNumber,
             Long amount) {
+        BalanceMutationEvent event = BalanceMutationEvent.begin("CANCEL", accountNumber, amount);
+        try {
+            // 거래를 읽으면 계좌도 함께 읽히므로 그 전에 fencing 한다.
+            fence(accountNumber);
 
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+            Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                    .orElseThrow(() -> new AccountException(
+                            transactionArchiveService.find(transactionId).isPresent()
+                                    ? TOO_OLD_ORDER_TO_CANCEL : TRANSACTION_NOT_FOUND));
 
-        if(transaction.getChild() != null){
-            throw new AccountException(TRANSACTION_ALREADY_CANCELED);
+            Account account = getAccount(accountNumber);
+
+            validateCancelBalance(transaction, account, amount);
+
+            credit(account, amount);
+
+            return TransactionDto.fromEntity(
+                    saveAndGetTransaction(CANCEL, S, amount, account, transaction)
+            );
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commitIfEnabled();
         }
+    }
 
+    /** 잔액사용 취소 실패 (실패한 거래의 트랜잭션과 따로 저장한다) */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveFailedCancelTransaction(Long accountNumber, Long amount) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
-        validateCancelBalance(transaction, account, amount);
+        saveAndGetTransaction(CANCEL, F, amount, account);
+    }
+
+    /**
+     * 계좌 간 송금
+     * 출금과 입금을 한 트랜잭션에서 처리하고, 입금 거래는 출금 거래를 parent 로 연결한다.
+     */
+    public TransactionDto transferBalance(Long userId, Long fromAccountNumber,
+                                          Long toAccountNumber, Long amount) {
+        BalanceMutationEvent event = BalanceMutationEvent.begin("TRANSFER", fromAccountNumber, amount);
+        event.counterpartyAccountNumber = toAccountNumber;
+        try {
+            AccountUser user = getUser(userId, fromAccountNumber);
+            if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+                throw new AccountException(SAME_ACCOUNT_TRANSFER);
+            }
+            Stream.of(fromAccountNumber, toAccountNumber).sorted().forEach(this::fence);
+            Account fromAccount = getAccount(fromAccountNumber);
+            Account toAccount = getAccount(toAccountNumber);
 
-        account.cancelBalance(amount);
+            validateUseBalance(user, fromAccount, amount);
+            if (toAccount.getAccountStatus() != AccountStatus.IN_USE) {
+                throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+            }
 
-        return TransactionDto.fromEntity(
-                saveAndGetTransaction(CANCEL, S, amount, account, transaction)
-        );
+            debit(fromAccount, amount);
+            credit(toAccount, amount);
+
+            Transaction transferOut = saveAndGetTransaction(TRANSFER_OUT, S, amount, fromAccount);
+            saveAndGetTransaction(TRANSFER_IN, S, amount, toAccount, transferOut);
+
+            return TransactionDto.fromEntity(transferOut);
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commitIfEnabled();
+        }
     }
 
-    /** 잔액사용 취소 실패 */
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+    /** 송금 실패 (실패한 거래의 트랜잭션과 따로 저장한다) */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveFailedTransferTransaction(Long fromAccountNumber, Long amount) {
+        Account account = accountRepository.findByAccountNumber(fromAccountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
-        saveAndGetTransaction(CANCEL, F, amount, account);
+        saveAndGetTransaction(TRANSFER_OUT, F, amount, account);
     }
 
     /** 거래 확인 */
     @Transactional(readOnly = true)
     public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                        .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND))
-        );
+        return transactionRepository.findByTransactionId(transactionId)
+                .map(TransactionDto::fromEntity)
+                // 취소 기간이 지나 아카이브로 옮겨진 거래
+                .or(() -> transactionArchiveService.find(transactionId))
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+    }
+
+    /**
+     * 계좌 소유자가 userId 면(소유 관계는 query cache) 사용자를 읽지 않고 참조만 쓴다.
+     * 아니면 사용자를 읽어 기존 순서대로 USER_NOT_FOUND 부터 확인한다.
+     */
+    private AccountUser getUser(Long userId, Long accountNumber) {
+        Optional<Long> ownerId = inMemoryLedgerService.isEnabled()
+                ? inMemoryLedgerService.findOwnerId(accountNumber)
+                : accountRepository.findOwnerIdByAccountNumber(accountNumber);
+        if (ownerId.filter(userId::equals)
+                .isPresent()) {
+            return accountUserRepository.getReferenceById(userId);
+        }
+        return accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+    }
+
+    /** in-memory 장부면 DB 계좌 행을 읽지 않고 장부의 값으로 채운 참조를 쓴다. */
+    private Account getAccount(Long accountNumber) {
+        if (inMemoryLedgerService.isEnabled()) {
+            return inMemoryLedgerService.getAccount(accountNumber);
+        }
+        return accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+    }
+
+    /**
+     * lock 의 fencing token 을 계좌에 기록한다.
+     * lease 가 끝난 뒤에도 계속 실행 중인 요청은 더 새 token 이 이미 기록되어 있어 여기서 거절된다.
+     * 계좌를 읽기 전에 호출해야 dirty checking 이 이전 token 으로 덮어쓰지 않는다.
+     * hot 계좌 slot lock 처럼 계좌 token 이 없는 경우나 계좌 행을 고치지 않는 in-memory 장부는 건너뛴다.
+     */
+    private void fence(Long accountNumber) {
+        fence(accountNumber, lockService.fencingToken(accountNumber.longValue()));
+    }
+
+    private void fence(Long accountNumber, OptionalLong token) {
+        if (token.isEmpty() || inMemoryLedgerService.isEnabled()) {
+            return;
+        }
+        if (accountRepository.fence(accountNumber, token.getAsLong()) == 0
+                && accountRepository.existsByAccountNumber(accountNumber)) {
+            throw new AccountException(STALE_LOCK);
+        }
     }
 
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
@@ -112,6 +293,13 @@ public class TransactionService {
         if(transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))){
             throw new AccountException(TOO_OLD_ORDER_TO_CANCEL);
         }
+        if(transaction.getTransactionType() != USE){
+            throw new AccountException(TRANSACTION_NOT_CANCELABLE);
+        }
+        // 송금 출금 거래도 입금 거래를 child 로 가지므로 거래 종류를 먼저 확인한다.
+        if(transaction.getChild() != null){
+            throw new AccountException(TRANSACTION_ALREADY_CANCELED);
+        }
     }
 
     private void validateUseBalance(AccountUser user, Account account, Long amount) throws AccountException {
@@ -121,23 +309,59 @@ public class TransactionService {
         if (account.getAccountStatus() != AccountStatus.IN_USE) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if (account.getBalance() < amount) {
+        if (balanceOf(account) < amount) {
             throw new AccountException(AMOUNT_EXCEED_BALANCE);
         }
     }
 
+    /** in-memory 장부는 장부에서, slot 으로 나눈 hot 계좌는 slot 에서, 아니면 계좌 잔액에서 차감 */
+    private void debit(Account account, Long amount) {
+        debit(account, amount, hotAccountService.currentSlot());
+    }
+
+    private void debit(Account account, Long amount, int slot) {
+        if (inMemoryLedgerService.isEnabled()) {
+            inMemoryLedgerService.debit(account, amount);
+        } else if (account.isBalanceSplit()) {
+            hotAccountService.markSplit(account.getAccountNumber(), account.getBalanceSlotCount());
+            balanceSlotService.debit(account, slot, amount);
+        } else {
+            account.useBalance(amount);
+        }
+    }
+
+    private void credit(Account account, Long amount) {
+        if (inMemoryLedgerService.isEnabled()) {
+            inMemoryLedgerService.credit(account, amount);
+        } else if (account.isBalanceSplit()) {
+            hotAccountService.markSplit(account.getAccountNumber(), account.getBalanceSlotCount());
+            balanceSlotService.credit(account, hotAccountService.currentSlot(), amount);
+        } else {
+            account.cancelBalance(amount);
+        }
+    }
+
+    private Long balanceOf(Account account) {
+        if (inMemoryLedgerService.isEnabled()) {
+            return inMemoryLedgerService.balance(account);
+        }
+        return account.isBalanceSplit()
+                ? balanceSlotService.totalBalance(account)
+                : account.getBalance();
+    }
+
     private Transaction saveAndGetTransaction(
             TransactionType transactionType,
             TransactionResultType transactionResultType,
             Long amount,
             Account account) {
-        return transactionRepository.save(
+        return saveWithOutbox(
                 Transaction.builder()
                         .transactionType(transactionType)
                         .transactionResultType(transactionResultType)
                         .account(account)
                         .amount(amount)
-                        .balanceSnapshot(account.getBalance())
+                        .balanceSnapshot(balanceOf(account))
                         .transactionId(UUID.randomUUID().toString().replace("-", ""))
                         .transactedAt(LocalDateTime.now())
                         .build()
@@ -150,13 +374,13 @@ public class TransactionService {
             Long amount,
             Account account,
             Transaction transaction) {
-        return transactionRepository.save(
+        return saveWithOutbox(
                 Transaction.builder()
                         .transactionType(transactionType)
                         .transactionResultType(transactionResultType)
                         .account(account)
                         .amount(amount)
-                        .balanceSnapshot(account.getBalance())
+                        .balanceSnapshot(balanceOf(account))
                         .transactionId(UUID.randomUUID().toString().replace("-", ""))
                         .transactedAt(LocalDateTime.now())
                         .parent(transaction)
@@ -164,6 +388,29 @@ public class TransactionService {
         );
     }
 
+    /** 거래와 outbox 이벤트를 같은 트랜잭션에서 저장 */
+    private Transaction saveWithOutbox(Transaction transaction) {
+        TransactionInsertEvent event = new TransactionInsertEvent();
+        event.begin();
+        event.outcome = BalanceMutationEvent.SUCCESS;
+        try {
+            Transaction saved = transactionRepository.save(transaction);
+            transactionOutboxRepository.save(TransactionOutbox.from(transaction));
+            return saved;
+        } catch (RuntimeException e) {
+            event.outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.accountNumber = transaction.getAccount().getAccountNumber();
+                event.transactionType = String.valueOf(transaction.getTransactionType());
+                event.transactionResultType = String.valueOf(transaction.getTransactionResultType());
+                event.commit();
+            }
+        }
+    }
+
 
 
 
@@ -20,7 +20,14 @@ public enum ErrorCode {
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
     MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개입니다."),
     AMOUNT_EXCEED_BALANCE("거래 금액이 계좌 잔액보다 큽니다."),
-    TRANSACTION_ALREADY_CANCELED("이미 취소된 거래입니다.")
+    TRANSACTION_ALREADY_CANCELED("이미 취소된 거래입니다."),
+    TOO_MANY_REQUESTS("요청이 너무 많습니다. 잠시 후 다시 시도해 주세요."),
+    SAME_ACCOUNT_TRANSFER("같은 계좌로는 송금할 수 없습니다."),
+    TRANSACTION_NOT_CANCELABLE("잔액 사용 거래만 취소할 수 있습니다."),
+    STALE_LOCK("계좌 lock 이 만료되었습니다. 다시 시도해 주세요."),
+    LOCK_UNAVAILABLE("계좌 lock 을 잡을 수 없습니다. 잠시 후 다시 시도해 주세요."),
+    REQUEST_TIMEOUT("요청 처리 시간이 지났습니다."),
+    BALANCE_HISTORY_UNAVAILABLE("아카이브된 기간의 잔액은 조회할 수 없습니다.")
     ;
 
     private final String description;
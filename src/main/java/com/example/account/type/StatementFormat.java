@@ -0,0 +1,13 @@
+package com.example.account.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StatementFormat {
+    CSV(".csv"),
+    NDJSON(".ndjson");
+
+    private final String extension;
+}
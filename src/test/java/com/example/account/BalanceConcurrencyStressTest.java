@@ -0,0 +1,267 @@
+package com.example.account;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.ErrorCode.TRANSACTION_ALREADY_CANCELED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * lock 방식마다 서버를 띄워 같은 계좌에 수백 스레드로 사용/취소를 몰아넣고 잔액 불변식을 확인한다.
+ * 1. 음수 잔액 없음
+ * 2. 잃어버린 갱신 없음 (잔액 = 처음 잔액 - 성공한 사용 + 성공한 취소, 원장 합과도 같음)
+ * 3. 같은 거래는 한 번만 취소됨
+ * 4. 거래 시각 순으로 balanceSnapshot 을 따라가면 잔액 변화와 맞음 (slot 으로 나눈 계좌 제외)
+ *
+ * 느리므로 stress 태그로 나눠 ./gradlew stressTest (check 에 포함)로 실행한다.
+ */
+@Tag("stress")
+class BalanceConcurrencyStressTest {
+    private static final int THREADS = 200;
+    private static final int OPERATIONS_PER_THREAD = 4;
+    private static final int ACCOUNTS = 4;
+    private static final long INITIAL_BALANCE = 100_000L;
+    private static final int CANCEL_TARGETS = 20;
+    private static final int CANCEL_ATTEMPTS = 5;
+    private static final long USER_ID = 1L;
+
+    @ParameterizedTest(name = "provider={0}, hot account split={1}, group commit={2}")
+    @CsvSource({
+            "redisson, false, false",
+            "in-process, false, false",
+            "database, false, false",
+            "in-process, true, false",
+            "in-process, false, true",
+            "in-process, true, true"
+    })
+    void balanceInvariantsHoldUnderContention(String provider, boolean split, boolean groupCommit) throws Exception {
+        try (ConfigurableApplicationContext context = start(provider, split, groupCommit)) {
+            TransactionController controller = context.getBean(TransactionController.class);
+            AccountService accountService = context.getBean(AccountService.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            useAndCancelConcurrently(controller, accountService, jdbcTemplate);
+            cancelEachTransactionOnlyOnce(controller, accountService, jdbcTemplate);
+        }
+    }
+
+    /** 계좌 몇 개에 사용을 몰아넣고, 성공한 사용의 절반은 바로 취소한다. */
+    private void useAndCancelConcurrently(TransactionController controller, AccountService accountService,
+                                          JdbcTemplate jdbcTemplate) throws InterruptedException {
+        List<Long> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers.add(accountService.createAccount(USER_ID, INITIAL_BALANCE).getAccountNumber());
+        }
+        Map<Long, AtomicLong> netDebits = new ConcurrentHashMap<>();
+        accountNumbers.forEach(accountNumber -> netDebits.put(accountNumber, new AtomicLong()));
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(thread -> {
+            SplittableRandom random = new SplittableRandom(thread);
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Long accountNumber = accountNumbers.get(random.nextInt(ACCOUNTS));
+                long amount = 100 + random.nextInt(4_900);
+                try {
+                    UseBalance.Response used = controller.useBalance(
+                            new UseBalance.Request(USER_ID, accountNumber, amount));
+                    netDebits.get(accountNumber).addAndGet(amount);
+                    if (random.nextBoolean()) {
+                        controller.cancelBalance(
+                                new CancelBalance.Request(used.getTransactionId(), accountNumber, amount));
+                        netDebits.get(accountNumber).addAndGet(-amount);
+                    }
+                } catch (AccountException e) {
+                    // 잔액 부족, lock 대기 시간 초과 등은 반영되지 않은 실패
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        for (Long accountNumber : accountNumbers) {
+            long balance = totalBalance(jdbcTemplate, accountNumber);
+            assertTrue(balance >= 0, accountNumber + " balance " + balance);
+            assertEquals(INITIAL_BALANCE - netDebits.get(accountNumber).get(), balance,
+                    accountNumber + " lost update");
+            assertEquals(INITIAL_BALANCE + ledgerDelta(jdbcTemplate, accountNumber), balance,
+                    accountNumber + " balance differs from the ledger");
+            assertSnapshotsFollowLedger(jdbcTemplate, accountNumber, balance);
+        }
+    }
+
+    /** 거래마다 여러 스레드가 동시에 취소해도 하나만 성공해야 한다. */
+    private void cancelEachTransactionOnlyOnce(TransactionController controller, AccountService accountService,
+                                               JdbcTemplate jdbcTemplate) throws InterruptedException {
+        Long accountNumber = accountService.createAccount(USER_ID, INITIAL_BALANCE).getAccountNumber();
+        List<String> transactionIds = new ArrayList<>();
+        for (int i = 0; i < CANCEL_TARGETS; i++) {
+            transactionIds.add(controller.useBalance(
+                    new UseBalance.Request(USER_ID, accountNumber, 1_000L)).getTransactionId());
+        }
+        Map<String, AtomicInteger> canceled = new ConcurrentHashMap<>();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(thread -> {
+            String transactionId = transactionIds.get(thread % CANCEL_TARGETS);
+            // fair lock 이 아니면 먼저 기다린 요청이 lock 대기 시간을 넘길 수 있으므로 클라이언트처럼 다시 보낸다.
+            for (int attempt = 1; attempt <= CANCEL_ATTEMPTS; attempt++) {
+                try {
+                    controller.cancelBalance(new CancelBalance.Request(transactionId, accountNumber, 1_000L));
+                    canceled.computeIfAbsent(transactionId, id -> new AtomicInteger()).incrementAndGet();
+                } catch (AccountException e) {
+                    if (e.getErrorCode() == ACCOUNT_TRANSACTION_LOCK && attempt < CANCEL_ATTEMPTS) {
+                        continue;
+                    }
+                    if (e.getErrorCode() != TRANSACTION_ALREADY_CANCELED) {
+                        unexpected.add(e);
+                    }
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+                return;
+            }
+        });
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected.stream()
+                .map(e -> e instanceof AccountException
+                        ? String.valueOf(((AccountException) e).getErrorCode()) : e.toString())
+                .collect(Collectors.toList()));
+        for (String transactionId : transactionIds) {
+            assertEquals(1, canceled.getOrDefault(transactionId, new AtomicInteger()).get(),
+                    transactionId + " cancel responses");
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "select count(*) from transaction c join transaction p on c.parent_id = p.id " +
+                            "where p.transaction_id = ? and c.transaction_type = 'CANCEL' " +
+                            "and c.transaction_result_type = 'S'", Integer.class, transactionId),
+                    transactionId + " canceled more than once");
+        }
+        assertEquals(INITIAL_BALANCE, totalBalance(jdbcTemplate, accountNumber));
+    }
+
+    private static void runConcurrently(IntConsumer task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    task.accept(thread);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        try {
+            assertTrue(done.await(3, TimeUnit.MINUTES), "stress threads did not finish");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 거래 시각 순으로 balanceSnapshot 이 직전 잔액에서 금액만큼만 바뀌어야 한다.
+     * slot 으로 나눈 계좌는 slot 마다 따로 lock 을 잡아 순서가 정해지지 않으므로 건너뛴다.
+     */
+    private static void assertSnapshotsFollowLedger(JdbcTemplate jdbcTemplate, Long accountNumber,
+                                                    long finalBalance) {
+        Integer slots = jdbcTemplate.queryForObject(
+                "select balance_slot_count from account where account_number = ?", Integer.class, accountNumber);
+        if (slots != null && slots > 0) {
+            return;
+        }
+        long balance = INITIAL_BALANCE;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "select t.transaction_type, t.amount, t.balance_snapshot from transaction t " +
+                        "join account a on t.account_id = a.id " +
+                        "where a.account_number = ? and t.transaction_result_type = 'S' " +
+                        "order by t.transacted_at, t.id", accountNumber)) {
+            long amount = ((Number) row.get("amount")).longValue();
+            balance += "USE".equals(row.get("transaction_type")) ? -amount : amount;
+            assertEquals(balance, ((Number) row.get("balance_snapshot")).longValue(),
+                    accountNumber + " balanceSnapshot out of order");
+        }
+        assertEquals(finalBalance, balance, accountNumber + " last balanceSnapshot");
+    }
+
+    private static long totalBalance(JdbcTemplate jdbcTemplate, Long accountNumber) {
+        return jdbcTemplate.queryForObject(
+                "select a.balance + coalesce((select sum(s.balance) from account_balance_slot s " +
+                        "where s.account_id = a.id), 0) from account a where a.account_number = ?",
+                Long.class, accountNumber);
+    }
+
+    private static long ledgerDelta(JdbcTemplate jdbcTemplate, Long accountNumber) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(case when t.transaction_type = 'USE' then -t.amount else t.amount end), 0) " +
+                        "from transaction t join account a on t.account_id = a.id " +
+                        "where a.account_number = ? and t.transaction_result_type = 'S'",
+                Long.class, accountNumber);
+    }
+
+    private static ConfigurableApplicationContext start(String provider, boolean split, boolean groupCommit)
+            throws IOException {
+        List<String> properties = new ArrayList<>(List.of(
+                "account.lock.provider=" + provider,
+                "account.hot-account.split.enabled=" + split,
+                "account.group-commit.enabled=" + groupCommit,
+                "account.hot-account.threshold-per-second=20",
+                // 요청 수 제한에 걸리면 lock 경합까지 가지 않는다.
+                "account.rate-limit.enabled=false",
+                "account.outbox.relay.enabled=false",
+                "spring.redis.port=" + freePort(),
+                "spring.datasource.url=jdbc:h2:mem:stress-" + provider + "-" + split + "-" + groupCommit,
+                "spring.jpa.properties.hibernate.show_sql=false",
+                "logging.level.root=WARN"));
+        if ("database".equals(provider)) {
+            // lock 을 잡은 connection 과 거래 connection 을 함께 쓰므로
+            // lock 을 기다리는 스레드가 pool 을 다 차지하지 않도록 스레드 수만큼 둔다.
+            properties.add("spring.datasource.hikari.maximum-pool-size=" + (THREADS + 10));
+        }
+        // builder 의 properties() 는 기본값이라 application.yml 에 덮이므로 실행 인자로 넘긴다.
+        return new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
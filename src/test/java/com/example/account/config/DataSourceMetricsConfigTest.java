@@ -0,0 +1,73 @@
+package com.example.account.config;
+
+import com.example.account.service.LatencyRecorder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class DataSourceMetricsConfigTest {
+    private final LatencyRecorder latencyRecorder = mock(LatencyRecorder.class);
+    private final HikariDataSource dataSource = new HikariDataSource();
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("connection 대기 시간을 기록하면서 HikariDataSource 타입은 그대로 둔다")
+    public void recordConnectionWait() throws Exception {
+        //given
+        dataSource.setJdbcUrl("jdbc:h2:mem:metrics-record");
+        BeanPostProcessor postProcessor = DataSourceMetricsConfig.connectionWaitRecorder(recorder());
+
+        //when
+        Object bean = postProcessor.postProcessAfterInitialization(dataSource, "dataSource");
+        Connection connection = ((HikariDataSource) bean).getConnection();
+        connection.close();
+
+        //then
+        assertInstanceOf(HikariDataSource.class, bean);
+        verify(latencyRecorder).record(eq("db.connection.acquire"), anyLong());
+        verify(latencyRecorder, never()).record(eq("db.connection.acquire.locked"), anyLong());
+    }
+
+    @Test
+    @DisplayName("context 가 닫히면 감싼 DataSource 의 pool 도 닫힌다")
+    public void closePoolWithContext() throws Exception {
+        //given
+        dataSource.setJdbcUrl("jdbc:h2:mem:metrics-close");
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.getBeanFactory().addBeanPostProcessor(
+                DataSourceMetricsConfig.connectionWaitRecorder(recorder()));
+        context.registerBean("dataSource", HikariDataSource.class, () -> dataSource);
+        context.refresh();
+        context.getBean(HikariDataSource.class).getConnection().close();
+
+        //when
+        context.close();
+
+        //then
+        assertTrue(dataSource.isClosed());
+    }
+
+    private ObjectProvider<LatencyRecorder> recorder() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("latencyRecorder", latencyRecorder);
+        return beanFactory.getBeanProvider(LatencyRecorder.class);
+    }
+}
@@ -4,9 +4,16 @@ import com.example.account.domain.Account;
 import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.BulkCreateAccount;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.ProvisioningReport;
+import com.example.account.service.AccountProvisioningService;
 import com.example.account.service.AccountService;
+import com.example.account.service.BalanceSnapshotService;
+import com.example.account.service.LookupCoalescingService;
+import com.example.account.service.StatementExportService;
+import com.example.account.type.StatementFormat;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,17 +22,33 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static com.example.account.type.ErrorCode.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AccountController.class)
@@ -33,6 +56,18 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @MockBean
+    private LookupCoalescingService lookupCoalescingService;
+
+    @MockBean
+    private AccountProvisioningService accountProvisioningService;
+
+    @MockBean
+    private StatementExportService statementExportService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -46,7 +81,7 @@ class AccountControllerTest {
         given(accountService.createAccount(anyLong(), anyLong()))
                 .willReturn(AccountDto.builder()
                         .userId(1L)
-                        .accountNumber("1234567890")
+                        .accountNumber(1234567890L)
                         .registeredAt(LocalDateTime.now())
                         .unRegisteredAt(LocalDateTime.now())
                         .build());
@@ -66,14 +101,59 @@ class AccountControllerTest {
 
     }
 
+    @Test
+    @DisplayName("계좌 대량 생성")
+    public void successCreateAccounts() throws Exception {
+        //given
+        given(accountProvisioningService.provision(anyList()))
+                .willReturn(ProvisioningReport.builder()
+                        .requested(2)
+                        .created(2)
+                        .firstAccountNumber(1000000000L)
+                        .lastAccountNumber(1000000001L)
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(post("/account/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BulkCreateAccount.Request(Arrays.asList(
+                                        new CreateAccount.Request(1L, 100L),
+                                        new CreateAccount.Request(2L, 0L)))
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.lastAccountNumber").value("1000000001"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("계좌 대량 생성 - 잘못된 계좌가 하나라도 있으면 실패해야 한다")
+    public void failCreateAccountsWithInvalidAccount() throws Exception {
+        //when
+        //then
+        mockMvc.perform(post("/account/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BulkCreateAccount.Request(Arrays.asList(
+                                        new CreateAccount.Request(1L, 100L),
+                                        new CreateAccount.Request(2L, -1L)))
+                        )))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"))
+                .andDo(print());
+        verify(accountProvisioningService, never()).provision(anyList());
+    }
+
     @Test
     @DisplayName("계좌 해지")
     public void successDeleteAccount() throws Exception {
         //given
-        given(accountService.deleteAccount(anyLong(), anyString()))
+        given(accountService.deleteAccount(anyLong(), anyLong()))
                 .willReturn(AccountDto.builder()
                         .userId(1L)
-                        .accountNumber("1234567890")
+                        .accountNumber(1234567890L)
                         .registeredAt(LocalDateTime.now())
                         .unRegisteredAt(LocalDateTime.now())
                         .build());
@@ -84,7 +164,7 @@ class AccountControllerTest {
         mockMvc.perform(delete("/account")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
-                                new DeleteAccount.Request(1L, "1111111111")
+                                new DeleteAccount.Request(1L, 1111111111L)
                         )))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.userId").value(1))
@@ -100,15 +180,15 @@ class AccountControllerTest {
         given(accountService.getAccountsByUserId(anyLong()))
                 .willReturn(Arrays.asList(
                         AccountDto.builder()
-                                .accountNumber("1000000000")
+                                .accountNumber(1000000000L)
                                 .balance(1000L)
                                 .build(),
                         AccountDto.builder()
-                                .accountNumber("1000000001")
+                                .accountNumber(1000000001L)
                                 .balance(2000L)
                                 .build(),
                         AccountDto.builder()
-                                .accountNumber("1000000002")
+                                .accountNumber(1000000002L)
                                 .balance(3000L)
                                 .build()
                 ));
@@ -128,4 +208,89 @@ class AccountControllerTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("계좌번호로 계좌 조회")
+    public void successGetAccount() throws Exception {
+        //given
+        given(lookupCoalescingService.getAccount(anyLong()))
+                .willReturn(AccountDto.builder()
+                        .accountNumber(1234567890L)
+                        .balance(5000L)
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1234567890"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.balance").value(5000));
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 조회")
+    public void successGetBalanceAt() throws Exception {
+        //given
+        given(balanceSnapshotService.getBalanceAt(anyLong(), any()))
+                .willReturn(7000L);
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1234567890/balance?at=2023-05-11T10:15:30"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1234567890"))
+                .andExpect(jsonPath("$.balance").value(7000))
+                .andExpect(jsonPath("$.at").value("2023-05-11T10:15:30"));
+    }
+
+    @Test
+    @DisplayName("거래 내역서 내보내기")
+    public void successExportStatement() throws Exception {
+        //given
+        given(statementExportService.export(eq(1234567890L), any(), any(), eq(StatementFormat.NDJSON), any()))
+                .willAnswer(invocation -> {
+                    GZIPOutputStream gzip = new GZIPOutputStream(invocation.getArgument(4, OutputStream.class));
+                    gzip.write("{\"transactionId\":\"transactionId\"}\n".getBytes(StandardCharsets.UTF_8));
+                    gzip.finish();
+                    return 1L;
+                });
+
+        //when
+        MvcResult result = mockMvc.perform(get("/account/1234567890/statement" +
+                        "?from=2023-05-01T00:00:00&to=2023-06-01T00:00:00&format=NDJSON"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"statement-1234567890-2023-05-01.ndjson.gz\""))
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("{\"transactionId\":\"transactionId\"}\n",
+                    new String(StreamUtils.copyToByteArray(in), StandardCharsets.UTF_8));
+        }
+        verify(statementExportService).validateAccount(1234567890L);
+    }
+
+    @Test
+    @DisplayName("거래 내역서 내보내기 실패 - 계좌 없음")
+    public void exportStatement_AccountNotFound() throws Exception {
+        //given
+        willThrow(new AccountException(ACCOUNT_NOT_FOUND))
+                .given(statementExportService).validateAccount(anyLong());
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1234567890/statement" +
+                        "?from=2023-05-01T00:00:00&to=2023-06-01T00:00:00"))
+                .andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("ACCOUNT_NOT_FOUND"));
+        verify(statementExportService, never()).export(any(), any(), any(), any(), any());
+    }
+}
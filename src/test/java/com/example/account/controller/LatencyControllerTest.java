@@ -0,0 +1,73 @@
+package com.example.account.controller;
+
+import com.example.account.dto.LatencyReport;
+import com.example.account.service.LatencyRecorder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(LatencyController.class)
+class LatencyControllerTest {
+    @MockBean
+    private LatencyRecorder latencyRecorder;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("응답 시간 백분위 조회 - JSON")
+    public void successGetLatencyJson() throws Exception {
+        //given
+        given(latencyRecorder.report()).willReturn(Collections.singletonList(report()));
+
+        //when
+        //then
+        mockMvc.perform(get("/internal/latency").accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].operation").value("useBalance"))
+                .andExpect(jsonPath("$[0].interval.p999").value(950.5))
+                .andExpect(jsonPath("$[0].cumulative.count").value(1000));
+    }
+
+    @Test
+    @DisplayName("응답 시간 백분위 조회 - text")
+    public void successGetLatencyText() throws Exception {
+        //given
+        given(latencyRecorder.report()).willReturn(Collections.singletonList(report()));
+
+        //when
+        //then
+        mockMvc.perform(get("/internal/latency").accept(MediaType.TEXT_PLAIN))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("p99.9")))
+                .andExpect(content().string(containsString("useBalance")))
+                .andExpect(content().string(containsString("950.5")));
+    }
+
+    private static LatencyReport report() {
+        LatencyReport.Percentiles percentiles = LatencyReport.Percentiles.builder()
+                .count(1000).p50(120.0).p90(300.0).p99(700.0).p999(950.5).max(1000.0)
+                .build();
+        return LatencyReport.builder()
+                .operation("useBalance")
+                .interval(percentiles)
+                .cumulative(percentiles)
+                .build();
+    }
+}
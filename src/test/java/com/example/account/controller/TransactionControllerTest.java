@@ -1,10 +1,17 @@
 package com.example.account.controller;
 
+import com.example.account.config.RequestDeadlineConfig;
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.GroupCommitService;
+import com.example.account.service.LookupCoalescingService;
+import com.example.account.service.RequestDeadline;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,12 +24,18 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -34,6 +47,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private GroupCommitService groupCommitService;
+
+    @MockBean
+    private LookupCoalescingService lookupCoalescingService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -45,9 +64,9 @@ class TransactionControllerTest {
     @DisplayName("잔액 사용")
     public void successUseBalance() throws Exception{
         //given
-        BDDMockito.given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+        BDDMockito.given(groupCommitService.useBalance(anyLong(), anyLong(), anyLong()))
                 .willReturn(TransactionDto.builder()
-                        .accountNumber("1000000000")
+                        .accountNumber(1000000000L)
                         .transactedAt(LocalDateTime.now())
                         .amount(12345L)
                         .transactionId("transactionId")
@@ -58,7 +77,7 @@ class TransactionControllerTest {
         mockMvc.perform(post("/transaction/use")
                         .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(
-                        new UseBalance.Request(1L, "1000000000", 12345L)
+                        new UseBalance.Request(1L, 1000000000L, 12345L)
                 ))
         ).andDo(print())
                 .andExpect(status().isOk())
@@ -74,9 +93,9 @@ class TransactionControllerTest {
     @DisplayName("잔액 사용 취소")
     public void successCancelBalance() throws Exception{
         //given
-        BDDMockito.given(transactionService.cancelBalance(anyString(), anyString(), anyLong()))
+        BDDMockito.given(transactionService.cancelBalance(anyString(), anyLong(), anyLong()))
                 .willReturn(TransactionDto.builder()
-                        .accountNumber("1000000000")
+                        .accountNumber(1000000000L)
                         .transactedAt(LocalDateTime.now())
                         .amount(54321L)
                         .transactionId("transactionId")
@@ -88,7 +107,7 @@ class TransactionControllerTest {
         mockMvc.perform(post("/transaction/cancel")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(
-                                new CancelBalance.Request("transactionId", "1000000000", 54321L)
+                                new CancelBalance.Request("transactionId", 1000000000L, 54321L)
                         ))
                 ).andDo(print())
                 .andExpect(status().isOk())
@@ -105,9 +124,9 @@ class TransactionControllerTest {
     @DisplayName("거래 확인")
     public void successQueryTransaction() throws Exception {
         //given
-        given(transactionService.queryTransaction(anyString()))
+        given(lookupCoalescingService.queryTransaction(anyString()))
                 .willReturn(TransactionDto.builder()
-                        .accountNumber("1000000000")
+                        .accountNumber(1000000000L)
                         .transactionType(USE)
                         .transactedAt(LocalDateTime.now())
                         .amount(54321L)
@@ -127,5 +146,118 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    @DisplayName("계좌 간 송금")
+    public void successTransferBalance() throws Exception {
+        //given
+        given(transactionService.transferBalance(anyLong(), anyLong(), anyLong(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber(1000000000L)
+                        .transactionType(TRANSFER_OUT)
+                        .transactedAt(LocalDateTime.now())
+                        .amount(5000L)
+                        .transactionId("transferId")
+                        .transactionResultType(S)
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferBalance.Request(1L, 1000000000L, 1000000001L, 5000L)
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.toAccountNumber").value("1000000001"))
+                .andExpect(jsonPath("$.transactionResult").value(S.name()))
+                .andExpect(jsonPath("$.transactionId").value("transferId"))
+                .andExpect(jsonPath("$.amount").value(5000));
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - 숫자가 아니거나 10자리가 아닌 계좌번호는 잘못된 요청")
+    public void failUseBalanceWithInvalidAccountNumber() throws Exception {
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"accountNumber\":\"10000000ab\",\"amount\":1000}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"accountNumber\":\"123456789\",\"amount\":1000}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+        verify(groupCommitService, never()).useBalance(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("클라이언트가 보낸 timeout 이 더 짧으면 그 시간을 deadline 으로 쓴다")
+    public void useClientTimeoutAsDeadline() throws Exception {
+        //given
+        AtomicLong remainingMillis = new AtomicLong();
+        given(groupCommitService.useBalance(anyLong(), anyLong(), anyLong()))
+                .willAnswer(invocation -> {
+                    remainingMillis.set(RequestDeadline.remainingMillis());
+                    return TransactionDto.builder()
+                            .accountNumber(1000000000L)
+                            .transactionResultType(S)
+                            .build();
+                });
+
+        //when
+        mockMvc.perform(post("/transaction/use")
+                        .header(RequestDeadlineConfig.TIMEOUT_HEADER, "300")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, 1000000000L, 12345L))))
+                .andExpect(status().isOk());
+
+        //then
+        assertTrue(remainingMillis.get() > 0 && remainingMillis.get() <= 300L);
+    }
+
+    @Test
+    @DisplayName("클라이언트가 더 기다리지 않는 요청은 처리하지 않는다")
+    public void abandonRequestWithoutTimeLeft() throws Exception {
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .header(RequestDeadlineConfig.TIMEOUT_HEADER, "0")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, 1000000000L, 12345L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("REQUEST_TIMEOUT"));
+        verify(groupCommitService, never()).useBalance(anyLong(), anyLong(), anyLong());
+    }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("시간이 지나 실패한 잔액 사용도 실패 거래는 deadline 없이 남긴다")
+    public void saveFailedUseWithoutDeadline() throws Exception {
+        //given
+        AtomicLong remainingMillis = new AtomicLong();
+        given(groupCommitService.useBalance(anyLong(), anyLong(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.REQUEST_TIMEOUT));
+        BDDMockito.willAnswer(invocation -> {
+            remainingMillis.set(RequestDeadline.remainingMillis());
+            return null;
+        }).given(transactionService).saveFailedUseTransaction(anyLong(), anyLong());
+
+        //when
+        mockMvc.perform(post("/transaction/use")
+                        .header(RequestDeadlineConfig.TIMEOUT_HEADER, "300")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, 1000000000L, 12345L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("REQUEST_TIMEOUT"));
+
+        //then
+        verify(transactionService).saveFailedUseTransaction(1000000000L, 12345L);
+        assertEquals(Long.MAX_VALUE, remainingMillis.get());
+    }
+}
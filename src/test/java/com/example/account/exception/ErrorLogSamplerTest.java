@@ -0,0 +1,47 @@
+package com.example.account.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ErrorLogSamplerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("ErrorCode 별로 1초에 정해진 건수만 남기고 건너뛴 건수를 알려준다")
+    public void sample() {
+        //given
+        ErrorLogSampler sampler = new ErrorLogSampler(2);
+
+        //when
+        //then
+        assertEquals(0, sampler.sample(AMOUNT_EXCEED_BALANCE, 0));
+        assertEquals(0, sampler.sample(AMOUNT_EXCEED_BALANCE, 1));
+        assertEquals(-1, sampler.sample(AMOUNT_EXCEED_BALANCE, 2));
+        assertEquals(-1, sampler.sample(AMOUNT_EXCEED_BALANCE, 3));
+        // 다른 ErrorCode 는 따로 센다
+        assertEquals(0, sampler.sample(ACCOUNT_NOT_FOUND, 4));
+        // 다음 1초
+        assertEquals(2, sampler.sample(AMOUNT_EXCEED_BALANCE, SECOND));
+        assertEquals(0, sampler.sample(AMOUNT_EXCEED_BALANCE, SECOND + 1));
+    }
+
+    @Test
+    @DisplayName("업무 실패 예외는 stack trace 를 만들지 않는다")
+    public void stacklessAccountException() {
+        //when
+        AccountException exception = new AccountException(AMOUNT_EXCEED_BALANCE);
+
+        //then
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(0, new RateLimitException(1).getStackTrace().length);
+        assertNull(exception.getCause());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.account.service;
+
+import com.example.account.dto.CreateAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountImportFileTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("CSV 는 header 를 건너뛰고 읽는다")
+    public void readCsv() throws Exception {
+        Path file = Files.writeString(dir.resolve("partner.csv"),
+                "userId,initialBalance\n1,1000\n\n2, 0\n");
+
+        List<CreateAccount.Request> requests = AccountImportFile.read(file, objectMapper);
+
+        assertEquals(2, requests.size());
+        assertEquals(2L, requests.get(1).getUserId());
+        assertEquals(0L, requests.get(1).getInitialBalance());
+    }
+
+    @Test
+    @DisplayName("NDJSON 은 한 줄에 계좌 하나씩 읽는다")
+    public void readNdjson() throws Exception {
+        Path file = Files.writeString(dir.resolve("partner.ndjson"),
+                "{\"userId\":1,\"initialBalance\":1000}\n{\"userId\":3,\"initialBalance\":5}\n");
+
+        List<CreateAccount.Request> requests = AccountImportFile.read(file, objectMapper);
+
+        assertEquals(2, requests.size());
+        assertEquals(3L, requests.get(1).getUserId());
+    }
+
+    @Test
+    @DisplayName("잘못된 행은 줄 번호와 함께 실패한다")
+    public void failWithInvalidLine() throws Exception {
+        Path file = Files.writeString(dir.resolve("partner.csv"),
+                "userId,initialBalance\n1,1000\n2,-1\n");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> AccountImportFile.read(file, objectMapper));
+
+        assertTrue(exception.getMessage().contains("line 3"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.respository.AccountNumberSequenceRepository;
+import com.example.account.respository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountNumberSequenceRepository accountNumberSequenceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AccountNumberAllocator accountNumberAllocator;
+
+    /** DB 에 있는 마지막 예약 번호 (다른 서버와 함께 쓰는 row, 0 이면 row 가 없다) */
+    private final AtomicLong lastReserved = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        given(accountNumberSequenceRepository.findLastReserved(AccountNumberAllocator.SEQUENCE_NAME))
+                .will(invocation -> lastReserved.get() == 0
+                        ? Optional.empty() : Optional.of(lastReserved.get()));
+        lenient().when(accountNumberSequenceRepository.create(eq(AccountNumberAllocator.SEQUENCE_NAME), anyLong()))
+                .then(invocation -> {
+                    if (!lastReserved.compareAndSet(0, invocation.getArgument(1))) {
+                        throw new DataIntegrityViolationException("duplicate");
+                    }
+                    return 1;
+                });
+        lenient().when(accountNumberSequenceRepository.advance(
+                        eq(AccountNumberAllocator.SEQUENCE_NAME), anyLong(), anyLong()))
+                .then(invocation -> lastReserved.compareAndSet(
+                        invocation.getArgument(1), invocation.getArgument(2)) ? 1 : 0);
+    }
+
+    @Test
+    @DisplayName("처음 계좌번호는 1000000000")
+    public void firstAccountNumber() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.empty());
+
+        //when
+        //then
+        assertEquals(1000000000L, accountNumberAllocator.reserve(1));
+    }
+
+    @Test
+    @DisplayName("가장 큰 계좌번호 다음 번호부터 예약한다")
+    public void reserveAfterLastAccountNumber() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber(1000000012L).build()));
+
+        //when
+        //then
+        assertEquals(1000000013L, accountNumberAllocator.reserve(1));
+    }
+
+    @Test
+    @DisplayName("아직 저장되지 않은 예약 번호는 다시 주지 않는다")
+    public void skipReservedBlock() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber(1000000012L).build()));
+
+        //when
+        long block = accountNumberAllocator.reserve(1000);
+        long next = accountNumberAllocator.reserve(1);
+
+        //then
+        assertEquals(1000000013L, block);
+        assertEquals(1000001013L, next);
+    }
+
+    @Test
+    @DisplayName("다른 서버가 예약한 번호는 주지 않는다")
+    public void skipBlockReservedByOtherServer() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber(1000000012L).build()));
+        lastReserved.set(1000005000L);
+
+        //when
+        //then
+        assertEquals(1000005001L, accountNumberAllocator.reserve(10));
+        assertEquals(1000005010L, lastReserved.get());
+    }
+
+    @Test
+    @DisplayName("다른 서버가 먼저 늘렸으면 다시 읽고 그 다음 번호를 예약한다")
+    public void retryWhenOtherServerAdvanced() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber(1000000012L).build()));
+        lastReserved.set(1000000100L);
+        given(accountNumberSequenceRepository.advance(
+                        eq(AccountNumberAllocator.SEQUENCE_NAME), anyLong(), anyLong()))
+                .will(invocation -> {
+                    // 읽은 뒤 다른 서버가 10개를 먼저 예약했다.
+                    lastReserved.set(1000000110L);
+                    return 0;
+                })
+                .will(invocation -> lastReserved.compareAndSet(
+                        invocation.getArgument(1), invocation.getArgument(2)) ? 1 : 0);
+
+        //when
+        //then
+        assertEquals(1000000111L, accountNumberAllocator.reserve(1));
+        assertEquals(1000000111L, lastReserved.get());
+    }
+
+    @Test
+    @DisplayName("다른 서버가 row 를 먼저 만들었으면 만든 row 를 늘린다")
+    public void retryWhenOtherServerCreatedSequence() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.empty());
+        given(accountNumberSequenceRepository.create(eq(AccountNumberAllocator.SEQUENCE_NAME), anyLong()))
+                .will(invocation -> {
+                    lastReserved.set(1000000004L);
+                    throw new DataIntegrityViolationException("duplicate");
+                });
+
+        //when
+        //then
+        assertEquals(1000000005L, accountNumberAllocator.reserve(1));
+    }
+
+    @Test
+    @DisplayName("10자리를 넘는 계좌번호는 예약하지 않는다")
+    public void exhausted() {
+        //given
+        given(accountRepository.findFirstByOrderByAccountNumberDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber(9999999998L).build()));
+
+        //when
+        //then
+        assertThrows(IllegalStateException.class, () -> accountNumberAllocator.reserve(2));
+        assertEquals(9999999999L, accountNumberAllocator.reserve(1));
+    }
+}
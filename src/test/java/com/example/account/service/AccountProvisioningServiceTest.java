@@ -0,0 +1,192 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.CreateAccount;
+import com.example.account.dto.ProvisioningReport;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.respository.AccountUserRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountProvisioningServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    private AccountProvisioningService accountProvisioningService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create sequence hibernate_sequence");
+        jdbcTemplate.execute("create table account_user (id bigint primary key, name varchar(255))");
+        jdbcTemplate.execute("create table account (id bigint primary key, " +
+                "account_user_id bigint, account_number varchar(255) unique, account_status varchar(255), " +
+                "balance bigint, registered_at timestamp, created_at timestamp, updated_at timestamp)");
+        accountProvisioningService = new AccountProvisioningService(
+                accountRepository, accountUserRepository, accountNumberAllocator, jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                "next value for hibernate_sequence", 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountProvisioningService.shutdown();
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("계좌 대량 생성 - 예약한 번호로 나눠 저장한다")
+    public void provisionInPartitions() {
+        //given
+        List<CreateAccount.Request> requests = requestsFor(100, 5);
+        givenUsers(100);
+        given(accountRepository.countByAccountUserIds(anyList())).willReturn(Collections.emptyList());
+        given(accountNumberAllocator.reserve(500)).willReturn(1000000000L);
+
+        //when
+        ProvisioningReport report = accountProvisioningService.provision(requests);
+
+        //then
+        assertEquals(500, report.getRequested());
+        assertEquals(500, report.getCreated());
+        assertEquals(0, report.getFailed());
+        assertEquals(1000000000L, report.getFirstAccountNumber());
+        assertEquals(1000000499L, report.getLastAccountNumber());
+        assertEquals(500, jdbcTemplate.queryForObject(
+                "select count(distinct account_number) from account", Integer.class));
+        assertEquals(1000000499L, jdbcTemplate.queryForObject(
+                "select max(account_number) from account", Long.class));
+        assertEquals(5 * 1000L, jdbcTemplate.queryForObject(
+                "select sum(balance) from account where account_user_id = 7", Long.class));
+    }
+
+    @Test
+    @DisplayName("계좌 대량 생성 - 이미 가진 계좌와 합쳐 10개를 넘으면 실패해야 한다")
+    public void provisionFailedWithTooManyAccounts() {
+        //given
+        givenUsers(2);
+        given(accountRepository.countByAccountUserIds(anyList()))
+                .willReturn(Collections.singletonList(count(2L, 6L)));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountProvisioningService.provision(requestsFor(2, 5)));
+
+        //then
+        assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, exception.getErrorCode());
+        verify(accountNumberAllocator, never()).reserve(anyInt());
+    }
+
+    @Test
+    @DisplayName("계좌 대량 생성 - 확인한 뒤 다른 요청이 만든 계좌와 합쳐 10개를 넘는 묶음은 저장하지 않는다")
+    public void skipPartitionOverLimitAtInsert() {
+        //given
+        givenUsers(2);
+        given(accountRepository.countByAccountUserIds(anyList())).willReturn(Collections.emptyList());
+        given(accountNumberAllocator.reserve(10)).willReturn(1000000000L);
+        // 처음 확인한 뒤 같은 사용자의 계좌가 만들어진 경우
+        for (int i = 0; i < 6; i++) {
+            jdbcTemplate.update("insert into account (id, account_user_id, account_number) values (?, 2, ?)",
+                    i + 1000L, 2000000000L + i);
+        }
+
+        //when
+        ProvisioningReport report = accountProvisioningService.provision(requestsFor(2, 5));
+
+        //then
+        assertEquals(0, report.getCreated());
+        assertEquals(10, report.getFailed());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from account where account_user_id = 1", Integer.class));
+    }
+
+    @Test
+    @DisplayName("계좌 대량 생성 - 없는 사용자가 있으면 실패해야 한다")
+    public void provisionFailedWithUnknownUser() {
+        //given
+        givenUsers(1);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountProvisioningService.provision(requestsFor(2, 1)));
+
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+        verify(accountNumberAllocator, never()).reserve(anyInt());
+    }
+
+    /** 1 ~ users 번 사용자마다 accountsPerUser 개씩, 잔액 1000 */
+    private static List<CreateAccount.Request> requestsFor(int users, int accountsPerUser) {
+        List<CreateAccount.Request> requests = new ArrayList<>();
+        for (int i = 0; i < accountsPerUser; i++) {
+            for (long userId = 1; userId <= users; userId++) {
+                requests.add(new CreateAccount.Request(userId, 1000L));
+            }
+        }
+        return requests;
+    }
+
+    private void givenUsers(int users) {
+        for (long id = 1; id <= users; id++) {
+            jdbcTemplate.update("insert into account_user (id, name) values (?, ?)", id, "user" + id);
+        }
+        given(accountUserRepository.findAllById(anyList()))
+                .willReturn(LongStream.rangeClosed(1, users)
+                        .mapToObj(id -> AccountUser.builder().id(id).build())
+                        .collect(Collectors.toList()));
+    }
+
+    private static AccountRepository.UserAccountCount count(Long userId, long accountCount) {
+        return new AccountRepository.UserAccountCount() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public long getAccountCount() {
+                return accountCount;
+            }
+        };
+    }
+}
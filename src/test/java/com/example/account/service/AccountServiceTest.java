@@ -36,6 +36,12 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private InMemoryLedgerService inMemoryLedgerService;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -47,15 +53,14 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(1L)
                 .name("Pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountNumber("1000000012").build()));
+        given(accountNumberAllocator.reserve(1))
+                .willReturn(1000000013L);
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
-                        .accountNumber("1000000013").build());
+                        .accountNumber(1000000013L).build());
 
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
 
@@ -67,7 +72,7 @@ class AccountServiceTest {
         //then
         verify(accountRepository, times(1)).save(captor.capture());
         assertEquals(1, accountDto.getUserId());
-        assertEquals("1000000013", captor.getValue().getAccountNumber());
+        assertEquals(1000000013L, captor.getValue().getAccountNumber());
     }
 
     @Test
@@ -77,14 +82,14 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(15L)
                 .name("Pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.reserve(1))
+                .willReturn(1000000000L);
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
-                        .accountNumber("1000000013").build());
+                        .accountNumber(1000000013L).build());
 
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
 
@@ -96,7 +101,7 @@ class AccountServiceTest {
         //then
         verify(accountRepository, times(1)).save(captor.capture());
         assertEquals(15L, accountDto.getUserId());
-        assertEquals("1000000000", captor.getValue().getAccountNumber());
+        assertEquals(1000000000L, captor.getValue().getAccountNumber());
     }
 
 
@@ -104,7 +109,7 @@ class AccountServiceTest {
     @DisplayName("계좌 생성 - 사용자가 존재하지 않을경우 계좌생성이 실패해야 한다")
     public void createAccount_UserNotFound() throws Exception {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
@@ -123,7 +128,7 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .id(1L)
                 .name("Pobi").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
 
         given(accountRepository.countByAccountUser(any()))
@@ -146,22 +151,22 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(user)
                         .balance(0L)
-                        .accountNumber("1000000012").build()));
+                        .accountNumber(1000000012L).build()));
 
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
 
         //when
         AccountDto accountDto =
-                accountService.deleteAccount(1L, "1234567890");
+                accountService.deleteAccount(1L, 1234567890L);
 
         //then
         verify(accountRepository, times(1)).save(captor.capture());
         assertEquals(1L, accountDto.getUserId());
-        assertEquals("1000000012", captor.getValue().getAccountNumber());
+        assertEquals(1000000012L, captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
     }
 
@@ -175,7 +180,7 @@ class AccountServiceTest {
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> accountService.deleteAccount(1L, "1234567890"));
+                () -> accountService.deleteAccount(1L, 1234567890L));
 
         //then
         assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
@@ -190,12 +195,12 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> accountService.deleteAccount(1L, "1234567890"));
+                () -> accountService.deleteAccount(1L, 1234567890L));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
@@ -213,14 +218,14 @@ class AccountServiceTest {
                 .name("Harry").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(otherUser)
                         .build()));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> accountService.deleteAccount(1L, "1234567890"));
+                () -> accountService.deleteAccount(1L, 1234567890L));
 
         //then
         assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
@@ -235,7 +240,7 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(user)
                         .balance(100L)
@@ -243,7 +248,7 @@ class AccountServiceTest {
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> accountService.deleteAccount(1L, "1234567890"));
+                () -> accountService.deleteAccount(1L, 1234567890L));
 
         //then
         assertEquals(ErrorCode.BALANCE_NOT_EMPTY, exception.getErrorCode());
@@ -258,7 +263,7 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(user)
                         .accountStatus(AccountStatus.UNREGISTERED)
@@ -267,7 +272,7 @@ class AccountServiceTest {
 
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> accountService.deleteAccount(1L, "1234567890"));
+                () -> accountService.deleteAccount(1L, 1234567890L));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
@@ -285,17 +290,17 @@ class AccountServiceTest {
         List<Account> accounts = Arrays.asList(
                 Account.builder()
                         .accountUser(user)
-                        .accountNumber("1000000000")
+                        .accountNumber(1000000000L)
                         .balance(1000L)
                         .build(),
                 Account.builder()
                         .accountUser(user)
-                        .accountNumber("1000000001")
+                        .accountNumber(1000000001L)
                         .balance(2000L)
                         .build(),
                 Account.builder()
                         .accountUser(user)
-                        .accountNumber("1000000002")
+                        .accountNumber(1000000002L)
                         .balance(3000L)
                         .build()
         );
@@ -312,11 +317,11 @@ class AccountServiceTest {
         //then
 
         assertEquals(3, accountDtoList.size());
-        assertEquals("1000000000", accountDtoList.get(0).getAccountNumber());
+        assertEquals(1000000000L, accountDtoList.get(0).getAccountNumber());
         assertEquals(1000L, accountDtoList.get(0).getBalance());
-        assertEquals("1000000001", accountDtoList.get(1).getAccountNumber());
+        assertEquals(1000000001L, accountDtoList.get(1).getAccountNumber());
         assertEquals(2000L, accountDtoList.get(1).getBalance());
-        assertEquals("1000000002", accountDtoList.get(2).getAccountNumber());
+        assertEquals(1000000002L, accountDtoList.get(2).getAccountNumber());
         assertEquals(3000L, accountDtoList.get(2).getBalance());
 
     }
@@ -0,0 +1,219 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountBalanceSlotRepository;
+import com.example.account.respository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSlotServiceTest {
+    @Mock
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private BalanceSlotService balanceSlotService;
+
+    @Test
+    @DisplayName("slot 나누기 - 잔액을 slot 에 고르게 나누고 계좌 잔액은 0이 된다")
+    public void split() {
+        //given
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(10L)
+                .accountNumber(1000000000L).build();
+        given(accountRepository.findByAccountNumber(anyLong()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<AccountBalanceSlot> captor = ArgumentCaptor.forClass(AccountBalanceSlot.class);
+
+        //when
+        int slots = balanceSlotService.split(1000000000L, 4);
+
+        //then
+        assertEquals(4, slots);
+        verify(accountBalanceSlotRepository, times(4)).save(captor.capture());
+        assertEquals(Arrays.asList(3L, 3L, 2L, 2L), Arrays.asList(
+                captor.getAllValues().get(0).getBalance(),
+                captor.getAllValues().get(1).getBalance(),
+                captor.getAllValues().get(2).getBalance(),
+                captor.getAllValues().get(3).getBalance()));
+        assertEquals(0L, account.getBalance());
+        assertEquals(4, account.getBalanceSlotCount());
+    }
+
+    @Test
+    @DisplayName("slot 차감 - 고른 slot 이 충분하면 그 slot 에서만 차감한다")
+    public void debitFromPreferredSlot() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 1)).willReturn(600L);
+        given(accountBalanceSlotRepository.debit(account, 1, 500L)).willReturn(1);
+
+        //when
+        balanceSlotService.debit(account, 1, 500L);
+
+        //then
+        verify(accountBalanceSlotRepository, times(1)).debit(any(), anyInt(), anyLong());
+        verify(accountBalanceSlotRepository, never()).findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("slot 차감 - 고른 slot 이 부족하면 모든 slot 을 순서대로 lock 하고 앞 slot 부터 차감한다")
+    public void debitFromOtherSlotInIndexOrder() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 2)).willReturn(100L);
+        given(accountBalanceSlotRepository.findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 0))
+                .willReturn(Arrays.asList(slot(0), slot(1), slot(2), slot(3)));
+        given(accountBalanceSlotRepository.debit(account, 0, 500L)).willReturn(0);
+        given(accountBalanceSlotRepository.debit(account, 1, 500L)).willReturn(1);
+
+        //when
+        balanceSlotService.debit(account, 2, 500L);
+
+        //then
+        // 부족한 slot 은 lock 을 잡기 전에 건드리지 않는다.
+        InOrder inOrder = inOrder(accountBalanceSlotRepository);
+        inOrder.verify(accountBalanceSlotRepository).findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 0);
+        inOrder.verify(accountBalanceSlotRepository).debit(account, 0, 500L);
+        inOrder.verify(accountBalanceSlotRepository).debit(account, 1, 500L);
+        verify(accountBalanceSlotRepository, never()).debit(account, 2, 500L);
+        verify(accountBalanceSlotRepository, never()).debit(account, 3, 500L);
+    }
+
+    @Test
+    @DisplayName("slot 차감 - 읽은 뒤 고른 slot 이 부족해지면 고른 slot 부터 뒤 slot 만 순서대로 lock 한다")
+    public void debitFromLaterSlotWhenPreferredDrained() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 2)).willReturn(600L);
+        given(accountBalanceSlotRepository.debit(account, 2, 500L)).willReturn(0);
+        given(accountBalanceSlotRepository.findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 2))
+                .willReturn(Arrays.asList(slot(2), slot(3)));
+        given(accountBalanceSlotRepository.debit(account, 3, 500L)).willReturn(1);
+
+        //when
+        balanceSlotService.debit(account, 2, 500L);
+
+        //then
+        // 실패한 update 가 남긴 행 lock 보다 앞 slot 은 잡지 않는다.
+        verify(accountBalanceSlotRepository, never())
+                .findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 0);
+        verify(accountBalanceSlotRepository, never()).debit(account, 0, 500L);
+        verify(accountBalanceSlotRepository, never()).debit(account, 1, 500L);
+    }
+
+    @Test
+    @DisplayName("slot 차감 - 읽은 뒤 고른 slot 이 부족해지고 뒤 slot 을 모아도 부족하면 계좌 사용 중으로 실패한다")
+    public void debitFailsWhenLaterSlotsCannotCover() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 2)).willReturn(600L);
+        given(accountBalanceSlotRepository.debit(eq(account), anyInt(), eq(500L))).willReturn(0);
+        given(accountBalanceSlotRepository.findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 2))
+                .willReturn(Arrays.asList(slot(2), slot(3)));
+        given(accountBalanceSlotRepository.sumBalanceFrom(account, 2)).willReturn(200L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSlotService.debit(account, 2, 500L));
+
+        //then
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(accountBalanceSlotRepository, never()).updateBalance(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    @DisplayName("slot 차감 - 어느 slot 도 부족하면 slot 을 모아 차감하고 다시 나눈다")
+    public void debitWithRebalance() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 0)).willReturn(100L);
+        given(accountBalanceSlotRepository.debit(eq(account), anyInt(), eq(500L))).willReturn(0);
+        given(accountBalanceSlotRepository.findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 0))
+                .willReturn(Arrays.asList(slot(0), slot(1), slot(2), slot(3)));
+        given(accountBalanceSlotRepository.sumBalanceFrom(account, 0)).willReturn(802L);
+
+        //when
+        balanceSlotService.debit(account, 0, 500L);
+
+        //then
+        verify(accountBalanceSlotRepository).updateBalance(account, 0, 76L);
+        verify(accountBalanceSlotRepository).updateBalance(account, 1, 76L);
+        verify(accountBalanceSlotRepository).updateBalance(account, 2, 75L);
+        verify(accountBalanceSlotRepository).updateBalance(account, 3, 75L);
+    }
+
+    @Test
+    @DisplayName("slot 차감 - slot 잔액의 합이 부족하면 실패해야 한다")
+    public void debitExceedBalance() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 0)).willReturn(100L);
+        given(accountBalanceSlotRepository.debit(eq(account), anyInt(), eq(500L))).willReturn(0);
+        given(accountBalanceSlotRepository.findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 0))
+                .willReturn(Arrays.asList(slot(0), slot(1), slot(2), slot(3)));
+        given(accountBalanceSlotRepository.sumBalanceFrom(account, 0)).willReturn(400L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSlotService.debit(account, 0, 500L));
+
+        //then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(accountBalanceSlotRepository, never()).updateBalance(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    @DisplayName("slot 차감 - DB 가 lock 실패로 되돌리면 업무 실패로 바꾸지 않고 그대로 올린다")
+    public void debitPropagatesLockFailure() {
+        //given
+        Account account = splitAccount();
+        given(accountBalanceSlotRepository.findBalance(account, 0)).willReturn(100L);
+        given(accountBalanceSlotRepository.findByAccountAndSlotIndexGreaterThanEqualOrderBySlotIndexAsc(account, 0))
+                .willThrow(new CannotAcquireLockException("Deadlock detected"));
+
+        //when
+        //then
+        assertThrows(CannotAcquireLockException.class,
+                () -> balanceSlotService.debit(account, 0, 500L));
+        verify(accountBalanceSlotRepository, never()).debit(any(), anyInt(), anyLong());
+        verify(accountBalanceSlotRepository, never()).updateBalance(any(), anyInt(), anyLong());
+    }
+
+    private Account splitAccount() {
+        return Account.builder()
+                .accountStatus(IN_USE)
+                .balance(0L)
+                .balanceSlotCount(4)
+                .accountNumber(1000000000L).build();
+    }
+
+    private AccountBalanceSlot slot(int slotIndex) {
+        return AccountBalanceSlot.builder().slotIndex(slotIndex).balance(100L).build();
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.DailyBalanceSnapshot;
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.respository.DailyBalanceSnapshotRepository;
+import com.example.account.respository.TransactionRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.account.type.ErrorCode.BALANCE_HISTORY_UNAVAILABLE;
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotServiceTest {
+    private static final Long ACCOUNT_NUMBER = 1000000000L;
+
+    @Mock
+    private DailyBalanceSnapshotRepository dailyBalanceSnapshotRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionArchiveService transactionArchiveService;
+
+    @Mock
+    private ScheduledJobLock scheduledJobLock;
+
+    @InjectMocks
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 가장 가까운 스냅샷에서 그날의 거래만 적용한다")
+    public void balanceAtFromSnapshot() {
+        //given
+        Account account = account();
+        LocalDateTime at = LocalDateTime.of(2023, 5, 11, 15, 0);
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(
+                        account, LocalDate.of(2023, 5, 11)))
+                .willReturn(Optional.of(DailyBalanceSnapshot.builder()
+                        .account(account)
+                        .snapshotDate(LocalDate.of(2023, 5, 10))
+                        .balance(10000L)
+                        .build()));
+        given(transactionArchiveService.archiveCutoff(any()))
+                .willReturn(LocalDateTime.of(2023, 5, 1, 0, 0));
+        given(transactionRepository
+                .findByAccountAndTransactionResultTypeAndTransactedAtBetweenOrderByIdAsc(
+                        account, S, LocalDate.of(2023, 5, 11).atStartOfDay(), at))
+                .willReturn(Arrays.asList(
+                        transaction(USE, S, 3000L, 7000L),
+                        transaction(CANCEL, S, 3000L, 10000L),
+                        transaction(USE, S, 500L, 9500L)));
+
+        //when
+        Long balance = balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER, at);
+
+        //then
+        assertEquals(9500L, balance);
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 스냅샷이 없으면 첫 거래 직전 잔액에서 시작한다")
+    public void balanceAtWithoutSnapshot() {
+        //given
+        Account account = account();
+        LocalDateTime at = LocalDateTime.of(2023, 5, 11, 15, 0);
+        Transaction first = transaction(USE, S, 1000L, 9000L);
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(any(), any()))
+                .willReturn(Optional.empty());
+        given(transactionRepository.findFirstByAccountOrderByIdAsc(account))
+                .willReturn(Optional.of(first));
+        given(transactionRepository
+                .findByAccountAndTransactionResultTypeAndTransactedAtBetweenOrderByIdAsc(
+                        account, S, first.getTransactedAt(), at))
+                .willReturn(Collections.singletonList(first));
+
+        //when
+        Long balance = balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER, at);
+
+        //then
+        assertEquals(9000L, balance);
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 실패 거래는 잔액을 바꾸지 않는다")
+    public void balanceAtStartsFromFailedTransaction() {
+        //given
+        Account account = account();
+        LocalDateTime at = LocalDateTime.of(2023, 5, 11, 15, 0);
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(any(), any()))
+                .willReturn(Optional.empty());
+        given(transactionRepository.findFirstByAccountOrderByIdAsc(account))
+                .willReturn(Optional.of(transaction(USE, F, 50000L, 10000L)));
+
+        //when
+        Long balance = balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER, at);
+
+        //then
+        assertEquals(10000L, balance);
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 남은 첫 거래보다 이르지만 아카이브 기준 이후면 첫 거래 직전 잔액이다")
+    public void balanceAtBeforeOldestLiveTransaction() {
+        //given
+        Account account = account();
+        LocalDateTime at = LocalDateTime.of(2023, 5, 11, 8, 0);
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(any(), any()))
+                .willReturn(Optional.empty());
+        given(transactionRepository.findFirstByAccountOrderByIdAsc(account))
+                .willReturn(Optional.of(transaction(USE, S, 1000L, 9000L)));
+        given(transactionArchiveService.archiveCutoff(any()))
+                .willReturn(LocalDateTime.of(2023, 5, 1, 0, 0));
+
+        //when
+        Long balance = balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER, at);
+
+        //then
+        assertEquals(10000L, balance);
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 남은 첫 거래보다 이른 아카이브 기간은 조회할 수 없다")
+    public void balanceAtInArchivedHistory() {
+        //given
+        Account account = account();
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(any(), any()))
+                .willReturn(Optional.empty());
+        given(transactionRepository.findFirstByAccountOrderByIdAsc(account))
+                .willReturn(Optional.of(transaction(USE, S, 1000L, 9000L)));
+        given(transactionArchiveService.archiveCutoff(any()))
+                .willReturn(LocalDateTime.of(2023, 6, 1, 0, 0));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER,
+                        LocalDateTime.of(2023, 5, 11, 8, 0)));
+
+        //then
+        assertEquals(BALANCE_HISTORY_UNAVAILABLE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 스냅샷 다음 거래가 아카이브로 옮겨진 기간이면 조회할 수 없다")
+    public void balanceAtFromSnapshotInArchivedHistory() {
+        //given
+        Account account = account();
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(dailyBalanceSnapshotRepository
+                .findFirstByAccountAndSnapshotDateLessThanOrderBySnapshotDateDesc(
+                        account, LocalDate.of(2023, 5, 11)))
+                .willReturn(Optional.of(DailyBalanceSnapshot.builder()
+                        .account(account)
+                        .snapshotDate(LocalDate.of(2023, 3, 31))
+                        .balance(10000L)
+                        .build()));
+        given(transactionArchiveService.archiveCutoff(any()))
+                .willReturn(LocalDateTime.of(2023, 5, 1, 0, 0));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER,
+                        LocalDateTime.of(2023, 5, 11, 15, 0)));
+
+        //then
+        assertEquals(BALANCE_HISTORY_UNAVAILABLE, exception.getErrorCode());
+        verify(transactionRepository, never())
+                .findByAccountAndTransactionResultTypeAndTransactedAtBetweenOrderByIdAsc(
+                        any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("스냅샷 생성 - 다른 서버가 스냅샷을 만들고 있으면 만들지 않는다")
+    public void takeSnapshotsSkippedWithoutJobLock() {
+        //given
+        given(scheduledJobLock.runExclusively(eq(BalanceSnapshotService.SNAPSHOT_JOB), any()))
+                .willReturn(false);
+
+        //when
+        balanceSnapshotService.takeSnapshots();
+
+        //then
+        verify(dailyBalanceSnapshotRepository, never()).findFirstByOrderBySnapshotDateDesc();
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 계좌가 없으면 실패해야 한다")
+    public void balanceAt_accountNotFound() {
+        //given
+        given(accountRepository.findByAccountNumber(anyLong()))
+                .willReturn(Optional.empty());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER, LocalDateTime.now()));
+
+        //then
+        assertEquals(ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("특정 시점 잔액 - 계좌 개설 전 시점은 조회할 수 없다")
+    public void balanceAt_beforeRegistered() {
+        //given
+        given(accountRepository.findByAccountNumber(anyLong()))
+                .willReturn(Optional.of(account()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceSnapshotService.getBalanceAt(ACCOUNT_NUMBER,
+                        LocalDateTime.of(2020, 1, 1, 0, 0)));
+
+        //then
+        assertEquals(INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    private Account account() {
+        return Account.builder()
+                .id(1L)
+                .accountNumber(ACCOUNT_NUMBER)
+                .balance(9500L)
+                .registeredAt(LocalDateTime.of(2023, 1, 1, 0, 0))
+                .build();
+    }
+
+    private Transaction transaction(TransactionType type, TransactionResultType result,
+                                    Long amount, Long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(type)
+                .transactionResultType(result)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactedAt(LocalDateTime.of(2023, 5, 11, 9, 0))
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.account.service;
+
+import com.example.account.exception.RateLimitException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ConnectionPoolGuardTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariDataSource dataSource = new HikariDataSource();
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("reserve: pool 크기만큼 허가를 주고, 허가가 없으면 lock 을 기다리지 않고 거절한다")
+    public void reservePermits() {
+        //given
+        dataSource.setMaximumPoolSize(4);
+        ConnectionPoolGuard guard = guard(dataSource, "reserve", "redisson");
+
+        //when
+        long first = guard.reserve(5000L);
+        guard.reserve(5000L);
+        RateLimitException exception = assertThrows(RateLimitException.class, () -> guard.reserve(10L));
+
+        //then
+        assertTrue(first > 4000L && first <= 5000L);
+        assertEquals(1L, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("account.lock.pool-guard.rejected").counter().count());
+        assertEquals(0.0, meterRegistry.get("account.lock.pool-guard.available").gauge().value());
+        guard.release();
+        assertEquals(1.0, meterRegistry.get("account.lock.pool-guard.available").gauge().value());
+        guard.reserve(10L);
+    }
+
+    @Test
+    @DisplayName("reserve: database lock 은 요청 하나가 connection 을 두 개 쓴다")
+    public void reserveTwoConnectionsForDatabaseLock() {
+        //given
+        dataSource.setMaximumPoolSize(6);
+
+        //when
+        guard(dataSource, "reserve", "database");
+
+        //then
+        assertEquals(2.0, meterRegistry.get("account.lock.pool-guard.available").gauge().value());
+    }
+
+    @Test
+    @DisplayName("reject: connection 을 기다리는 스레드가 있으면 바로 거절한다")
+    public void rejectWhenThreadsAwaitConnection() throws Exception {
+        //given
+        HikariDataSource saturated = mock(HikariDataSource.class);
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        given(saturated.unwrap(HikariDataSource.class)).willReturn(saturated);
+        given(saturated.getHikariPoolMXBean()).willReturn(pool);
+        given(pool.getThreadsAwaitingConnection()).willReturn(3, 0);
+        ConnectionPoolGuard guard = guard(saturated, "reject", "redisson");
+
+        //when
+        //then
+        assertThrows(RateLimitException.class, () -> guard.reserve(5000L));
+        assertEquals(5000L, guard.reserve(5000L));
+    }
+
+    @Test
+    @DisplayName("pool 이 아직 만들어지지 않았으면 거절하지 않는다")
+    public void passBeforePoolStarts() {
+        assertEquals(5000L, guard(dataSource, "reject", "redisson").reserve(5000L));
+        assertEquals(5000L, guard(dataSource, "none", "redisson").reserve(5000L));
+    }
+
+    @Test
+    @DisplayName("알 수 없는 모드는 시작할 때 실패한다")
+    public void unknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> guard(dataSource, "bind", "redisson"));
+    }
+
+    @Test
+    @DisplayName("database lock 은 모드를 비워 두면 reserve 로 허가를 받는다")
+    public void reserveByDefaultForDatabaseLock() {
+        //given
+        dataSource.setMaximumPoolSize(6);
+
+        //when
+        ConnectionPoolGuard guard = guard(dataSource, "", "database");
+
+        //then
+        assertEquals(2.0, meterRegistry.get("account.lock.pool-guard.available").gauge().value());
+        assertEquals(5000L, guard(dataSource, "", "redisson").reserve(5000L));
+    }
+
+    @Test
+    @DisplayName("database lock 은 reserve 가 아니면 시작할 때 실패한다")
+    public void databaseLockNeedsReserve() {
+        assertThrows(IllegalStateException.class, () -> guard(dataSource, "none", "database"));
+        assertThrows(IllegalStateException.class, () -> guard(dataSource, "reject", "database"));
+    }
+
+    @Test
+    @DisplayName("database lock 은 pool 이 connection 두 개보다 작으면 시작할 때 실패한다")
+    public void databaseLockNeedsTwoConnections() {
+        //given
+        dataSource.setMaximumPoolSize(1);
+
+        //when
+        //then
+        assertThrows(IllegalStateException.class, () -> guard(dataSource, "reserve", "database"));
+    }
+
+    private ConnectionPoolGuard guard(HikariDataSource dataSource, String mode, String lockProvider) {
+        return new ConnectionPoolGuard(dataSource, meterRegistry, new LatencyRecorder(), mode, lockProvider, 2, 0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.aop.LockMode.WRITE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseAccountLockProviderTest {
+
+    private static final List<String> ACCOUNT_1 = Collections.singletonList("ACLK:1000000000");
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final DatabaseAccountLockProvider provider = new DatabaseAccountLockProvider(dataSource, "for update");
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    {
+        new JdbcTemplate(dataSource).execute(
+                "create table account_lock_row (lock_key varchar(255) primary key, fencing_token bigint)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("lock row 를 만들고 잡은 동안 다른 connection 은 잡지 못한다")
+    public void exclusiveAcrossConnections() throws Exception {
+        //given
+        assertTrue(provider.tryLock(ACCOUNT_1, WRITE, 1, 15, TimeUnit.SECONDS));
+
+        try {
+            //when
+            //then
+            assertFalse(tryLockInOtherThread("ACLK:1000000000"));
+        } finally {
+            provider.unlock(ACCOUNT_1, WRITE);
+        }
+        assertTrue(tryLockInOtherThread("ACLK:1000000000"));
+        assertEquals(1, new JdbcTemplate(dataSource)
+                .queryForObject("select count(*) from account_lock_row", Integer.class));
+    }
+
+    @Test
+    @DisplayName("여러 lock 을 connection 하나로 잡고 함께 푼다")
+    public void tryLockAll() throws Exception {
+        //when
+        assertTrue(provider.tryLock(
+                Arrays.asList("ACLK:1000000000", "ACLK:2000000000"), WRITE, 1, 15, TimeUnit.SECONDS));
+
+        //then
+        assertFalse(tryLockInOtherThread("ACLK:2000000000"));
+        provider.unlock(Arrays.asList("ACLK:1000000000", "ACLK:2000000000"), WRITE);
+        assertTrue(tryLockInOtherThread("ACLK:2000000000"));
+    }
+
+    @Test
+    @DisplayName("lock 을 잡을 때마다 lock row 의 fencing token 이 커진다")
+    public void fencingTokenIncreases() throws Exception {
+        List<String> lockKeys = Collections.singletonList("ACLK:1000000000");
+
+        assertTrue(provider.tryLock(lockKeys, WRITE, 1, 15, TimeUnit.SECONDS));
+        long first = provider.nextFencingToken("ACLK:1000000000");
+        provider.unlock(lockKeys, WRITE);
+
+        assertTrue(provider.tryLock(lockKeys, WRITE, 1, 15, TimeUnit.SECONDS));
+        long second = provider.nextFencingToken("ACLK:1000000000");
+        provider.unlock(lockKeys, WRITE);
+
+        assertTrue(second > first);
+        assertThrows(IllegalMonitorStateException.class,
+                () -> provider.nextFencingToken("ACLK:1000000000"));
+    }
+
+    @Test
+    @DisplayName("거래 id 는 거래마다 row 를 만들지 않고 정해진 수의 row 를 나눠 쓴다")
+    public void transactionIdsShareStripeRows() throws Exception {
+        //given
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        //when
+        for (int i = 0; i < 1000; i++) {
+            List<String> lockKeys = Arrays.asList(
+                    "ACLK:1000000000", "ACLK:" + UUID.randomUUID().toString().replace("-", ""));
+            assertTrue(provider.tryLock(lockKeys, WRITE, 1, 15, TimeUnit.SECONDS));
+            provider.unlock(lockKeys, WRITE);
+        }
+
+        //then
+        int rows = jdbcTemplate.queryForObject("select count(*) from account_lock_row", Integer.class);
+        assertTrue(rows <= 1 + DatabaseAccountLockProvider.TRANSACTION_STRIPES, "rows " + rows);
+        String transactionKey = "ACLK:c5a1e7c9d2f04b6f8a3e0f1d2c3b4a59";
+        assertTrue(provider.tryLock(Collections.singletonList(transactionKey), WRITE, 1, 15, TimeUnit.SECONDS));
+        try {
+            assertFalse(tryLockInOtherThread(transactionKey));
+        } finally {
+            provider.unlock(Collections.singletonList(transactionKey), WRITE);
+        }
+    }
+
+    @Test
+    @DisplayName("스케줄 작업 lock 은 거래 id 의 stripe row 를 나눠 쓰지 않는다")
+    public void jobLockUsesOwnRow() throws Exception {
+        //given
+        List<String> jobLockKeys = ScheduledJobLock.lockKeys("outbox-relay");
+        List<String> stripeKeys = new ArrayList<>();
+        for (int i = 0; i < DatabaseAccountLockProvider.TRANSACTION_STRIPES * 4; i++) {
+            stripeKeys.add("ACLK:" + UUID.randomUUID().toString().replace("-", ""));
+        }
+        assertTrue(provider.tryLock(stripeKeys, WRITE, 1, 15, TimeUnit.SECONDS));
+
+        try {
+            //when
+            //then
+            assertTrue(tryLockInOtherThread(jobLockKeys.get(0)));
+        } finally {
+            provider.unlock(stripeKeys, WRITE);
+        }
+        assertEquals(1, new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from account_lock_row where lock_key = 'JOBL:outbox-relay'", Integer.class));
+    }
+
+    private boolean tryLockInOtherThread(String lockKey) throws Exception {
+        return executor.submit(() -> {
+            List<String> lockKeys = Collections.singletonList(lockKey);
+            boolean locked = provider.tryLock(lockKeys, WRITE, 100, 15, TimeUnit.MILLISECONDS);
+            if (locked) {
+                provider.unlock(lockKeys, WRITE);
+            }
+            return locked;
+        }).get(10, TimeUnit.SECONDS);
+    }
+}
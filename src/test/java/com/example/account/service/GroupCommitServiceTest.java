@@ -0,0 +1,200 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.UnexpectedRollbackException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.example.account.type.ErrorCode.REQUEST_TIMEOUT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class GroupCommitServiceTest {
+    private static final int CALLERS = 4;
+
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private GroupCommitService groupCommitService;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (groupCommitService != null) {
+            groupCommitService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("동시에 들어온 잔액 사용은 한 번에 commit 하고 각자 자기 결과를 받는다")
+    public void commitConcurrentUsesTogether() throws Exception {
+        //given
+        groupCommitService = groupCommitService(true);
+        doAnswer(invocation -> {
+            List<GroupCommitService.PendingUse> uses = invocation.getArgument(0);
+            uses.forEach(use -> use.succeeded(transaction(use)));
+            return null;
+        }).when(transactionService).useBalances(anyList());
+
+        //when
+        List<Future<TransactionDto>> results = useConcurrently();
+
+        //then
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(1000000000L + i, results.get(i).get(5, TimeUnit.SECONDS).getAccountNumber());
+        }
+        verify(transactionService, times(1)).useBalances(anyList());
+        assertEquals(CALLERS, meterRegistry.get("account.group-commit.batch-size").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("검증에 실패한 건만 실패하고 나머지는 함께 commit 한다")
+    public void isolateFailedUse() throws Exception {
+        //given
+        groupCommitService = groupCommitService(true);
+        doAnswer(invocation -> {
+            List<GroupCommitService.PendingUse> uses = invocation.getArgument(0);
+            for (GroupCommitService.PendingUse use : uses) {
+                if (use.getAccountNumber() == 1000000001L) {
+                    use.failed(new AccountException(AMOUNT_EXCEED_BALANCE));
+                } else {
+                    use.succeeded(transaction(use));
+                }
+            }
+            return null;
+        }).when(transactionService).useBalances(anyList());
+
+        //when
+        List<Future<TransactionDto>> results = useConcurrently();
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> results.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(AMOUNT_EXCEED_BALANCE, ((AccountException) exception.getCause()).getErrorCode());
+        assertEquals(1000000000L, results.get(0).get(5, TimeUnit.SECONDS).getAccountNumber());
+        assertEquals(1000000003L, results.get(3).get(5, TimeUnit.SECONDS).getAccountNumber());
+        verify(transactionService, times(1)).useBalances(anyList());
+    }
+
+    @Test
+    @DisplayName("묶음 commit 이 실패하면 한 건씩 다시 처리해 실패를 그 건에 가둔다")
+    public void retryOneByOneWhenBatchFails() throws Exception {
+        //given
+        groupCommitService = groupCommitService(true);
+        doAnswer(invocation -> {
+            List<GroupCommitService.PendingUse> uses = invocation.getArgument(0);
+            if (uses.size() > 1) {
+                uses.forEach(use -> use.succeeded(transaction(use)));
+                throw new UnexpectedRollbackException("rolled back");
+            }
+            GroupCommitService.PendingUse use = uses.get(0);
+            if (use.getAccountNumber() == 1000000002L) {
+                throw new IllegalStateException("broken");
+            }
+            use.succeeded(transaction(use));
+            return null;
+        }).when(transactionService).useBalances(anyList());
+
+        //when
+        List<Future<TransactionDto>> results = useConcurrently();
+
+        //then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> results.get(2).get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertEquals(1000000001L, results.get(1).get(5, TimeUnit.SECONDS).getAccountNumber());
+        verify(transactionService, times(1 + CALLERS)).useBalances(anyList());
+        assertEquals(1.0, meterRegistry.get("account.group-commit.fallback").counter().count());
+    }
+
+    @Test
+    @DisplayName("시간이 지나도록 commit 되지 않은 건은 요청이 포기하고 committer 도 처리하지 않는다")
+    public void abandonUseAfterDeadline() throws Exception {
+        //given
+        groupCommitService = groupCommitService(true);
+        List<Long> committed = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<GroupCommitService.PendingUse> uses = invocation.getArgument(0);
+            uses.forEach(use -> {
+                committed.add(use.getAccountNumber());
+                use.succeeded(transaction(use));
+            });
+            return null;
+        }).when(transactionService).useBalances(anyList());
+        Future<TransactionDto> expired = callers.submit(() -> {
+            RequestDeadline.start(100L);
+            try {
+                return groupCommitService.useBalance(1L, 1000000000L, 100L);
+            } finally {
+                RequestDeadline.clear();
+            }
+        });
+
+        //when
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> expired.get(5, TimeUnit.SECONDS));
+        List<Future<TransactionDto>> results = new ArrayList<>();
+        for (int i = 1; i < CALLERS; i++) {
+            long accountNumber = 1000000000L + i;
+            results.add(callers.submit(() -> groupCommitService.useBalance(1L, accountNumber, 100L)));
+        }
+
+        //then
+        assertEquals(REQUEST_TIMEOUT, ((AccountException) exception.getCause()).getErrorCode());
+        for (Future<TransactionDto> result : results) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS));
+        }
+        assertFalse(committed.contains(1000000000L));
+        assertEquals(CALLERS - 1, committed.size());
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 요청 스레드에서 바로 처리한다")
+    public void disabled() {
+        //given
+        groupCommitService = groupCommitService(false);
+        TransactionDto transactionDto = TransactionDto.builder().accountNumber(1000000000L).build();
+        given(transactionService.useBalance(1L, 1000000000L, 100L)).willReturn(transactionDto);
+
+        //when
+        //then
+        assertSame(transactionDto, groupCommitService.useBalance(1L, 1000000000L, 100L));
+        verify(transactionService, never()).useBalances(anyList());
+    }
+
+    /** 계좌마다 다른 스레드에서 사용하고, CALLERS 건이 모이면 commit 한다. */
+    private List<Future<TransactionDto>> useConcurrently() {
+        List<Future<TransactionDto>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            long accountNumber = 1000000000L + i;
+            results.add(callers.submit(() -> groupCommitService.useBalance(1L, accountNumber, 100L)));
+        }
+        return results;
+    }
+
+    private GroupCommitService groupCommitService(boolean enabled) {
+        return new GroupCommitService(transactionService, mock(LockService.class), mock(HotAccountService.class),
+                meterRegistry, enabled, TimeUnit.SECONDS.toMicros(10), CALLERS);
+    }
+
+    private static TransactionDto transaction(GroupCommitService.PendingUse use) {
+        return TransactionDto.builder()
+                .accountNumber(use.getAccountNumber())
+                .amount(use.getAmount())
+                .build();
+    }
+}
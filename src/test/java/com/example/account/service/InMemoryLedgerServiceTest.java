@@ -0,0 +1,122 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryLedgerServiceTest {
+    private static final Long ACCOUNT_NUMBER = 1000000012L;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InMemoryLedgerService inMemoryLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        inMemoryLedgerService = new InMemoryLedgerService(accountRepository, jdbcTemplate, "in-memory", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("장부에 없는 계좌는 처음 쓸 때 DB 에서 한 번만 읽어 넣는다")
+    public void loadAccountOnFirstUse() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account()));
+
+        //when
+        Account first = inMemoryLedgerService.getAccount(ACCOUNT_NUMBER);
+        inMemoryLedgerService.debit(first, 300L);
+        Account second = inMemoryLedgerService.getAccount(ACCOUNT_NUMBER);
+
+        //then
+        verify(accountRepository, times(1)).findByAccountNumber(ACCOUNT_NUMBER);
+        assertEquals(7L, second.getId());
+        assertEquals(1L, second.getAccountUser().getId());
+        assertEquals(IN_USE, second.getAccountStatus());
+        assertEquals(700L, second.getBalance());
+        assertEquals(Optional.of(1L), inMemoryLedgerService.findOwnerId(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    @DisplayName("DB 에도 없는 계좌는 찾을 수 없다")
+    public void accountNotFound() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.empty());
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> inMemoryLedgerService.getAccount(ACCOUNT_NUMBER));
+
+        //then
+        assertEquals(ACCOUNT_NOT_FOUND, exception.getErrorCode());
+        assertEquals(Optional.empty(), inMemoryLedgerService.findOwnerId(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    @DisplayName("트랜잭션이 되돌려지면 장부의 잔액도 되돌린다")
+    public void undoOnRollback() {
+        //given
+        Account account = account();
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        inMemoryLedgerService.debit(account, 300L);
+        inMemoryLedgerService.credit(account, 50L);
+        assertEquals(750L, inMemoryLedgerService.balance(account));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(
+                        TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        //then
+        assertEquals(1000L, inMemoryLedgerService.balance(account));
+    }
+
+    @Test
+    @DisplayName("jpa 모드에서는 장부를 만들지 않는다")
+    public void disabled() {
+        assertFalse(new InMemoryLedgerService(accountRepository, jdbcTemplate, "jpa", 100).isEnabled());
+        assertTrue(inMemoryLedgerService.isEnabled());
+    }
+
+    private Account account() {
+        return Account.builder()
+                .id(7L)
+                .accountUser(AccountUser.builder().id(1L).build())
+                .accountStatus(IN_USE)
+                .balance(1000L)
+                .accountNumber(ACCOUNT_NUMBER).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.example.account.aop.LockMode.READ;
+import static com.example.account.aop.LockMode.WRITE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessAccountLockProviderTest {
+
+    private static final List<String> ACCOUNT_1 = Collections.singletonList("ACLK:1000000000");
+    private static final List<String> ACCOUNT_2 = Collections.singletonList("ACLK:2000000000");
+
+    private final InProcessAccountLockProvider provider = new InProcessAccountLockProvider(1024, false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("다른 스레드가 잡은 write lock 은 기다리다 실패하고, 풀리면 잡을 수 있다")
+    public void exclusiveAcrossThreads() throws Exception {
+        //given
+        assertTrue(provider.tryLock(ACCOUNT_1, WRITE, 1, 15, TimeUnit.SECONDS));
+
+        try {
+            //when
+            //then
+            assertFalse(tryLockInOtherThread(ACCOUNT_1, WRITE));
+            assertFalse(tryLockInOtherThread(ACCOUNT_1, READ));
+        } finally {
+            provider.unlock(ACCOUNT_1, WRITE);
+        }
+        assertTrue(tryLockInOtherThread(ACCOUNT_1, WRITE));
+    }
+
+    @Test
+    @DisplayName("read lock 끼리는 함께 잡고, write lock 은 기다린다")
+    public void readLocksAreShared() throws Exception {
+        //given
+        assertTrue(provider.tryLock(ACCOUNT_1, READ, 1, 15, TimeUnit.SECONDS));
+
+        try {
+            //when
+            //then
+            assertTrue(tryLockInOtherThread(ACCOUNT_1, READ));
+            assertFalse(tryLockInOtherThread(ACCOUNT_1, WRITE));
+        } finally {
+            provider.unlock(ACCOUNT_1, READ);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 lock 은 하나라도 못 잡으면 잡은 것도 모두 푼다")
+    public void tryLockAllOrNothing() throws Exception {
+        //given
+        assertTrue(executor.submit(
+                () -> provider.tryLock(ACCOUNT_2, WRITE, 1, 15, TimeUnit.SECONDS)).get());
+
+        //when
+        boolean locked = provider.tryLock(
+                Arrays.asList("ACLK:1000000000", "ACLK:2000000000"), WRITE, 50, 15, TimeUnit.MILLISECONDS);
+
+        //then
+        assertFalse(locked);
+        assertTrue(provider.tryLock(ACCOUNT_1, WRITE, 0, 15, TimeUnit.SECONDS));
+        provider.unlock(ACCOUNT_1, WRITE);
+        executor.submit(() -> provider.unlock(ACCOUNT_2, WRITE)).get();
+    }
+
+    @Test
+    @DisplayName("아무도 잡지 않은 lock 은 GC 가 치운다")
+    public void evictUnusedLocks() throws Exception {
+        //given
+        for (int i = 0; i < 100; i++) {
+            List<String> lockKeys = Collections.singletonList("ACLK:" + (1000000000 + i));
+            assertTrue(provider.tryLock(lockKeys, WRITE, 0, 15, TimeUnit.SECONDS));
+            provider.unlock(lockKeys, WRITE);
+        }
+        List<String> held = Collections.singletonList("ACLK:held");
+        assertTrue(provider.tryLock(held, WRITE, 0, 15, TimeUnit.SECONDS));
+
+        //when
+        for (int i = 0; i < 50 && provider.stripeCount() > 1; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        //then
+        assertEquals(1, provider.stripeCount());
+        provider.unlock(held, WRITE);
+    }
+
+    @Test
+    @DisplayName("잡지 않은 lock 을 풀 수 없다")
+    public void unlockWithoutLock() {
+        assertThrows(IllegalMonitorStateException.class,
+                () -> provider.unlock(ACCOUNT_1, WRITE));
+    }
+
+    @Test
+    @DisplayName("fencing token 은 재시작해도 작아지지 않도록 현재 시각에서 시작해 계속 커진다")
+    public void fencingTokenIncreases() {
+        long first = provider.nextFencingToken("ACLK:1000000000");
+        long second = provider.nextFencingToken("ACLK:2000000000");
+
+        assertTrue(first >= System.currentTimeMillis() * 1000 - 1_000_000);
+        assertTrue(second > first);
+    }
+
+    private boolean tryLockInOtherThread(List<String> lockKeys, LockMode mode) throws Exception {
+        return executor.submit(() -> {
+            boolean locked = provider.tryLock(lockKeys, mode, 50, 15, TimeUnit.MILLISECONDS);
+            if (locked) {
+                provider.unlock(lockKeys, mode);
+            }
+            return locked;
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
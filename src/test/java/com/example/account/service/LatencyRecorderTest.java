@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.dto.LatencyReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyRecorderTest {
+
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+
+    @Test
+    public void reportIntervalAndCumulativePercentiles() {
+        //given
+        for (int i = 1; i <= 1000; i++) {
+            latencyRecorder.record("useBalance", TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        latencyRecorder.record("lock.write.acquire", TimeUnit.MILLISECONDS.toNanos(3));
+
+        //when
+        List<LatencyReport> first = latencyRecorder.report();
+        latencyRecorder.record("useBalance", TimeUnit.MILLISECONDS.toNanos(5));
+        List<LatencyReport> second = latencyRecorder.report();
+
+        //then
+        assertEquals("lock.write.acquire", first.get(0).getOperation());
+        LatencyReport useBalance = first.get(1);
+        assertEquals(1000, useBalance.getInterval().getCount());
+        assertEquals(500.0, useBalance.getInterval().getP50(), 1.0);
+        assertEquals(999.0, useBalance.getInterval().getP999(), 1.0);
+        assertEquals(1000.0, useBalance.getInterval().getMax(), 1.0);
+
+        assertEquals(0, second.get(0).getInterval().getCount());
+        assertEquals(0.0, second.get(0).getInterval().getMax());
+        assertEquals(1, second.get(1).getInterval().getCount());
+        assertEquals(5000.0, second.get(1).getInterval().getMax(), 5.0);
+        assertEquals(1001, second.get(1).getCumulative().getCount());
+        assertEquals(5000.0, second.get(1).getCumulative().getMax(), 5.0);
+    }
+
+    @Test
+    public void clampValuesOutOfRange() {
+        //when
+        latencyRecorder.record("createAccount", TimeUnit.HOURS.toNanos(1));
+        latencyRecorder.record("createAccount", 0L);
+
+        //then
+        LatencyReport.Percentiles interval = latencyRecorder.report().get(0).getInterval();
+        assertEquals(2, interval.getCount());
+        assertTrue(interval.getMax() >= TimeUnit.NANOSECONDS.toMicros(LatencyRecorder.HIGHEST_TRACKABLE_NANOS));
+    }
+}
@@ -1,18 +1,37 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.TransferBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
+import com.example.account.exception.RateLimitException;
 import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.example.account.aop.LockMode.READ;
+import static com.example.account.aop.LockMode.WRITE;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -21,9 +40,25 @@ class LockAopAspectTest {
     @Mock
     LockService lockService;
 
+    @Mock
+    HotAccountService hotAccountService;
+
+    @Spy
+    AccountLockKeyResolver accountLockKeyResolver;
+
+    @Spy
+    LatencyRecorder latencyRecorder;
+
+    @Spy
+    ConnectionPoolGuard connectionPoolGuard = new ConnectionPoolGuard(
+            null, new SimpleMeterRegistry(), new LatencyRecorder(), "none", "redisson", 2, 0);
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private MethodSignature methodSignature;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
@@ -31,33 +66,27 @@ class LockAopAspectTest {
     @Test
     public void lockAndUnlock() throws Throwable {
         //given
-        ArgumentCaptor<String> lockArgumentCaptor =
-                ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> unLockArgumentCaptor =
-                ArgumentCaptor.forClass(String.class);
         UseBalance.Request request =
-                new UseBalance.Request(123L, "1234", 1000L );
+                new UseBalance.Request(123L, 1234L, 1000L );
+        AccountLock accountLock = invoking("useBalance", UseBalance.Request.class, request);
+        given(hotAccountService.resolveLockId("1234")).willReturn("1234");
 
         //when
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock);
         //then
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(Collections.singletonList("1234"), WRITE, 5000L);
         verify(lockService, times(1))
-                .unlock(unLockArgumentCaptor.capture());
-        assertEquals("1234" , lockArgumentCaptor.getValue());
-        assertEquals("1234" , unLockArgumentCaptor.getValue());
+                .unlock(Collections.singletonList("1234"), WRITE);
     }
 
     @Test
     public void lockAndUnlock_evenIfThrow() throws Throwable {
         //given
-        ArgumentCaptor<String> lockArgumentCaptor =
-                ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> unLockArgumentCaptor =
-                ArgumentCaptor.forClass(String.class);
         UseBalance.Request request =
-                new UseBalance.Request(123L, "54321", 1000L );
+                new UseBalance.Request(123L, 54321L, 1000L );
+        AccountLock accountLock = invoking("useBalance", UseBalance.Request.class, request);
+        given(hotAccountService.resolveLockId("54321")).willReturn("54321");
 
         given(proceedingJoinPoint.proceed())
                 .willThrow(new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
@@ -65,14 +94,128 @@ class LockAopAspectTest {
 
         //when
         assertThrows(AccountException.class,
-                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock));
 
         //then
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(Collections.singletonList("54321"), WRITE, 5000L);
+        verify(lockService, times(1))
+                .unlock(Collections.singletonList("54321"), WRITE);
+    }
+
+    @Test
+    public void reserveConnectionBeforeLock() throws Throwable {
+        //given
+        UseBalance.Request request =
+                new UseBalance.Request(123L, 1234L, 1000L );
+        AccountLock accountLock = invoking("useBalance", UseBalance.Request.class, request);
+        given(hotAccountService.resolveLockId("1234")).willReturn("1234");
+        given(connectionPoolGuard.reserve(5000L)).willReturn(3000L);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(anyList(), any(), anyLong());
+
+        //when
+        assertThrows(AccountException.class,
+                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock));
+
+        //then
+        // connection 허가를 기다린 만큼 lock 은 덜 기다리고, lock 을 못 잡아도 허가는 돌려준다.
         verify(lockService, times(1))
-                .unlock(unLockArgumentCaptor.capture());
-        assertEquals("54321" , lockArgumentCaptor.getValue());
-        assertEquals("54321" , unLockArgumentCaptor.getValue());
+                .lock(Collections.singletonList("1234"), WRITE, 3000L);
+        verify(lockService, never()).unlock(anyList(), any());
+        verify(connectionPoolGuard, times(1)).release();
+        verify(proceedingJoinPoint, never()).proceed();
+        assertFalse(ConnectionPoolGuard.isLockHeld());
+    }
+
+    @Test
+    public void skipLockWhenPoolIsSaturated() throws Throwable {
+        //given
+        UseBalance.Request request =
+                new UseBalance.Request(123L, 1234L, 1000L );
+        AccountLock accountLock = invoking("useBalance", UseBalance.Request.class, request);
+        given(hotAccountService.resolveLockId("1234")).willReturn("1234");
+        given(connectionPoolGuard.reserve(5000L)).willThrow(new RateLimitException(1L));
+
+        //when
+        assertThrows(RateLimitException.class,
+                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock));
+
+        //then
+        verify(lockService, never()).lock(anyList(), any(), anyLong());
+        verify(connectionPoolGuard, never()).release();
+        verify(hotAccountService, times(1)).clearCurrentSlot();
+    }
+
+    @Test
+    public void lockSlotOfHotAccount() throws Throwable {
+        //given
+        UseBalance.Request request =
+                new UseBalance.Request(123L, 1234L, 1000L );
+        AccountLock accountLock = invoking("useBalance", UseBalance.Request.class, request);
+        given(hotAccountService.resolveLockId("1234")).willReturn("1234:3");
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock);
+
+        //then
+        verify(lockService, times(1)).lock(Collections.singletonList("1234:3"), WRITE, 5000L);
+        verify(lockService, times(1)).unlock(Collections.singletonList("1234:3"), WRITE);
+        verify(hotAccountService, times(1)).splitIfHot("1234", "1234:3");
+        verify(hotAccountService, times(1)).clearCurrentSlot();
+    }
+
+    @Test
+    public void lockAllAccountsOfTransfer() throws Throwable {
+        //given
+        TransferBalance.Request request =
+                new TransferBalance.Request(123L, 2000000000L, 1000000000L, 1000L);
+        AccountLock accountLock = invoking("transferBalance", TransferBalance.Request.class, request);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock);
+
+        //then
+        verify(lockService, times(1)).lock(Arrays.asList("2000000000", "1000000000"), WRITE, 5000L);
+        verify(lockService, times(1)).unlock(Arrays.asList("2000000000", "1000000000"), WRITE);
+        verify(hotAccountService, never()).resolveLockId(anyString());
+    }
+
+    @Test
+    public void lockAccountAndTransactionOfCancel() throws Throwable {
+        //given
+        CancelBalance.Request request =
+                new CancelBalance.Request("transactionId", 1000000000L, 1000L);
+        AccountLock accountLock = invoking("cancelBalance", CancelBalance.Request.class, request);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock);
+
+        //then
+        verify(lockService, times(1)).lock(Arrays.asList("1000000000", "transactionId"), WRITE, 5000L);
+        verify(lockService, times(1)).unlock(Arrays.asList("1000000000", "transactionId"), WRITE);
+    }
+
+    @Test
+    public void readLockOfQueryTransaction() throws Throwable {
+        //given
+        AccountLock accountLock = invoking("queryTransaction", String.class, "transactionId");
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock);
+
+        //then
+        verify(lockService, times(1)).lock(Collections.singletonList("transactionId"), READ, 5000L);
+        verify(lockService, times(1)).unlock(Collections.singletonList("transactionId"), READ);
+        verify(hotAccountService, never()).resolveLockId(anyString());
+    }
+
+    /** TransactionController 메소드에 붙은 @AccountLock 으로 호출되는 상황을 만든다. */
+    private AccountLock invoking(String methodName, Class<?> parameterType, Object arg) throws Exception {
+        Method method = TransactionController.class.getMethod(methodName, parameterType);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getMethod()).willReturn(method);
+        given(proceedingJoinPoint.getArgs()).willReturn(new Object[]{arg});
+        return method.getAnnotation(AccountLock.class);
     }
-}
\ No newline at end of file
+}
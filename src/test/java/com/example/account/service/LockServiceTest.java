@@ -2,59 +2,296 @@ package com.example.account.service;
 
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.aop.LockMode.READ;
+import static com.example.account.aop.LockMode.WRITE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockServiceTest {
 
     @Mock
-    private RedissonClient redissonClient;
+    private AccountLockProvider accountLockProvider;
 
-    @Mock
-    private RLock rLock;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    @InjectMocks
     private LockService lockService;
 
+    @BeforeEach
+    void setUp() {
+        lockService = new LockService(accountLockProvider, meterRegistry, -1L, 3, 1L, 5L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
 
     @Test
     public void successGetLock() throws Exception {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
                 .willReturn(true);
 
         //when
         //then
-        assertDoesNotThrow(() -> lockService.lock("123"));
-
+        assertDoesNotThrow(() -> lockService.lock(Collections.singletonList("123"), WRITE, 3000L));
+        verify(accountLockProvider).tryLock(eq(Collections.singletonList("ACLK:123")), eq(WRITE),
+                eq(3000L), anyLong(), eq(TimeUnit.MILLISECONDS));
     }
 
 
     @Test
     public void failGetLock() throws Exception {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
                 .willReturn(false);
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> lockService.lock("123"));
+                () -> lockService.lock(Collections.singletonList("123"), WRITE, 3000L));
         //then
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(1.0, acquireCount("write", "timeout"));
+    }
+
+    @Test
+    public void retryWhenLockStoreFails() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willThrow(new IllegalStateException("redis down"))
+                .willReturn(true);
+
+        //when
+        lockService.lock(Collections.singletonList("456"), READ, 1000L);
+
+        //then
+        verify(accountLockProvider, times(2)).tryLock(anyList(), any(), anyLong(), anyLong(), any());
+        assertEquals(1.0, meterRegistry.counter("account.lock.retry", "mode", "read").count());
+        assertEquals(1.0, acquireCount("read", "acquired"));
+    }
+
+    @Test
+    public void failWhenRetriesExhausted() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willThrow(new IllegalStateException("redis down"));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock(Collections.singletonList("456"), READ, 1000L));
+
+        //then
+        assertEquals(ErrorCode.LOCK_UNAVAILABLE, exception.getErrorCode());
+        verify(accountLockProvider, times(3)).tryLock(anyList(), any(), anyLong(), anyLong(), any());
+        assertEquals(1.0, acquireCount("read", "error"));
+    }
+
+    @Test
+    public void waitNoLongerThanRequestDeadline() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        RequestDeadline.start(300L);
+
+        //when
+        lockService.lock(Collections.singletonList("456"), READ, 5000L);
+
+        //then
+        ArgumentCaptor<Long> waitTime = ArgumentCaptor.forClass(Long.class);
+        verify(accountLockProvider).tryLock(anyList(), any(), waitTime.capture(), anyLong(), any());
+        assertTrue(waitTime.getValue() <= 300L);
+    }
+
+    @Test
+    public void abandonExpiredRequest() throws Exception {
+        //given
+        RequestDeadline.start(0L);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock(Collections.singletonList("456"), WRITE, 5000L));
+
+        //then
+        assertEquals(ErrorCode.REQUEST_TIMEOUT, exception.getErrorCode());
+        verify(accountLockProvider, never()).tryLock(anyList(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void lockAllInIdOrder() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        //when
+        lockService.lock(Arrays.asList("2000000000", "1000000000", "2000000000"), READ, 1000L);
+
+        //then
+        verify(accountLockProvider).tryLock(
+                eq(Arrays.asList("ACLK:1000000000", "ACLK:2000000000")), eq(READ),
+                eq(1000L), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void writeLockIssuesFencingTokens() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(accountLockProvider.nextFencingToken("ACLK:1000000000")).willReturn(11L);
+        given(accountLockProvider.nextFencingToken("ACLK:2000000000")).willReturn(12L);
+
+        //when
+        lockService.lock(Arrays.asList("2000000000", "1000000000"), WRITE, 1000L);
+
+        //then
+        assertEquals(OptionalLong.of(11L), lockService.fencingToken("1000000000"));
+        assertEquals(OptionalLong.of(12L), lockService.fencingToken("2000000000"));
+        verify(accountLockProvider).tryLock(anyList(), eq(WRITE), eq(1000L), eq(-1L),
+                eq(TimeUnit.MILLISECONDS));
+
+        assertEquals(OptionalLong.of(11L), lockService.fencingToken(1000000000L));
+
+        lockService.unlock(Arrays.asList("2000000000", "1000000000"), WRITE);
+        assertEquals(OptionalLong.empty(), lockService.fencingToken("1000000000"));
+        assertEquals(OptionalLong.empty(), lockService.fencingToken(2000000000L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void reuseLockKeyOfAccount() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        String transactionId = "c5a1e7c9d2f04b6f8a3e0f1d2c3b4a59";
+        ArgumentCaptor<List<String>> lockKeys = ArgumentCaptor.forClass(List.class);
+
+        //when
+        lockService.lock(Collections.singletonList(new String("1000000000")), READ, 1000L);
+        lockService.lock(Collections.singletonList(new String("1000000000")), READ, 1000L);
+        lockService.lock(Collections.singletonList(new String(transactionId)), READ, 1000L);
+        lockService.lock(Collections.singletonList(new String(transactionId)), READ, 1000L);
+
+        //then
+        verify(accountLockProvider, times(4)).tryLock(lockKeys.capture(), eq(READ), anyLong(), anyLong(), any());
+        List<List<String>> keys = lockKeys.getAllValues();
+        assertEquals("ACLK:1000000000", keys.get(0).get(0));
+        assertSame(keys.get(0).get(0), keys.get(1).get(0));
+        assertEquals("ACLK:" + transactionId, keys.get(2).get(0));
+        assertNotSame(keys.get(2).get(0), keys.get(3).get(0));
+    }
+
+    @Test
+    public void noFencingTokenForTransactionId() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(accountLockProvider.nextFencingToken("ACLK:1000000000")).willReturn(11L);
+        String transactionId = "c5a1e7c9d2f04b6f8a3e0f1d2c3b4a59";
+
+        //when
+        lockService.lock(Arrays.asList("1000000000", transactionId, "1000000000:3"), WRITE, 1000L);
+
+        //then
+        assertEquals(OptionalLong.of(11L), lockService.fencingToken("1000000000"));
+        assertEquals(OptionalLong.empty(), lockService.fencingToken(transactionId));
+        verify(accountLockProvider, times(1)).nextFencingToken(any());
+        lockService.unlock(Arrays.asList("1000000000", transactionId, "1000000000:3"), WRITE);
+    }
+
+    @Test
+    public void readLockHasNoFencingToken() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        //when
+        lockService.lock(Collections.singletonList("456"), READ, 1000L);
+
+        //then
+        assertEquals(OptionalLong.empty(), lockService.fencingToken("456"));
+        verify(accountLockProvider, never()).nextFencingToken(any());
+        lockService.unlock(Collections.singletonList("456"), READ);
+    }
+
+    @Test
+    public void unlockWhenFencingTokenFails() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+        given(accountLockProvider.nextFencingToken(any()))
+                .willThrow(new IllegalStateException("redis down"));
+
+        //when
+        assertThrows(IllegalStateException.class,
+                () -> lockService.lock(Collections.singletonList("123"), WRITE, 1000L));
+
+        //then
+        verify(accountLockProvider).unlock(Collections.singletonList("ACLK:123"), WRITE);
+    }
+
+    @Test
+    public void recordLockAcquireEvent() throws Exception {
+        //given
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any()))
+                .willThrow(new IllegalStateException("redis down"))
+                .willReturn(true);
+        Path file = Files.createTempFile("lock", ".jfr");
+
+        //when
+        try (Recording recording = new Recording()) {
+            recording.enable("com.example.account.AccountLockAcquire");
+            recording.start();
+            lockService.lock(Arrays.asList("2000000000", "1000000000"), READ, 1000L);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        //then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("2000000000,1000000000", event.getString("accountNumber"));
+        assertEquals("READ", event.getString("mode"));
+        assertEquals("acquired", event.getString("outcome"));
+        assertEquals(2, event.getInt("attempts"));
+    }
+
+    private double acquireCount(String mode, String result) {
+        return meterRegistry.counter("account.lock.acquire", "mode", mode, "result", result).count();
+    }
+
+    @Test
+    public void unlockInIdOrder() {
+        //when
+        lockService.unlock(Arrays.asList("2000000000", "1000000000"), WRITE);
+
+        //then
+        verify(accountLockProvider).unlock(
+                Arrays.asList("ACLK:1000000000", "ACLK:2000000000"), WRITE);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.AccountStatus.UNREGISTERED;
+import static com.example.account.type.ErrorCode.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapBalanceIndexTest {
+
+    @Test
+    @DisplayName("계좌를 넣고 계좌번호로 찾는다 (이미 있으면 먼저 넣은 값을 그대로 둔다)")
+    public void putAndFind() {
+        //given
+        OffHeapBalanceIndex index = new OffHeapBalanceIndex(1000);
+
+        //when
+        for (long accountNumber = 1_000_000_000L; accountNumber < 1_000_001_000L; accountNumber++) {
+            index.putIfAbsent(accountNumber, accountNumber - 999_999_999L, 12L, IN_USE, 100L);
+        }
+        int entry = index.putIfAbsent(1_000_000_500L, 1L, 1L, IN_USE, 0L);
+
+        //then
+        assertEquals(1000, index.size());
+        assertEquals(entry, index.find(1_000_000_500L));
+        assertEquals(501L, index.accountId(entry));
+        assertEquals(12L, index.ownerId(entry));
+        assertEquals(100L, index.balance(entry));
+        assertEquals(IN_USE, index.status(entry));
+        assertEquals(-1, index.find(1_000_001_000L));
+        assertThrows(IllegalStateException.class,
+                () -> index.putIfAbsent(1_000_001_000L, 1001L, 12L, IN_USE, 0L));
+    }
+
+    @Test
+    @DisplayName("잔액이 부족하거나 해지한 계좌는 차감하지 않는다")
+    public void debit() {
+        //given
+        OffHeapBalanceIndex index = new OffHeapBalanceIndex(4);
+        int entry = index.putIfAbsent(1000000000L, 1L, 1L, IN_USE, 1000L);
+        int unregistered = index.putIfAbsent(1000000001L, 2L, 1L, UNREGISTERED, 0L);
+
+        //when
+        long balance = index.debit(entry, 400L);
+        AccountException exceed = assertThrows(AccountException.class, () -> index.debit(entry, 601L));
+        AccountException closed = assertThrows(AccountException.class, () -> index.debit(unregistered, 1L));
+
+        //then
+        assertEquals(600L, balance);
+        assertEquals(600L, index.balance(entry));
+        assertEquals(AMOUNT_EXCEED_BALANCE, exceed.getErrorCode());
+        assertEquals(ACCOUNT_ALREADY_UNREGISTERED, closed.getErrorCode());
+        assertEquals(UNREGISTERED, index.status(unregistered));
+    }
+
+    @Test
+    @DisplayName("잔액이 남은 계좌는 해지하지 않고, 해지한 계좌에는 충전하지 않는다")
+    public void unregister() {
+        //given
+        OffHeapBalanceIndex index = new OffHeapBalanceIndex(4);
+        int entry = index.putIfAbsent(1000000000L, 1L, 1L, IN_USE, 100L);
+
+        //when
+        AccountException notEmpty = assertThrows(AccountException.class, () -> index.unregister(entry));
+        index.debit(entry, 100L);
+        index.unregister(entry);
+        AccountException closed = assertThrows(AccountException.class, () -> index.credit(entry, 1L));
+        index.reopen(entry);
+
+        //then
+        assertEquals(BALANCE_NOT_EMPTY, notEmpty.getErrorCode());
+        assertEquals(ACCOUNT_ALREADY_UNREGISTERED, closed.getErrorCode());
+        assertEquals(IN_USE, index.status(entry));
+        assertEquals(0L, index.balance(entry));
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 차감해도 잔액만큼만 성공한다")
+    public void concurrentDebit() throws Exception {
+        //given
+        int threads = 8;
+        OffHeapBalanceIndex index = new OffHeapBalanceIndex(1);
+        int entry = index.putIfAbsent(1000000000L, 1L, 1L, IN_USE, 100_000L);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    int debited = 0;
+                    for (int j = 0; j < 20_000; j++) {
+                        try {
+                            index.debit(entry, 1L);
+                            debited++;
+                        } catch (AccountException e) {
+                            assertEquals(AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                        }
+                    }
+                    return debited;
+                }));
+            }
+
+            //then
+            int debited = 0;
+            for (Future<Integer> result : results) {
+                debited += result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(100_000, debited);
+            assertEquals(0L, index.balance(entry));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
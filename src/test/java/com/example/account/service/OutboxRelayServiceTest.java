@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.domain.TransactionOutbox;
+import com.example.account.respository.TransactionOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayServiceTest {
+    @Mock
+    private TransactionOutboxRepository transactionOutboxRepository;
+
+    @Mock
+    private OutboxSink outboxSink;
+
+    @Mock
+    private ScheduledJobLock scheduledJobLock;
+
+    @InjectMocks
+    private OutboxRelayService outboxRelayService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelayService, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("outbox 발행 성공 - 발행한 이벤트는 outbox 에서 삭제된다")
+    public void relayBatchSuccess() throws Exception {
+        //given
+        List<TransactionOutbox> events = Arrays.asList(event(1L), event(2L));
+        given(transactionOutboxRepository.findByOrderByIdAsc(any()))
+                .willReturn(events);
+
+        //when
+        int relayed = outboxRelayService.relayBatch();
+
+        //then
+        assertEquals(2, relayed);
+        verify(outboxSink, times(1)).publish(events);
+        verify(transactionOutboxRepository, times(1))
+                .deleteAllByIdInBatch(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("outbox 발행 실패 - 이벤트를 삭제하지 않고 다음 주기에 다시 발행한다")
+    public void relayBatchFailKeepsEvents() throws Exception {
+        //given
+        List<TransactionOutbox> events = Collections.singletonList(event(1L));
+        given(transactionOutboxRepository.findByOrderByIdAsc(any()))
+                .willReturn(events);
+        willThrow(new IllegalStateException("sink down"))
+                .given(outboxSink).publish(anyList());
+
+        //when
+        int relayed = outboxRelayService.relayBatch();
+
+        //then
+        assertEquals(0, relayed);
+        verify(transactionOutboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("outbox relay - 배치가 가득 차면 빌 때까지 계속 발행한다")
+    public void relayDrainsUntilEmpty() throws Exception {
+        //given
+        given(scheduledJobLock.runExclusively(eq(OutboxRelayService.RELAY_JOB), any()))
+                .willAnswer(invocation -> {
+                    invocation.getArgument(1, Runnable.class).run();
+                    return true;
+                });
+        given(transactionOutboxRepository.findByOrderByIdAsc(any()))
+                .willReturn(Arrays.asList(event(1L), event(2L)))
+                .willReturn(Collections.singletonList(event(3L)));
+
+        //when
+        outboxRelayService.relay();
+
+        //then
+        verify(outboxSink, times(2)).publish(anyList());
+        verify(transactionOutboxRepository, times(2)).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("outbox relay - 다른 서버가 relay lock 을 잡고 있으면 발행하지 않는다")
+    public void relaySkippedWithoutLock() throws Exception {
+        //given
+        given(scheduledJobLock.runExclusively(any(), any())).willReturn(false);
+
+        //when
+        outboxRelayService.relay();
+
+        //then
+        verify(transactionOutboxRepository, never()).findByOrderByIdAsc(any());
+        verify(outboxSink, never()).publish(anyList());
+    }
+
+    private TransactionOutbox event(Long id) {
+        return TransactionOutbox.builder()
+                .id(id)
+                .transactionId("transactionId" + id)
+                .accountNumber("1000000000")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .build();
+    }
+}
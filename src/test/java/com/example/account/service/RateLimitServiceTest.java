@@ -0,0 +1,190 @@
+package com.example.account.service;
+
+import com.example.account.exception.RateLimitException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateIntervalUnit;
+import org.redisson.api.RateLimiterConfig;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitServiceTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RRateLimiter rRateLimiter;
+
+    @InjectMocks
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimitService, "enabled", true);
+        ReflectionTestUtils.setField(rateLimitService, "accountCapacity", 2L);
+        ReflectionTestUtils.setField(rateLimitService, "accountRefillPerSecond", 0.5);
+        ReflectionTestUtils.setField(rateLimitService, "userCapacity", 3L);
+        ReflectionTestUtils.setField(rateLimitService, "userRefillPerSecond", 1.0);
+    }
+
+    @Test
+    @DisplayName("계좌 한도 초과 - 바로 거절하고 다시 시도할 시간을 알려준다")
+    public void rejectWhenAccountBucketEmpty() {
+        //given
+        rateLimitService.acquire(1000000000L, 1L);
+        rateLimitService.acquire(1000000000L, 1L);
+
+        //when
+        RateLimitException exception = assertThrows(RateLimitException.class,
+                () -> rateLimitService.acquire(1000000000L, 1L));
+
+        //then
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, exception.getErrorCode());
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> rateLimitService.acquire(1000000001L, 2L));
+    }
+
+    @Test
+    @DisplayName("사용자 한도 초과 - 다른 계좌라도 같은 사용자면 거절한다")
+    public void rejectWhenUserBucketEmpty() {
+        //given
+        rateLimitService.acquire(1000000000L, 1L);
+        rateLimitService.acquire(1000000001L, 1L);
+        rateLimitService.acquire(1000000002L, 1L);
+
+        //when
+        RateLimitException exception = assertThrows(RateLimitException.class,
+                () -> rateLimitService.acquire(1000000003L, 1L));
+
+        //then
+        assertEquals(1, exception.getRetryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("사용자 한도 초과 - 거절된 요청은 계좌 토큰을 쓰지 않는다")
+    public void refundAccountTokenWhenUserRejected() {
+        //given
+        ReflectionTestUtils.setField(rateLimitService, "userCapacity", 1L);
+        rateLimitService.acquire(1000000000L, 1L);
+
+        //when
+        assertThrows(RateLimitException.class, () -> rateLimitService.acquire(1000000000L, 1L));
+
+        //then
+        // 계좌 한도 2 중 성공한 요청 하나만 썼다.
+        assertDoesNotThrow(() -> rateLimitService.acquire(1000000000L, 2L));
+    }
+
+    @Test
+    @DisplayName("redis 버킷 - 공유 한도를 넘으면 거절하고 limiter 의 간격으로 다시 시도할 시간을 알려준다")
+    public void rejectWhenRedisBucketEmpty() {
+        //given
+        ReflectionTestUtils.setField(rateLimitService, "redisEnabled", true);
+        ReflectionTestUtils.setField(rateLimitService, "redisIdleTtlMillis", 600_000L);
+        given(redissonClient.getRateLimiter(anyString())).willReturn(rRateLimiter);
+        given(rRateLimiter.tryAcquire()).willReturn(true, false);
+        given(rRateLimiter.getConfig()).willReturn(new RateLimiterConfig(RateType.OVERALL, 3000L, 1L));
+
+        //when
+        rateLimitService.acquire(1000000000L, 1L);
+        RateLimitException exception = assertThrows(RateLimitException.class,
+                () -> rateLimitService.acquire(1000000000L, 1L));
+
+        //then
+        assertEquals(3, exception.getRetryAfterSeconds());
+        // 0.5/s 는 2000ms 에 1개로 맞추고, 만료는 limiter 를 만들 때 한 번만 건다.
+        verify(rRateLimiter).trySetRate(RateType.OVERALL, 1, 2000, RateIntervalUnit.MILLISECONDS);
+        verify(rRateLimiter).expireAsync(Duration.ofMillis(600_000L));
+        // redis 에서 거절된 요청은 로컬 토큰을 돌려받는다.
+        ReflectionTestUtils.setField(rateLimitService, "redisEnabled", false);
+        assertDoesNotThrow(() -> rateLimitService.acquire(1000000000L, 1L));
+    }
+
+    @Test
+    @DisplayName("쓰이지 않는 계좌는 버킷과 redis limiter 를 함께 정리한다")
+    public void evictRedisLimiterWithBucket() {
+        //given
+        ReflectionTestUtils.setField(rateLimitService, "redisEnabled", true);
+        ReflectionTestUtils.setField(rateLimitService, "accountRefillPerSecond", 1_000_000.0);
+        given(redissonClient.getRateLimiter(anyString())).willReturn(rRateLimiter);
+        given(rRateLimiter.tryAcquire()).willReturn(true);
+        rateLimitService.acquire(1000000000L, null);
+
+        //when
+        rateLimitService.evictIdleBuckets();
+        rateLimitService.acquire(1000000000L, null);
+
+        //then
+        // 정리된 뒤에는 limiter 를 다시 만든다.
+        verify(redissonClient, times(2)).getRateLimiter("RLMT:1000000000");
+    }
+
+    @Test
+    @DisplayName("redis 버킷 - 정리 주기에 그 사이 쓰인 limiter 의 만료만 늦춘다")
+    public void refreshRedisExpireOnEvict() {
+        //given
+        ReflectionTestUtils.setField(rateLimitService, "redisEnabled", true);
+        ReflectionTestUtils.setField(rateLimitService, "redisIdleTtlMillis", 600_000L);
+        ReflectionTestUtils.setField(rateLimitService, "accountCapacity", 10L);
+        given(redissonClient.getRateLimiter(anyString())).willReturn(rRateLimiter);
+        given(rRateLimiter.tryAcquire()).willReturn(true);
+        rateLimitService.acquire(1000000000L, null);
+        rateLimitService.acquire(1000000000L, null);
+
+        //when
+        rateLimitService.evictIdleBuckets();
+        rateLimitService.evictIdleBuckets();
+
+        //then
+        // 만들 때 한 번, 쓰인 뒤 첫 정리에 한 번
+        verify(rRateLimiter, times(2)).expireAsync(Duration.ofMillis(600_000L));
+    }
+
+    @Test
+    @DisplayName("redis 버킷 - 소수 한도는 간격을 늘려 정수 허가로 맞춘다")
+    public void rateIntervalOfFractionalRefill() {
+        assertEquals(1000, RateLimitService.rateIntervalMillis(10, 10.0));
+        assertEquals(2000, RateLimitService.rateIntervalMillis(1, 0.5));
+        assertEquals(800, RateLimitService.rateIntervalMillis(2, 2.5));
+        assertThrows(IllegalStateException.class, () -> RateLimitService.rateIntervalMillis(1, 0));
+    }
+
+    @Test
+    @DisplayName("요청 수 제한 비활성화")
+    public void disabled() {
+        ReflectionTestUtils.setField(rateLimitService, "enabled", false);
+
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> rateLimitService.acquire(1000000000L, 1L));
+        }
+    }
+
+    @Test
+    @DisplayName("토큰 버킷 - 시간이 지나면 다시 채워진다")
+    public void tokenBucketRefill() {
+        TokenBucket bucket = new TokenBucket(1, 2.0, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(500_000_000L, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(500_000_000L));
+        assertFalse(bucket.isFull(500_000_000L));
+        assertTrue(bucket.isFull(1_000_000_000L));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RLock;
+import org.redisson.api.RReadWriteLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.aop.LockMode.READ;
+import static com.example.account.aop.LockMode.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonAccountLockProviderTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    private RedissonAccountLockProvider redissonAccountLockProvider;
+
+    @BeforeEach
+    void setUp() {
+        redissonAccountLockProvider = new RedissonAccountLockProvider(redissonClient, false);
+    }
+
+    @Test
+    public void tryWriteLock() throws Exception {
+        //given
+        RReadWriteLock readWriteLock = mock(RReadWriteLock.class);
+        given(redissonClient.getReadWriteLock("ACLK:123")).willReturn(readWriteLock);
+        given(readWriteLock.writeLock()).willReturn(rLock);
+        given(rLock.tryLock(1, 15, TimeUnit.SECONDS)).willReturn(true);
+
+        //when
+        //then
+        assertTrue(redissonAccountLockProvider.tryLock(
+                Collections.singletonList("ACLK:123"), WRITE, 1, 15, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void tryReadLockAllWithMultiLockInGivenOrder() throws Exception {
+        //given
+        RLock firstLock = readLockOf("ACLK:1000000000");
+        RLock secondLock = readLockOf("ACLK:2000000000");
+        given(redissonClient.getMultiLock(any(), any())).willReturn(rLock);
+        given(rLock.tryLock(1, 15, TimeUnit.SECONDS)).willReturn(true);
+
+        //when
+        boolean locked = redissonAccountLockProvider.tryLock(
+                Arrays.asList("ACLK:1000000000", "ACLK:2000000000"), READ, 1, 15, TimeUnit.SECONDS);
+
+        //then
+        assertTrue(locked);
+        verify(redissonClient).getMultiLock(firstLock, secondLock);
+    }
+
+    @Test
+    public void fairLockForBothModes() throws Exception {
+        //given
+        RedissonAccountLockProvider fairProvider = new RedissonAccountLockProvider(redissonClient, true);
+        given(redissonClient.getFairLock("ACLK:123")).willReturn(rLock);
+        given(rLock.tryLock(1, 15, TimeUnit.SECONDS)).willReturn(true);
+
+        //when
+        //then
+        assertTrue(fairProvider.tryLock(
+                Collections.singletonList("ACLK:123"), READ, 1, 15, TimeUnit.SECONDS));
+        assertTrue(fairProvider.tryLock(
+                Collections.singletonList("ACLK:123"), WRITE, 1, 15, TimeUnit.SECONDS));
+        verify(redissonClient, never()).getReadWriteLock(any());
+    }
+
+    @Test
+    public void fencingTokenFromCounter() {
+        //given
+        RAtomicLong counter = mock(RAtomicLong.class);
+        long issued = System.currentTimeMillis() * 1000 + 1_000_000_000L;
+        given(redissonClient.getAtomicLong("ACLK:123:fence")).willReturn(counter);
+        given(counter.incrementAndGet()).willReturn(issued);
+
+        //when
+        //then
+        assertEquals(issued, redissonAccountLockProvider.nextFencingToken("ACLK:123"));
+        verify(counter, never()).set(anyLong());
+    }
+
+    @Test
+    public void fencingTokenStartsFromClockWhenCounterIsReset() {
+        //given
+        RAtomicLong counter = mock(RAtomicLong.class);
+        given(redissonClient.getAtomicLong("ACLK:123:fence")).willReturn(counter);
+        given(counter.incrementAndGet()).willReturn(1L);
+        long before = System.currentTimeMillis() * 1000;
+
+        //when
+        long token = redissonAccountLockProvider.nextFencingToken("ACLK:123");
+
+        //then
+        assertTrue(token >= before);
+        verify(counter).set(token);
+    }
+
+    private RLock readLockOf(String lockKey) {
+        RReadWriteLock readWriteLock = mock(RReadWriteLock.class);
+        RLock readLock = mock(RLock.class);
+        given(redissonClient.getReadWriteLock(lockKey)).willReturn(readWriteLock);
+        given(readWriteLock.readLock()).willReturn(readLock);
+        return readLock;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledJobLockTest {
+    @Mock
+    private AccountLockProvider accountLockProvider;
+
+    @Mock
+    private ConnectionPoolGuard connectionPoolGuard;
+
+    @Test
+    @DisplayName("작업 lock 과 connection 허가를 받은 서버만 실행하고 둘 다 돌려준다")
+    public void runWithJobLock() throws Exception {
+        //given
+        ScheduledJobLock scheduledJobLock = new ScheduledJobLock(accountLockProvider, connectionPoolGuard, "database");
+        given(connectionPoolGuard.tryReserve()).willReturn(true);
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any())).willReturn(true);
+        AtomicInteger runs = new AtomicInteger();
+
+        //when
+        boolean ran = scheduledJobLock.runExclusively("outbox-relay", runs::incrementAndGet);
+
+        //then
+        assertTrue(ran);
+        assertEquals(1, runs.get());
+        InOrder inOrder = inOrder(connectionPoolGuard, accountLockProvider);
+        inOrder.verify(connectionPoolGuard).tryReserve();
+        inOrder.verify(accountLockProvider).tryLock(Collections.singletonList("JOBL:outbox-relay"),
+                LockMode.WRITE, 0L, -1L, TimeUnit.MILLISECONDS);
+        inOrder.verify(accountLockProvider).unlock(Collections.singletonList("JOBL:outbox-relay"), LockMode.WRITE);
+        inOrder.verify(connectionPoolGuard).release();
+    }
+
+    @Test
+    @DisplayName("다른 서버가 작업 중이면 실행하지 않고 connection 허가를 돌려준다")
+    public void skipWhenLockedElsewhere() throws Exception {
+        //given
+        ScheduledJobLock scheduledJobLock = new ScheduledJobLock(accountLockProvider, connectionPoolGuard, "database");
+        given(connectionPoolGuard.tryReserve()).willReturn(true);
+        given(accountLockProvider.tryLock(anyList(), any(), anyLong(), anyLong(), any())).willReturn(false);
+
+        //when
+        boolean ran = scheduledJobLock.runExclusively("outbox-relay", () -> fail("must not run"));
+
+        //then
+        assertFalse(ran);
+        verify(accountLockProvider, never()).unlock(anyList(), any());
+        verify(connectionPoolGuard).release();
+    }
+
+    @Test
+    @DisplayName("connection 허가가 없으면 lock 을 잡지 않는다")
+    public void skipWithoutConnectionPermit() throws Exception {
+        //given
+        ScheduledJobLock scheduledJobLock = new ScheduledJobLock(accountLockProvider, connectionPoolGuard, "database");
+        given(connectionPoolGuard.tryReserve()).willReturn(false);
+
+        //when
+        boolean ran = scheduledJobLock.runExclusively("outbox-relay", () -> fail("must not run"));
+
+        //then
+        assertFalse(ran);
+        verify(accountLockProvider, never()).tryLock(anyList(), any(), anyLong(), anyLong(), any());
+        verify(connectionPoolGuard, never()).release();
+    }
+
+    @Test
+    @DisplayName("in-process lock 은 서버 한 대라 저장소의 lock 없이 실행한다")
+    public void runWithoutLockOnSingleServer() {
+        //given
+        ScheduledJobLock scheduledJobLock =
+                new ScheduledJobLock(accountLockProvider, connectionPoolGuard, "in-process");
+        AtomicInteger runs = new AtomicInteger();
+
+        //when
+        assertTrue(scheduledJobLock.runExclusively("outbox-relay", runs::incrementAndGet));
+
+        //then
+        assertEquals(1, runs.get());
+        verifyNoInteractions(accountLockProvider, connectionPoolGuard);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.ErrorCode.TRANSACTION_NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight =
+            new SingleFlight<>("transaction", meterRegistry);
+
+    @Test
+    @DisplayName("같은 key 로 동시에 들어온 조회는 한 번만 실행하고 결과를 나눈다")
+    public void coalesceConcurrentCalls() throws Exception {
+        //given
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        //when
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            results.add(executor.submit(() -> singleFlight.execute("tx", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("tx", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            waitForFollowers(callers - 1);
+            release.countDown();
+
+            //then
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals(7.0 / 8, singleFlight.coalescingRatio(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("실행이 끝난 뒤 들어온 조회는 다시 실행한다")
+    public void doNotCacheCompletedCalls() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        singleFlight.execute("tx", () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute("tx", () -> "v" + loads.incrementAndGet());
+
+        //then
+        assertEquals("v2", second);
+        assertEquals(0, singleFlight.coalescingRatio());
+    }
+
+    @Test
+    @DisplayName("조회 실패는 예외 그대로 전달하고 다음 조회를 막지 않는다")
+    public void propagateException() {
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> singleFlight.execute("tx", () -> {
+                    throw new AccountException(TRANSACTION_NOT_FOUND);
+                }));
+
+        //then
+        assertEquals(TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals("ok", singleFlight.execute("tx", () -> "ok"));
+    }
+
+    private void waitForFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("account.lookup.single-flight")
+                .tag("result", "coalesced").counter().count() < followers) {
+            assertTrue(System.nanoTime() < deadline, "followers did not join");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.respository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.StatementFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class StatementExportServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    private StatementExportService statementExportService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table account (id bigint primary key, account_number varchar(255))");
+        jdbcTemplate.execute("create table transaction (id bigint primary key, account_id bigint, " +
+                "transaction_type varchar(255), transaction_result_type varchar(255), amount bigint, " +
+                "balance_snapshot bigint, transaction_id varchar(255), transacted_at timestamp)");
+        jdbcTemplate.update("insert into account values (1, '1000000000'), (2, '1000000001')");
+        insertTransaction(10, 1, "a", 1000L, 9000L, LocalDateTime.of(2023, 4, 30, 23, 59));
+        insertTransaction(11, 1, "b", 2000L, 7000L, LocalDateTime.of(2023, 5, 2, 10, 0));
+        insertTransaction(12, 1, "c", 3000L, 4000L, LocalDateTime.of(2023, 5, 1, 9, 30));
+        insertTransaction(13, 2, "d", 500L, 500L, LocalDateTime.of(2023, 5, 3, 0, 0));
+        insertTransaction(14, 1, "e", 100L, 3900L, LocalDateTime.of(2023, 6, 1, 0, 0));
+        statementExportService = new StatementExportService(accountRepository, jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("거래 내역서 - 기간 안의 거래를 시각 순서로 CSV 로 쓴다")
+    public void exportCsv() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long rows = statementExportService.export(1000000000L,
+                LocalDateTime.of(2023, 5, 1, 0, 0), LocalDateTime.of(2023, 6, 1, 0, 0),
+                StatementFormat.CSV, out);
+
+        //then
+        assertEquals(2, rows);
+        List<String> lines = gunzip(out.toByteArray());
+        assertEquals(3, lines.size());
+        assertEquals(StatementExportService.CSV_HEADER, lines.get(0));
+        assertEquals("c,USE,S,3000,4000,2023-05-01T09:30", lines.get(1));
+        assertEquals("b,USE,S,2000,7000,2023-05-02T10:00", lines.get(2));
+    }
+
+    @Test
+    @DisplayName("거래 내역서 - NDJSON 은 한 줄에 거래 하나")
+    public void exportNdjson() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long rows = statementExportService.export(1000000000L,
+                LocalDateTime.of(2023, 4, 1, 0, 0), LocalDateTime.of(2023, 7, 1, 0, 0),
+                StatementFormat.NDJSON, out);
+
+        //then
+        assertEquals(4, rows);
+        List<String> lines = gunzip(out.toByteArray());
+        assertEquals(4, lines.size());
+        assertEquals("{\"transactionId\":\"a\",\"transactionType\":\"USE\"," +
+                "\"transactionResultType\":\"S\",\"amount\":1000,\"balanceSnapshot\":9000," +
+                "\"transactedAt\":\"2023-04-30T23:59\"}", lines.get(0));
+        assertEquals("e", lines.get(3).substring(18, 19));
+    }
+
+    @Test
+    @DisplayName("거래 내역서 - 거래가 없으면 헤더만 쓴다")
+    public void exportEmpty() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long rows = statementExportService.export(1000000001L,
+                LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 2, 1, 0, 0),
+                StatementFormat.CSV, out);
+
+        //then
+        assertEquals(0, rows);
+        assertEquals(1, gunzip(out.toByteArray()).size());
+    }
+
+    @Test
+    @DisplayName("거래 내역서 - 없는 계좌면 실패해야 한다")
+    public void validateAccount_AccountNotFound() {
+        //given
+        given(accountRepository.existsByAccountNumber(1234567890L)).willReturn(false);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> statementExportService.validateAccount(1234567890L));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    private void insertTransaction(long id, long accountId, String transactionId,
+                                   long amount, long balanceSnapshot, LocalDateTime transactedAt) {
+        jdbcTemplate.update("insert into transaction values (?, ?, 'USE', 'S', ?, ?, ?, ?)",
+                id, accountId, amount, balanceSnapshot, transactionId, Timestamp.valueOf(transactedAt));
+    }
+
+    private static List<String> gunzip(byte[] bytes) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
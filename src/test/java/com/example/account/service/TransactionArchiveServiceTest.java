@@ -0,0 +1,248 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.respository.TransactionRepository;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 12, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ScheduledJobLock scheduledJobLock;
+
+    @InjectMocks
+    private TransactionArchiveService transactionArchiveService;
+
+    @TempDir
+    Path archiveDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionArchiveService, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(transactionArchiveService, "chunkSize", 2);
+        ReflectionTestUtils.setField(transactionArchiveService, "lockProvider", "redisson");
+    }
+
+    @Test
+    @DisplayName("아카이브 기준 - 1년이 지난 달의 시작")
+    public void archiveCutoff() {
+        assertEquals(LocalDateTime.of(2023, 6, 1, 0, 0),
+                transactionArchiveService.archiveCutoff(NOW));
+    }
+
+    @Test
+    @DisplayName("월 아카이브 - 파일로 옮긴 거래는 hot 테이블에서 삭제되고 아카이브에서 조회된다")
+    public void archiveMonthAndFind() {
+        //given
+        givenTransactionTemplateRunsCallback();
+        Account account = Account.builder().accountNumber(1000000000L).build();
+        Transaction use = transaction(1L, "useId", USE, account,
+                LocalDateTime.of(2023, 3, 10, 9, 30, 0, 123_000_000));
+        Transaction cancel = transaction(2L, "cancelId", CANCEL, account,
+                LocalDateTime.of(2023, 4, 2, 10, 0));
+        use.setChild(cancel);
+        cancel.setParent(use);
+
+        given(transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        any(), any(), any(), any()))
+                .willReturn(Collections.singletonList(use))
+                .willReturn(Collections.emptyList());
+
+        //when
+        transactionArchiveService.archiveMonth(YearMonth.of(2023, 3),
+                transactionArchiveService.archiveCutoff(NOW));
+
+        //then
+        verify(transactionRepository).deleteAllByIdInBatch(Collections.singletonList(2L));
+        verify(transactionRepository).deleteAllByIdInBatch(Collections.singletonList(1L));
+
+        TransactionDto archivedUse = transactionArchiveService.find("useId").orElseThrow();
+        assertEquals(1000000000L, archivedUse.getAccountNumber());
+        assertEquals(USE, archivedUse.getTransactionType());
+        assertEquals(1000L, archivedUse.getAmount());
+        assertEquals(use.getTransactedAt(), archivedUse.getTransactedAt());
+
+        TransactionDto archivedCancel = transactionArchiveService.find("cancelId").orElseThrow();
+        assertEquals(CANCEL, archivedCancel.getTransactionType());
+        assertEquals(Optional.empty(), transactionArchiveService.find("unknown"));
+    }
+
+    @Test
+    @DisplayName("아카이브 조회 - bloom filter 에 없는 거래는 아카이브 파일을 열지 않는다")
+    public void skipArchiveWithoutTransactionId() throws Exception {
+        //given
+        givenTransactionTemplateRunsCallback();
+        Account account = Account.builder().accountNumber(1000000000L).build();
+        given(transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        any(), any(), any(), any()))
+                .willReturn(Collections.singletonList(transaction(1L, "useId", USE, account,
+                        LocalDateTime.of(2023, 3, 10, 9, 30))))
+                .willReturn(Collections.emptyList());
+        transactionArchiveService.archiveMonth(YearMonth.of(2023, 3), LocalDateTime.of(2023, 6, 1, 0, 0));
+        assertTrue(Files.exists(archiveDir.resolve("transaction-2023-03-0000000000000000001.arc.bloom")));
+
+        //when
+        // 아카이브 파일을 열면 실패하도록 망가뜨린다.
+        Files.write(archiveDir.resolve("transaction-2023-03-0000000000000000001.arc.gz"), new byte[]{1, 2, 3});
+
+        //then
+        assertEquals(Optional.empty(), transactionArchiveService.find("unknownId"));
+        assertThrows(UncheckedIOException.class, () -> transactionArchiveService.find("useId"));
+    }
+
+    @Test
+    @DisplayName("월 아카이브 - 취소 거래가 아직 취소 기간 안에 있으면 원거래는 남겨둔다")
+    public void archiveMonthKeepsParentOfHotCancel() {
+        //given
+        givenTransactionTemplateRunsCallback();
+        Account account = Account.builder().accountNumber(1000000000L).build();
+        Transaction use = transaction(1L, "useId", USE, account,
+                LocalDateTime.of(2023, 5, 20, 9, 0));
+        Transaction cancel = transaction(2L, "cancelId", CANCEL, account,
+                LocalDateTime.of(2023, 6, 3, 9, 0));
+        use.setChild(cancel);
+        Transaction other = transaction(3L, "otherId", USE, account,
+                LocalDateTime.of(2023, 5, 21, 9, 0));
+
+        given(transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        any(), any(), any(), any()))
+                .willReturn(Arrays.asList(use, other))
+                .willReturn(Collections.emptyList());
+
+        //when
+        transactionArchiveService.archiveMonth(YearMonth.of(2023, 5),
+                transactionArchiveService.archiveCutoff(NOW));
+
+        //then
+        verify(transactionRepository).deleteAllByIdInBatch(Collections.singletonList(3L));
+        verify(transactionRepository, never()).deleteAllByIdInBatch(Collections.singletonList(1L));
+        assertTrue(transactionArchiveService.find("otherId").isPresent());
+        assertFalse(transactionArchiveService.find("useId").isPresent());
+    }
+
+    @Test
+    @DisplayName("월 아카이브 - chunk 마다 파일로 옮긴 뒤 삭제하고 다음 chunk 는 마지막 id 다음부터 읽는다")
+    public void archiveMonthInChunks() {
+        //given
+        givenTransactionTemplateRunsCallback();
+        Account account = Account.builder().accountNumber(1000000000L).build();
+        given(transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        any(), any(), eq(0L), any()))
+                .willReturn(Arrays.asList(
+                        transaction(1L, "firstId", USE, account, LocalDateTime.of(2023, 3, 1, 9, 0)),
+                        transaction(2L, "secondId", USE, account, LocalDateTime.of(2023, 3, 2, 9, 0))));
+        given(transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        any(), any(), eq(2L), any()))
+                .willReturn(Collections.singletonList(
+                        transaction(3L, "thirdId", USE, account, LocalDateTime.of(2023, 3, 3, 9, 0))));
+        given(transactionRepository
+                .findByTransactedAtGreaterThanEqualAndTransactedAtLessThanAndIdGreaterThanOrderByIdAsc(
+                        any(), any(), eq(3L), any()))
+                .willReturn(Collections.emptyList());
+
+        //when
+        transactionArchiveService.archiveMonth(YearMonth.of(2023, 3),
+                transactionArchiveService.archiveCutoff(NOW));
+
+        //then
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(transactionRepository).deleteAllByIdInBatch(Arrays.asList(1L, 2L));
+        verify(transactionRepository).deleteAllByIdInBatch(Collections.singletonList(3L));
+        assertTrue(Files.exists(archiveDir.resolve("transaction-2023-03-0000000000000000001.arc.gz")));
+        assertTrue(Files.exists(archiveDir.resolve("transaction-2023-03-0000000000000000003.arc.gz")));
+        assertTrue(transactionArchiveService.find("firstId").isPresent());
+        assertTrue(transactionArchiveService.find("thirdId").isPresent());
+    }
+
+    @Test
+    @DisplayName("아카이브 - 함께 쓰는 저장소가 아니면 여러 서버 환경에서 거래를 옮기지 않는다")
+    public void skipArchiveWithoutSharedStorage() {
+        //when
+        transactionArchiveService.archive();
+
+        //then
+        verifyNoInteractions(scheduledJobLock, transactionRepository);
+    }
+
+    @Test
+    @DisplayName("아카이브 - 다른 서버가 옮기고 있으면 옮기지 않는다")
+    public void skipArchiveWithoutJobLock() {
+        //given
+        ReflectionTestUtils.setField(transactionArchiveService, "sharedStorage", true);
+        given(scheduledJobLock.runExclusively(eq(TransactionArchiveService.ARCHIVE_JOB), any()))
+                .willReturn(false);
+
+        //when
+        transactionArchiveService.archive();
+
+        //then
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenTransactionTemplateRunsCallback() {
+        willAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class)
+                .doInTransaction(mock(TransactionStatus.class)))
+                .given(transactionTemplate).execute(any());
+    }
+
+    private Transaction transaction(Long id, String transactionId,
+                                    TransactionType type,
+                                    Account account, LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .id(id)
+                .transactionId(transactionId)
+                .transactionType(type)
+                .transactionResultType(S)
+                .account(account)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
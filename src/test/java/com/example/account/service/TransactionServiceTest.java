@@ -3,21 +3,26 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.domain.TransactionOutbox;
 import com.example.account.dto.TransactionDto;
 import com.example.account.exception.AccountException;
 import com.example.account.respository.AccountRepository;
 import com.example.account.respository.AccountUserRepository;
+import com.example.account.respository.TransactionOutboxRepository;
 import com.example.account.respository.TransactionRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static com.example.account.type.AccountStatus.IN_USE;
@@ -25,19 +30,20 @@ import static com.example.account.type.AccountStatus.UNREGISTERED;
 import static com.example.account.type.ErrorCode.*;
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
-import static com.example.account.type.TransactionType.CANCEL;
-import static com.example.account.type.TransactionType.USE;
+import static com.example.account.type.TransactionType.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
 
-    private static final String ACCOUNT_NUMBER = "1000000012";
+    private static final Long ACCOUNT_NUMBER = 1000000012L;
     private static final long CANCEL_AMOUNT = 200L;
     private static final long BALANCE = 10000L;
     private static final long USE_AMOUNT = 1000L;
@@ -50,10 +56,74 @@ class TransactionServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private TransactionOutboxRepository transactionOutboxRepository;
+
+    @Mock
+    private TransactionArchiveService transactionArchiveService;
+
+    @Mock
+    private BalanceSlotService balanceSlotService;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private InMemoryLedgerService inMemoryLedgerService;
+
     @InjectMocks
     private TransactionService transactionService;
 
 
+    @Test
+    @DisplayName("잔액 사용 묶음 - 모두 fencing 한 뒤 조회하고, 검증에 실패한 건만 빼고 저장한다")
+    public void useBalancesInOneTransaction() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber(ACCOUNT_NUMBER).build();
+        Account unregistered = Account.builder()
+                .accountUser(user)
+                .accountStatus(UNREGISTERED)
+                .balance(BALANCE)
+                .accountNumber(1000000013L).build();
+        GroupCommitService.PendingUse use =
+                new GroupCommitService.PendingUse(1L, ACCOUNT_NUMBER, USE_AMOUNT, OptionalLong.of(7L), -1);
+        GroupCommitService.PendingUse failedUse =
+                new GroupCommitService.PendingUse(1L, 1000000013L, USE_AMOUNT, OptionalLong.of(3L), -1);
+
+        given(accountRepository.fence(anyLong(), anyLong())).willReturn(1);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(accountRepository.findByAccountNumber(1000000013L))
+                .willReturn(Optional.of(unregistered));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        transactionService.useBalances(Arrays.asList(use, failedUse));
+
+        //then
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).fence(ACCOUNT_NUMBER, 7L);
+        inOrder.verify(accountRepository).fence(1000000013L, 3L);
+        inOrder.verify(accountRepository, times(2)).findByAccountNumber(anyLong());
+        assertEquals(BALANCE - USE_AMOUNT, use.getResult().getBalanceSnapshot());
+        assertEquals(ACCOUNT_ALREADY_UNREGISTERED, ((AccountException) failedUse.getFailure()).getErrorCode());
+        assertEquals(BALANCE, unregistered.getBalance());
+        verify(transactionRepository, times(1)).save(any());
+    }
+
     @Test
     @DisplayName("잔액 사용 성공")
     public void successUseBalance() throws Exception {
@@ -65,7 +135,7 @@ class TransactionServiceTest {
                 .accountUser(user)
                 .accountStatus(IN_USE)
                 .balance(10000L)
-                .accountNumber("1000000012").build();
+                .accountNumber(1000000012L).build();
 
         LocalDateTime transactedAt = LocalDateTime.now();
         String transactionId = UUID.randomUUID().toString().replace("-", "");
@@ -73,7 +143,7 @@ class TransactionServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(account));
 
         given(transactionRepository.save(any()))
@@ -88,16 +158,23 @@ class TransactionServiceTest {
                         .build());
 
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        ArgumentCaptor<TransactionOutbox> outboxCaptor = ArgumentCaptor.forClass(TransactionOutbox.class);
 
         //when
         TransactionDto transactionDto = transactionService.useBalance(1L,
-                "1000000012", 200L);
+                1000000012L, 200L);
         //then
         verify(transactionRepository, times(1)).save(captor.capture());
         assertEquals(200L, captor.getValue().getAmount());
         assertEquals(9800L, captor.getValue().getBalanceSnapshot());
         assertEquals(S, captor.getValue().getTransactionResultType());
 
+        verify(transactionOutboxRepository, times(1)).save(outboxCaptor.capture());
+        assertEquals(String.valueOf(ACCOUNT_NUMBER), outboxCaptor.getValue().getAccountNumber());
+        assertEquals(captor.getValue().getTransactionId(), outboxCaptor.getValue().getTransactionId());
+        assertEquals(200L, outboxCaptor.getValue().getAmount());
+        assertEquals(9800L, outboxCaptor.getValue().getBalanceSnapshot());
+
         assertEquals(9000L, transactionDto.getBalanceSnapshot());
         assertEquals(ACCOUNT_NUMBER, transactionDto.getAccountNumber());
         assertEquals(1000L, transactionDto.getAmount());
@@ -133,7 +210,7 @@ class TransactionServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
@@ -156,7 +233,7 @@ class TransactionServiceTest {
                 .name("Harry").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(otherUser)
                         .build()));
@@ -178,7 +255,7 @@ class TransactionServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(Account.builder()
                         .accountUser(user)
                         .accountStatus(UNREGISTERED)
@@ -204,12 +281,12 @@ class TransactionServiceTest {
                 .accountUser(user)
                 .accountStatus(IN_USE)
                 .balance(100L)
-                .accountNumber("1000000012").build();
+                .accountNumber(1000000012L).build();
 
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(account));
 
 
@@ -232,9 +309,9 @@ class TransactionServiceTest {
                 .accountUser(user)
                 .accountStatus(IN_USE)
                 .balance(10000L)
-                .accountNumber("1000000012").build();
+                .accountNumber(1000000012L).build();
 
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(account));
 
         given(transactionRepository.save(any()))
@@ -363,7 +440,7 @@ class TransactionServiceTest {
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.empty());
 
         //when
@@ -398,7 +475,7 @@ class TransactionServiceTest {
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountRepository.findByAccountNumber(anyLong()))
                 .willReturn(Optional.of(otherAccount));
 
 
@@ -448,6 +525,48 @@ class TransactionServiceTest {
         assertEquals(CANCEL_MUST_FULLY, exception.getErrorCode());
     }
 
+    @Test
+    @DisplayName("잔액사용 취소 - 송금 거래는 입금 거래가 연결돼 있어도 취소할 수 없는 거래로 실패해야 한다")
+    public void cancelTransaction_TransferNotCancelable() throws Exception {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber(ACCOUNT_NUMBER).build();
+
+        Transaction transferOut = Transaction.builder()
+                .transactionType(TRANSFER_OUT)
+                .transactionResultType(S)
+                .account(account)
+                .amount(USE_AMOUNT)
+                .balanceSnapshot(BALANCE - USE_AMOUNT)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .build();
+        transferOut.setChild(Transaction.builder()
+                .transactionType(TRANSFER_IN)
+                .parent(transferOut)
+                .build());
+
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transferOut));
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionId", ACCOUNT_NUMBER, USE_AMOUNT));
+
+        //then
+        assertEquals(TRANSACTION_NOT_CANCELABLE, exception.getErrorCode());
+        verify(transactionRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("1년이 지난 거래 -  잔액 사용 취소 실패")
     public void cancelTransaction_TooOldOrderToCancel() throws Exception {
@@ -536,4 +655,287 @@ class TransactionServiceTest {
         //then
         assertEquals(TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("거래 확인 - hot 테이블에 없는 거래는 아카이브에서 조회한다")
+    public void queryTransaction_fromArchive() throws Exception{
+        //given
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(transactionArchiveService.find("archivedId"))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .accountNumber(ACCOUNT_NUMBER)
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .amount(USE_AMOUNT)
+                        .transactionId("archivedId")
+                        .build()));
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("archivedId");
+
+        //then
+        assertEquals("archivedId", transactionDto.getTransactionId());
+        assertEquals(ACCOUNT_NUMBER, transactionDto.getAccountNumber());
+        assertEquals(USE_AMOUNT, transactionDto.getAmount());
+    }
+
+    @Test
+    @DisplayName("잔액사용 취소 - 아카이브된 거래는 1년이 지난 거래로 취소 실패해야 한다")
+    public void cancelTransaction_archived() throws Exception {
+        //given
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(transactionArchiveService.find(anyString()))
+                .willReturn(Optional.of(TransactionDto.builder().build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("archivedId", ACCOUNT_NUMBER, 1000L));
+
+        //then
+        assertEquals(TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - slot 으로 나눈 hot 계좌는 slot 에서 차감한다")
+    public void useBalance_splitAccount() throws Exception {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(0L)
+                .balanceSlotCount(4)
+                .accountNumber(ACCOUNT_NUMBER).build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyLong()))
+                .willReturn(Optional.of(account));
+        given(balanceSlotService.totalBalance(account))
+                .willReturn(BALANCE, BALANCE - USE_AMOUNT);
+        given(hotAccountService.currentSlot()).willReturn(2);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto =
+                transactionService.useBalance(1L, ACCOUNT_NUMBER, USE_AMOUNT);
+
+        //then
+        verify(balanceSlotService, times(1)).debit(account, 2, USE_AMOUNT);
+        verify(hotAccountService, times(1)).markSplit(ACCOUNT_NUMBER, 4);
+        assertEquals(0L, account.getBalance());
+        assertEquals(BALANCE - USE_AMOUNT, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("송금 성공 - 출금, 입금 거래를 함께 저장한다")
+    public void successTransferBalance() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber(ACCOUNT_NUMBER).build();
+        Account to = Account.builder()
+                .accountUser(AccountUser.builder().id(2L).name("Crong").build())
+                .accountStatus(IN_USE)
+                .balance(0L)
+                .accountNumber(1000000013L).build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber(1000000013L))
+                .willReturn(Optional.of(to));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        TransactionDto transactionDto = transactionService.transferBalance(
+                1L, ACCOUNT_NUMBER, 1000000013L, USE_AMOUNT);
+
+        //then
+        verify(transactionRepository, times(2)).save(captor.capture());
+        Transaction transferOut = captor.getAllValues().get(0);
+        Transaction transferIn = captor.getAllValues().get(1);
+        assertEquals(TRANSFER_OUT, transferOut.getTransactionType());
+        assertEquals(BALANCE - USE_AMOUNT, transferOut.getBalanceSnapshot());
+        assertEquals(TRANSFER_IN, transferIn.getTransactionType());
+        assertEquals(USE_AMOUNT, transferIn.getBalanceSnapshot());
+        assertEquals(transferOut, transferIn.getParent());
+        assertEquals(BALANCE - USE_AMOUNT, from.getBalance());
+        assertEquals(USE_AMOUNT, to.getBalance());
+        assertEquals(ACCOUNT_NUMBER, transactionDto.getAccountNumber());
+        assertEquals(TRANSFER_OUT, transactionDto.getTransactionType());
+    }
+
+    @Test
+    @DisplayName("송금 실패 - 같은 계좌로는 송금할 수 없다")
+    public void transferBalance_sameAccount() {
+        //given
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(AccountUser.builder().id(1L).name("Pobi").build()));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(1L, ACCOUNT_NUMBER, ACCOUNT_NUMBER, USE_AMOUNT));
+
+        //then
+        assertEquals(SAME_ACCOUNT_TRANSFER, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("송금 실패 - 잔액이 부족하면 두 계좌 모두 바뀌지 않는다")
+    public void transferBalance_exceedAmount() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(100L)
+                .accountNumber(ACCOUNT_NUMBER).build();
+        Account to = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(0L)
+                .accountNumber(1000000013L).build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber(1000000013L))
+                .willReturn(Optional.of(to));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.transferBalance(1L, ACCOUNT_NUMBER, 1000000013L, USE_AMOUNT));
+
+        //then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(100L, from.getBalance());
+        assertEquals(0L, to.getBalance());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - lock 의 fencing token 을 계좌를 읽기 전에 기록한다")
+    public void useBalanceFencesBeforeLoadingAccount() throws Exception {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber(ACCOUNT_NUMBER).build();
+        given(lockService.fencingToken(ACCOUNT_NUMBER.longValue())).willReturn(OptionalLong.of(7L));
+        given(accountRepository.fence(ACCOUNT_NUMBER, 7L)).willReturn(1);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyLong()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        transactionService.useBalance(1L, ACCOUNT_NUMBER, USE_AMOUNT);
+
+        //then
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).fence(ACCOUNT_NUMBER, 7L);
+        inOrder.verify(accountRepository).findByAccountNumber(ACCOUNT_NUMBER);
+        assertEquals(BALANCE - USE_AMOUNT, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - lease 가 끝나 더 새 token 이 기록된 lock 은 거절한다")
+    public void useBalanceFailedWithStaleLock() throws Exception {
+        //given
+        given(lockService.fencingToken(ACCOUNT_NUMBER.longValue())).willReturn(OptionalLong.of(7L));
+        given(accountRepository.fence(ACCOUNT_NUMBER, 7L)).willReturn(0);
+        given(accountRepository.existsByAccountNumber(ACCOUNT_NUMBER)).willReturn(true);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, ACCOUNT_NUMBER, USE_AMOUNT));
+
+        //then
+        assertEquals(STALE_LOCK, exception.getErrorCode());
+        verify(accountRepository, never()).findByAccountNumber(anyLong());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - 캐시된 계좌 소유자가 같으면 사용자를 조회하지 않는다")
+    public void useBalanceWithCachedOwner() throws Exception {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber(ACCOUNT_NUMBER).build();
+        given(accountRepository.findOwnerIdByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(1L));
+        given(accountUserRepository.getReferenceById(1L))
+                .willReturn(user);
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        transactionService.useBalance(1L, ACCOUNT_NUMBER, USE_AMOUNT);
+
+        //then
+        verify(accountUserRepository, never()).findById(anyLong());
+        assertEquals(BALANCE - USE_AMOUNT, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 - in-memory 장부면 DB 계좌 행을 읽거나 고치지 않고 장부에서 차감한다")
+    public void useBalanceWithInMemoryLedger() throws Exception {
+        //given
+        AccountUser user = AccountUser.builder()
+                .id(1L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .id(7L)
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber(ACCOUNT_NUMBER).build();
+        given(inMemoryLedgerService.isEnabled()).willReturn(true);
+        given(inMemoryLedgerService.findOwnerId(ACCOUNT_NUMBER)).willReturn(Optional.of(1L));
+        given(accountUserRepository.getReferenceById(1L)).willReturn(user);
+        given(inMemoryLedgerService.getAccount(ACCOUNT_NUMBER)).willReturn(account);
+        given(inMemoryLedgerService.balance(account)).willReturn(BALANCE, BALANCE - USE_AMOUNT);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(1L, ACCOUNT_NUMBER, USE_AMOUNT);
+
+        //then
+        verify(inMemoryLedgerService).debit(account, USE_AMOUNT);
+        verify(accountRepository, never()).findByAccountNumber(anyLong());
+        verify(accountRepository, never()).fence(anyLong(), anyLong());
+        assertEquals(BALANCE, account.getBalance());
+        assertEquals(BALANCE - USE_AMOUNT, transactionDto.getBalanceSnapshot());
+    }
+}